@@ -0,0 +1,108 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import fr.ybo.moteurcsv.MoteurCsv;
+import fr.ybo.opendata.nantes.modele.ChargeurEquipements;
+import fr.ybo.opendata.nantes.modele.Equipement;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
+import fr.ybo.opendata.nantes.util.EquipementManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chargement à froid des équipements (lecture et parsing du fichier csv par un nouveau manager).
+ * <p/>
+ * {@link EquipementManagerBenchmark#chargeur()} et {@link EquipementManagerBenchmark#moteurCsv()} comparent la seule
+ * lecture du fichier par {@link ChargeurEquipements} et par le moteur csv générique.
+ * <p/>
+ * Pour mesurer aussi le premier chargement de la JVM (classes, JIT) :
+ * {@code java -jar target/benchmarks.jar EquipementManagerBenchmark -bm ss -f 10 -wi 0 -i 1}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquipementManagerBenchmark {
+
+    /**
+     * @return les équipements.
+     */
+    @Benchmark
+    public Map<Integer, Equipement> getMapEquipementsFroid() {
+        return new EquipementManager().getMapEquipements();
+    }
+
+    /**
+     * @param blackhole reçoit les équipements.
+     * @throws IOException problème de lecture.
+     */
+    @Benchmark
+    public void chargeur(final Blackhole blackhole) throws IOException {
+        BufferedReader reader = ouvrir();
+        try {
+            ChargeurEquipements.charger(reader, new RecepteurObjet<Equipement>() {
+                @Override
+                public void recevoir(Equipement equipement) {
+                    blackhole.consume(equipement);
+                }
+            });
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @param blackhole reçoit les équipements.
+     * @throws IOException problème de lecture.
+     */
+    @Benchmark
+    public void moteurCsv(final Blackhole blackhole) throws IOException {
+        BufferedReader reader = ouvrir();
+        try {
+            new MoteurCsv(Arrays.<Class<?>>asList(Equipement.class)).parseFileAndInsert(reader, Equipement.class,
+                    new MoteurCsv.InsertObject<Equipement>() {
+                        @Override
+                        public void insertObject(Equipement equipement) {
+                            blackhole.consume(equipement);
+                        }
+                    });
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return lecteur du fichier des équipements.
+     * @throws IOException problème d'encodage.
+     */
+    private static BufferedReader ouvrir() throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                EquipementManager.class.getResourceAsStream("/Equipements_publics_deplacement.csv"), "UTF-8"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Génération de flux xml de grande taille à partir des fichiers de test.
+ * <p/>
+ * Les enregistrements du fichier (balises data) sont recopiés à tour de rôle jusqu'au nombre demandé. Le contenu de
+ * la balise identifiant est remplacé par le numéro de l'enregistrement pour que les enregistrements restent
+ * distincts (les parkings en double sont sinon ignorés par {@link fr.ybo.opendata.nantes.OpenDataApi}).
+ */
+public final class FluxSynthetique {
+
+    /**
+     * Encodage des fichiers de test.
+     */
+    private static final String CHARSET_NAME = "UTF-8";
+
+    /**
+     * Taille du tampon de lecture.
+     */
+    private static final int TAILLE_TAMPON = 8192;
+
+    /**
+     * Classe utilitaire.
+     */
+    private FluxSynthetique() {
+    }
+
+    /**
+     * Génère un flux.
+     *
+     * @param fichier           fichier de test servant de modèle (par exemple "/getTempsParcours.xml").
+     * @param baliseData        balise d'un enregistrement.
+     * @param baliseIdentifiant balise contenant l'identifiant de l'enregistrement.
+     * @param nbEnregistrements nombre d'enregistrements du flux généré.
+     * @return le flux généré.
+     * @throws IOException problème de lecture du fichier.
+     */
+    public static byte[] generer(String fichier, String baliseData, String baliseIdentifiant, int nbEnregistrements)
+            throws IOException {
+        String xml = lire(fichier);
+        String ouvrante = '<' + baliseData + '>';
+        String fermante = "</" + baliseData + '>';
+        int debut = xml.indexOf(ouvrante);
+        int fin = xml.lastIndexOf(fermante) + fermante.length();
+        if (debut < 0 || fin < debut) {
+            throw new IllegalArgumentException("Pas de balise " + baliseData + " dans " + fichier);
+        }
+
+        // Chaque modèle est découpé autour de l'identifiant : avant, puis après.
+        List<byte[]> avants = new ArrayList<byte[]>();
+        List<byte[]> apres = new ArrayList<byte[]>();
+        String ouvranteIdentifiant = '<' + baliseIdentifiant + '>';
+        String fermanteIdentifiant = "</" + baliseIdentifiant + '>';
+        int tailleModeles = 0;
+        for (int index = debut; index >= 0 && index < fin; index = xml.indexOf(ouvrante, index)) {
+            int finModele = xml.indexOf(fermante, index) + fermante.length();
+            String modele = xml.substring(index, finModele);
+            int debutIdentifiant = modele.indexOf(ouvranteIdentifiant) + ouvranteIdentifiant.length();
+            int finIdentifiant = modele.indexOf(fermanteIdentifiant);
+            if (debutIdentifiant < ouvranteIdentifiant.length() || finIdentifiant < debutIdentifiant) {
+                throw new IllegalArgumentException("Pas de balise " + baliseIdentifiant + " dans " + modele);
+            }
+            avants.add(modele.substring(0, debutIdentifiant).getBytes(CHARSET_NAME));
+            apres.add(modele.substring(finIdentifiant).getBytes(CHARSET_NAME));
+            tailleModeles += modele.length();
+            index = finModele;
+        }
+
+        long tailleEstimee = (long) tailleModeles / avants.size() * nbEnregistrements + xml.length();
+        ByteArrayOutputStream flux = new ByteArrayOutputStream((int) Math.min(tailleEstimee, Integer.MAX_VALUE));
+        ecrire(flux, xml.substring(0, debut));
+        for (int numero = 0; numero < nbEnregistrements; numero++) {
+            int modele = numero % avants.size();
+            flux.write(avants.get(modele));
+            ecrire(flux, Integer.toString(numero + 1));
+            flux.write(apres.get(modele));
+        }
+        ecrire(flux, xml.substring(fin));
+        return flux.toByteArray();
+    }
+
+    /**
+     * @param flux  flux.
+     * @param texte texte à écrire.
+     * @throws UnsupportedEncodingException encodage non géré.
+     */
+    private static void ecrire(ByteArrayOutputStream flux, String texte) throws UnsupportedEncodingException {
+        byte[] octets = texte.getBytes(CHARSET_NAME);
+        flux.write(octets, 0, octets.length);
+    }
+
+    /**
+     * @param fichier fichier de test.
+     * @return contenu du fichier.
+     * @throws IOException problème de lecture.
+     */
+    private static String lire(String fichier) throws IOException {
+        InputStream inputStream = FluxSynthetique.class.getResourceAsStream(fichier);
+        if (inputStream == null) {
+            throw new IOException("Fichier introuvable : " + fichier);
+        }
+        try {
+            ByteArrayOutputStream contenu = new ByteArrayOutputStream();
+            byte[] tampon = new byte[TAILLE_TAMPON];
+            int lus;
+            while ((lus = inputStream.read(tampon)) != -1) {
+                contenu.write(tampon, 0, lus);
+            }
+            return contenu.toString(CHARSET_NAME);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import fr.ybo.opendata.nantes.OpenDataApi;
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.InfoTrafic;
+import fr.ybo.opendata.nantes.modele.Itineraire;
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.SegmentFluency;
+import fr.ybo.opendata.nantes.sax.ModeParsing;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing de flux synthétiques de 10 000 à 1 000 000 d'enregistrements, générés en mémoire à partir des fichiers
+ * de test (voir {@link FluxSynthetique}) : seuls le parsing, le binding et le complément des parkings sont mesurés.
+ * <p/>
+ * Lancement : {@code java -jar target/benchmarks.jar FluxSynthetiqueBenchmark -prof gc}.
+ * Chaque flux n'est généré que par les benchmarks qui l'utilisent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FluxSynthetiqueBenchmark {
+
+    /**
+     * Etat commun : un flux synthétique et l'api branchée dessus.
+     */
+    public abstract static class EtatFlux {
+
+        /**
+         * Nombre d'enregistrements du flux.
+         */
+        @Param({"10000", "100000", "1000000"})
+        public int nbEnregistrements;
+
+        /**
+         * Mode de parsing.
+         */
+        @Param({"SAX", "STAX"})
+        public ModeParsing modeParsing;
+
+        /**
+         * Fichier de test servant de modèle.
+         */
+        private final String fichier;
+
+        /**
+         * Balise d'un enregistrement.
+         */
+        private final String baliseData;
+
+        /**
+         * Balise de l'identifiant d'un enregistrement.
+         */
+        private final String baliseIdentifiant;
+
+        /**
+         * Api branchée sur le flux.
+         */
+        private OpenDataApi api;
+
+        /**
+         * Constructeur.
+         *
+         * @param fichier           {@link EtatFlux#fichier}.
+         * @param baliseData        {@link EtatFlux#baliseData}.
+         * @param baliseIdentifiant {@link EtatFlux#baliseIdentifiant}.
+         */
+        protected EtatFlux(String fichier, String baliseData, String baliseIdentifiant) {
+            this.fichier = fichier;
+            this.baliseData = baliseData;
+            this.baliseIdentifiant = baliseIdentifiant;
+        }
+
+        /**
+         * Génération du flux.
+         *
+         * @throws IOException problème de lecture du fichier modèle.
+         */
+        @Setup
+        public void setUp() throws IOException {
+            OpenDataApiConnectee.initialiserInjection();
+            byte[] flux = FluxSynthetique.generer(fichier, baliseData, baliseIdentifiant, nbEnregistrements);
+            api = new OpenDataApiConnectee(new MemoireConnecteur(flux), modeParsing);
+        }
+
+        /**
+         * @return {@link EtatFlux#api}.
+         */
+        protected OpenDataApi getApi() {
+            return api;
+        }
+    }
+
+    /**
+     * Flux de parkings.
+     */
+    @State(Scope.Benchmark)
+    public static class FluxParkings extends EtatFlux {
+        /**
+         * Constructeur.
+         */
+        public FluxParkings() {
+            super("/getDisponibiliteParkingsPublics.xml", "Groupe_Parking", "Grp_identifiant");
+        }
+    }
+
+    /**
+     * Flux de tronçons.
+     */
+    @State(Scope.Benchmark)
+    public static class FluxFluidite extends EtatFlux {
+        /**
+         * Constructeur.
+         */
+        public FluxFluidite() {
+            super("/getFluiditeAxesRoutiers.xml", "Troncon", "Id");
+        }
+    }
+
+    /**
+     * Flux de temps de parcours.
+     */
+    @State(Scope.Benchmark)
+    public static class FluxParcours extends EtatFlux {
+        /**
+         * Constructeur.
+         */
+        public FluxParcours() {
+            super("/getTempsParcours.xml", "Itineraire", "Identifiant");
+        }
+    }
+
+    /**
+     * Flux d'infos trafics.
+     */
+    @State(Scope.Benchmark)
+    public static class FluxInfosTrafics extends EtatFlux {
+        /**
+         * Constructeur.
+         */
+        public FluxInfosTrafics() {
+            super("/getInfoTraficTANPrevisionnel.xml", "INFOTRAFIC", "CODE");
+        }
+    }
+
+    /**
+     * @param flux flux de parkings.
+     * @return les parkings.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<Parking> getParkings(FluxParkings flux) throws ApiReseauException {
+        return flux.getApi().getParkings();
+    }
+
+    /**
+     * Version streaming : les parkings ne sont pas conservés.
+     *
+     * @param flux      flux de parkings.
+     * @param blackhole consommateur des parkings.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public void streamParkings(FluxParkings flux, final Blackhole blackhole) throws ApiReseauException {
+        flux.getApi().streamParkings(new RecepteurObjet<Parking>() {
+            @Override
+            public void recevoir(Parking parking) {
+                blackhole.consume(parking);
+            }
+        });
+    }
+
+    /**
+     * @param flux flux de tronçons.
+     * @return les tronçons.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<SegmentFluency> getCityCenterSegmentsFluencies(FluxFluidite flux) throws ApiReseauException {
+        return flux.getApi().getCityCenterSegmentsFluencies();
+    }
+
+    /**
+     * @param flux flux de temps de parcours.
+     * @return les temps de parcours.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<Itineraire> getTempsParcours(FluxParcours flux) throws ApiReseauException {
+        return flux.getApi().getTempsParcours();
+    }
+
+    /**
+     * @param flux flux d'infos trafics.
+     * @return les infos trafics.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<InfoTrafic> getInfosTrafics(FluxInfosTrafics flux) throws ApiReseauException {
+        return flux.getApi().getInfosTrafics();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import fr.ybo.opendata.nantes.util.Connecteur;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Connecteur renvoyant toujours le même flux, gardé en mémoire pour ne mesurer que le parsing.
+ *
+ * @see Connecteur
+ */
+public class MemoireConnecteur implements Connecteur {
+
+    /**
+     * Contenu du flux.
+     */
+    private final byte[] contenu;
+
+    /**
+     * Constructeur.
+     *
+     * @param contenu {@link MemoireConnecteur#contenu}.
+     */
+    public MemoireConnecteur(byte[] contenu) {
+        this.contenu = contenu;
+    }
+
+    /**
+     * {@inheritDoc}.
+     */
+    @Override
+    public InputStream openInputStream(String url) {
+        return new ByteArrayInputStream(contenu);
+    }
+
+    /**
+     * @return taille du flux en octets.
+     */
+    public int getTaille() {
+        return contenu.length;
+    }
+}
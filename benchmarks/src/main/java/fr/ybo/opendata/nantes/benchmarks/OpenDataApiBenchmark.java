@@ -0,0 +1,128 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import fr.ybo.opendata.nantes.FileConnecteur;
+import fr.ybo.opendata.nantes.OpenDataApi;
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.InfoTrafic;
+import fr.ybo.opendata.nantes.modele.Itineraire;
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.SegmentFluency;
+import fr.ybo.opendata.nantes.sax.ModeParsing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appels complets (lecture du fichier, parsing, binding, complément des parkings) sur les fichiers de test.
+ * <p/>
+ * Lancement : {@code java -jar target/benchmarks.jar OpenDataApiBenchmark -prof gc} pour avoir aussi le débit
+ * d'allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenDataApiBenchmark {
+
+    /**
+     * Mode de parsing.
+     */
+    @Param({"SAX", "STAX"})
+    public ModeParsing modeParsing;
+
+    /**
+     * Api branchée sur getDisponibiliteParkingsPublics.xml.
+     */
+    private OpenDataApi apiParkings;
+
+    /**
+     * Api branchée sur getFluiditeAxesRoutiers.xml.
+     */
+    private OpenDataApi apiFluidite;
+
+    /**
+     * Api branchée sur getTempsParcours.xml.
+     */
+    private OpenDataApi apiParcours;
+
+    /**
+     * Api branchée sur getInfoTraficTANPrevisionnel.xml.
+     */
+    private OpenDataApi apiInfosTrafics;
+
+    /**
+     * Création des apis.
+     */
+    @Setup
+    public void setUp() {
+        OpenDataApiConnectee.initialiserInjection();
+        apiParkings = new OpenDataApiConnectee(new FileConnecteur("/getDisponibiliteParkingsPublics.xml"),
+                modeParsing);
+        apiFluidite = new OpenDataApiConnectee(new FileConnecteur("/getFluiditeAxesRoutiers.xml"), modeParsing);
+        apiParcours = new OpenDataApiConnectee(new FileConnecteur("/getTempsParcours.xml"), modeParsing);
+        apiInfosTrafics = new OpenDataApiConnectee(new FileConnecteur("/getInfoTraficTANPrevisionnel.xml"),
+                modeParsing);
+    }
+
+    /**
+     * @return les parkings.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<Parking> getParkings() throws ApiReseauException {
+        return apiParkings.getParkings();
+    }
+
+    /**
+     * @return les tronçons.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<SegmentFluency> getCityCenterSegmentsFluencies() throws ApiReseauException {
+        return apiFluidite.getCityCenterSegmentsFluencies();
+    }
+
+    /**
+     * @return les temps de parcours.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<Itineraire> getTempsParcours() throws ApiReseauException {
+        return apiParcours.getTempsParcours();
+    }
+
+    /**
+     * @return les infos trafics.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Benchmark
+    public List<InfoTrafic> getInfosTrafics() throws ApiReseauException {
+        return apiInfosTrafics.getInfosTrafics();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import fr.ybo.opendata.nantes.OpenDataApi;
+import fr.ybo.opendata.nantes.sax.ModeParsing;
+import fr.ybo.opendata.nantes.util.Connecteur;
+import fr.ybo.opendata.nantes.util.EquipementManager;
+
+/**
+ * {@link OpenDataApi} branchée sur un connecteur choisi par le benchmark.
+ */
+public class OpenDataApiConnectee extends OpenDataApi {
+
+    /**
+     * Constructeur.
+     *
+     * @param connecteur  connecteur à utiliser.
+     * @param modeParsing mode de parsing.
+     */
+    public OpenDataApiConnectee(Connecteur connecteur, ModeParsing modeParsing) {
+        super("benchmark");
+        setConnecteur(connecteur);
+        setModeParsing(modeParsing);
+    }
+
+    /**
+     * Initialise l'injection de {@link EquipementManager}, comme dans les tests.
+     */
+    public static void initialiserInjection() {
+        Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                requestStaticInjection(EquipementManager.class);
+            }
+        });
+    }
+}
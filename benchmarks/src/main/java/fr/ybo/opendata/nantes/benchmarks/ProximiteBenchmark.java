@@ -0,0 +1,90 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.benchmarks;
+
+import fr.ybo.opendata.nantes.modele.Categorie;
+import fr.ybo.opendata.nantes.util.EquipementManager;
+import fr.ybo.opendata.nantes.util.IndexEquipements;
+import fr.ybo.opendata.nantes.util.ResultatSpatial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherches de proximité dans l'index spatial des équipements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProximiteBenchmark {
+
+    /**
+     * Latitude recherchée (centre de Nantes).
+     */
+    private static final double LATITUDE = 47.2133;
+
+    /**
+     * Longitude recherchée.
+     */
+    private static final double LONGITUDE = -1.5577;
+
+    /**
+     * Index des équipements.
+     */
+    private IndexEquipements index;
+
+    /**
+     * Chargement des équipements.
+     */
+    @Setup
+    public void setUp() {
+        index = new EquipementManager().getIndexEquipements();
+    }
+
+    /**
+     * @return les 5 équipements les plus proches.
+     */
+    @Benchmark
+    public ResultatSpatial plusProches() {
+        return index.plusProches(LATITUDE, LONGITUDE, 5, null, null, null);
+    }
+
+    /**
+     * @return les 5 parkings en enclos les plus proches.
+     */
+    @Benchmark
+    public ResultatSpatial plusProchesParCategorie() {
+        return index.plusProches(LATITUDE, LONGITUDE, 5, null, Categorie.PARKING_ENCLOS, null);
+    }
+
+    /**
+     * @return les équipements à moins de 500 m.
+     */
+    @Benchmark
+    public ResultatSpatial dansRayon() {
+        return index.dansRayon(LATITUDE, LONGITUDE, 500, null, null, null);
+    }
+}
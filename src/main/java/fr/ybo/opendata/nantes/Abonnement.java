@@ -0,0 +1,187 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Abonnement d'un écouteur aux changements d'un flux (voir
+ * {@link OpenDataApi#abonner(Flux, EcouteurChangements, long, java.util.concurrent.TimeUnit)}).
+ * <p/>
+ * Les changements sont déposés dans une file bornée puis livrés à l'écouteur sur un executor à part : un écouteur lent
+ * ne bloque jamais le thread d'appel à l'api. Si la file est pleine, les changements les plus anciens sont perdus.
+ *
+ * @param <T> type des objets du flux.
+ */
+public final class Abonnement<T> implements Runnable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Abonnement.class.getSimpleName());
+
+    /**
+     * Flux.
+     */
+    private final Flux<T> flux;
+
+    /**
+     * Ecouteur.
+     */
+    private final EcouteurChangements<T> ecouteur;
+
+    /**
+     * Gestionnaire des abonnements (pour l'annulation).
+     */
+    private final Abonnements abonnements;
+
+    /**
+     * Executor de livraison.
+     */
+    private final Executor livraison;
+
+    /**
+     * Changements en attente de livraison, un élément par appel.
+     */
+    private final BlockingQueue<List<Changement<T>>> file;
+
+    /**
+     * Vrai si une livraison est planifiée ou en cours.
+     */
+    private final AtomicBoolean enLivraison = new AtomicBoolean();
+
+    /**
+     * Nombre de listes de changements perdues (file pleine).
+     */
+    private final AtomicLong nbPerdus = new AtomicLong();
+
+    /**
+     * Faux une fois l'abonnement annulé.
+     */
+    private volatile boolean actif = true;
+
+    /**
+     * Constructeur.
+     *
+     * @param flux        {@link Abonnement#flux}.
+     * @param ecouteur    {@link Abonnement#ecouteur}.
+     * @param abonnements {@link Abonnement#abonnements}.
+     * @param livraison   {@link Abonnement#livraison}.
+     * @param tailleFile  taille maximum de la file.
+     */
+    Abonnement(Flux<T> flux, EcouteurChangements<T> ecouteur, Abonnements abonnements, Executor livraison,
+               int tailleFile) {
+        this.flux = flux;
+        this.ecouteur = ecouteur;
+        this.abonnements = abonnements;
+        this.livraison = livraison;
+        file = new ArrayBlockingQueue<List<Changement<T>>>(tailleFile);
+    }
+
+    /**
+     * Dépose des changements dans la file, sans jamais bloquer, et planifie leur livraison.
+     *
+     * @param changements changements.
+     */
+    void publier(List<Changement<T>> changements) {
+        if (!actif) {
+            return;
+        }
+        while (!file.offer(changements)) {
+            if (file.poll() != null) {
+                nbPerdus.incrementAndGet();
+            }
+        }
+        planifier();
+    }
+
+    /**
+     * Planifie une livraison si aucune n'est en cours.
+     */
+    private void planifier() {
+        if (enLivraison.compareAndSet(false, true)) {
+            try {
+                livraison.execute(this);
+            } catch (RejectedExecutionException exception) {
+                enLivraison.set(false);
+                LOGGER.warning("Livraison des changements de " + flux + " refusée : " + exception);
+            }
+        }
+    }
+
+    /**
+     * Livre les changements en attente à l'écouteur.
+     */
+    @Override
+    public void run() {
+        try {
+            List<Changement<T>> changements = file.poll();
+            while (changements != null && actif) {
+                try {
+                    ecouteur.changements(changements);
+                } catch (RuntimeException exception) {
+                    LOGGER.log(Level.WARNING, "Erreur de l'écouteur des changements de " + flux, exception);
+                }
+                changements = file.poll();
+            }
+        } finally {
+            enLivraison.set(false);
+        }
+        // Des changements ont pu arriver entre le dernier poll et la fin de la livraison.
+        if (actif && !file.isEmpty()) {
+            planifier();
+        }
+    }
+
+    /**
+     * Annule l'abonnement : l'écouteur n'est plus appelé (une livraison en cours se termine), et le flux n'est plus
+     * appelé s'il n'a plus d'abonné.
+     */
+    public void annuler() {
+        if (actif) {
+            actif = false;
+            file.clear();
+            abonnements.retirer(this);
+        }
+    }
+
+    /**
+     * @return vrai tant que l'abonnement n'est pas annulé.
+     */
+    public boolean isActif() {
+        return actif;
+    }
+
+    /**
+     * @return {@link Abonnement#nbPerdus}.
+     */
+    public long getNbPerdus() {
+        return nbPerdus.get();
+    }
+
+    /**
+     * @return {@link Abonnement#flux}.
+     */
+    public Flux<T> getFlux() {
+        return flux;
+    }
+}
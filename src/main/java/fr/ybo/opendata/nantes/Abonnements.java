@@ -0,0 +1,262 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Abonnements aux changements des flux d'une {@link OpenDataApi}.
+ * <p/>
+ * Les abonnements à un même flux avec le même intervalle partagent un seul appel périodique, planifié sur un
+ * executor commun. Le planificateur ne fait que lancer les appels sur l'executor des appels : un flux lent ne
+ * retarde pas les autres abonnements. Chaque appel est comparé au précédent ({@link DiffFlux}) et seuls les
+ * changements sont publiés dans la file de chaque abonnement.
+ */
+public class Abonnements {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(Abonnements.class.getSimpleName());
+
+    /**
+     * Taille par défaut de la file de chaque abonnement (en nombre d'appels).
+     */
+    public static final int TAILLE_FILE_DEFAUT = 16;
+
+    /**
+     * Api appelée.
+     */
+    private final OpenDataApi api;
+
+    /**
+     * Executor planifiant les appels périodiques.
+     */
+    private final ScheduledExecutorService planificateur;
+
+    /**
+     * Executor des appels des flux et de la livraison des changements aux écouteurs.
+     */
+    private final Executor executor;
+
+    /**
+     * Taille de la file de chaque abonnement.
+     */
+    private volatile int tailleFile = TAILLE_FILE_DEFAUT;
+
+    /**
+     * Appels périodiques en cours, par flux et intervalle.
+     */
+    private final Map<String, Sondage<?>> sondages = new HashMap<String, Sondage<?>>();
+
+    /**
+     * Constructeur.
+     *
+     * @param api           {@link Abonnements#api}.
+     * @param planificateur {@link Abonnements#planificateur}.
+     * @param executor      {@link Abonnements#executor}.
+     */
+    public Abonnements(OpenDataApi api, ScheduledExecutorService planificateur, Executor executor) {
+        this.api = api;
+        this.planificateur = planificateur;
+        this.executor = executor;
+    }
+
+    /**
+     * @param tailleFile {@link Abonnements#tailleFile} (pour les prochains abonnements).
+     */
+    public void setTailleFile(int tailleFile) {
+        if (tailleFile < 1) {
+            throw new IllegalArgumentException("Taille de file invalide : " + tailleFile);
+        }
+        this.tailleFile = tailleFile;
+    }
+
+    /**
+     * Abonne un écouteur aux changements d'un flux. Le nouvel abonné reçoit d'abord le dernier résultat sous forme
+     * d'ajouts (dès le premier appel si le flux n'est pas encore appelé), puis uniquement les changements.
+     *
+     * @param <T>        type des objets du flux.
+     * @param flux       flux.
+     * @param ecouteur   écouteur.
+     * @param intervalle intervalle entre deux appels.
+     * @param unite      unité de l'intervalle.
+     * @return l'abonnement.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Abonnement<T> abonner(Flux<T> flux, EcouteurChangements<T> ecouteur, long intervalle,
+                                                  TimeUnit unite) {
+        long intervalleMs = unite.toMillis(intervalle);
+        if (intervalleMs <= 0) {
+            throw new IllegalArgumentException("Intervalle invalide : " + intervalle + ' ' + unite);
+        }
+        String cle = flux.getCommande() + '@' + intervalleMs;
+        Sondage<T> sondage = (Sondage<T>) sondages.get(cle);
+        if (sondage == null) {
+            sondage = new Sondage<T>(cle, flux);
+            sondages.put(cle, sondage);
+            sondage.tache = planificateur.scheduleWithFixedDelay(sondage, 0, intervalleMs, TimeUnit.MILLISECONDS);
+        }
+        Abonnement<T> abonnement = new Abonnement<T>(flux, ecouteur, this, executor, tailleFile);
+        sondage.ajouter(abonnement);
+        return abonnement;
+    }
+
+    /**
+     * Retire un abonnement, et arrête l'appel périodique du flux s'il n'a plus d'abonné.
+     *
+     * @param abonnement abonnement annulé.
+     */
+    synchronized void retirer(Abonnement<?> abonnement) {
+        for (Sondage<?> sondage : sondages.values()) {
+            if (sondage.abonnes.remove(abonnement)) {
+                if (sondage.abonnes.isEmpty()) {
+                    sondage.tache.cancel(false);
+                    sondages.remove(sondage.cle);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return nombre d'appels périodiques en cours.
+     */
+    public synchronized int getNbSondages() {
+        return sondages.size();
+    }
+
+    /**
+     * Appel périodique d'un flux.
+     *
+     * @param <T> type des objets du flux.
+     */
+    private final class Sondage<T> implements Runnable {
+        /**
+         * Clé dans {@link Abonnements#sondages}.
+         */
+        private final String cle;
+        /**
+         * Flux.
+         */
+        private final Flux<T> flux;
+        /**
+         * Calcul des changements (protégé par le verrou du sondage).
+         */
+        private final DiffFlux<T> diff;
+        /**
+         * Abonnés.
+         */
+        private final List<Abonnement<T>> abonnes = new CopyOnWriteArrayList<Abonnement<T>>();
+        /**
+         * Vrai après le premier appel réussi (protégé par le verrou du sondage).
+         */
+        private boolean initialise;
+        /**
+         * Tâche planifiée.
+         */
+        private ScheduledFuture<?> tache;
+        /**
+         * Vrai pendant un appel du flux : un appel trop long n'est pas doublé par le suivant.
+         */
+        private final AtomicBoolean enCours = new AtomicBoolean();
+
+        /**
+         * Constructeur.
+         *
+         * @param cle  {@link Sondage#cle}.
+         * @param flux {@link Sondage#flux}.
+         */
+        private Sondage(String cle, Flux<T> flux) {
+            this.cle = cle;
+            this.flux = flux;
+            diff = new DiffFlux<T>(flux);
+        }
+
+        /**
+         * Ajoute un abonné, en lui publiant le dernier résultat connu.
+         *
+         * @param abonnement abonné.
+         */
+        private synchronized void ajouter(Abonnement<T> abonnement) {
+            if (initialise) {
+                List<Changement<T>> etat = diff.etat();
+                if (!etat.isEmpty()) {
+                    abonnement.publier(etat);
+                }
+            }
+            abonnes.add(abonnement);
+        }
+
+        /**
+         * Lance un appel du flux sur {@link Abonnements#executor}, sauf si le précédent n'est pas terminé. Aucune
+         * erreur n'est propagée : elle arrêterait les appels périodiques.
+         */
+        @Override
+        public void run() {
+            if (!enCours.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            appeler();
+                        } finally {
+                            enCours.set(false);
+                        }
+                    }
+                });
+            } catch (Throwable exception) {
+                enCours.set(false);
+                LOGGER.log(Level.SEVERE, "Impossible de lancer l'appel de " + flux, exception);
+            }
+        }
+
+        /**
+         * Appelle le flux et publie les changements aux abonnés. Les erreurs sont seulement tracées.
+         */
+        private void appeler() {
+            try {
+                List<T> objets = flux.appeler(api);
+                synchronized (this) {
+                    initialise = true;
+                    List<Changement<T>> changements = diff.comparer(objets);
+                    if (!changements.isEmpty()) {
+                        for (Abonnement<T> abonnement : abonnes) {
+                            abonnement.publier(changements);
+                        }
+                    }
+                }
+            } catch (ApiReseauException exception) {
+                LOGGER.warning("Echec de l'appel de " + flux + " : " + exception);
+            } catch (Throwable exception) {
+                LOGGER.log(Level.SEVERE, "Erreur lors de l'appel de " + flux, exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+/**
+ * Changement d'un objet d'un flux entre deux appels successifs (voir
+ * {@link OpenDataApi#abonner(Flux, EcouteurChangements, long, java.util.concurrent.TimeUnit)}).
+ *
+ * @param <T> type des objets du flux.
+ */
+public final class Changement<T> {
+
+    /**
+     * Nature du changement.
+     */
+    public static enum Nature {
+        /**
+         * Nouvel objet.
+         */
+        AJOUT,
+        /**
+         * Objet disparu.
+         */
+        SUPPRESSION,
+        /**
+         * Objet modifié.
+         */
+        MODIFICATION
+    }
+
+    /**
+     * Nature du changement.
+     */
+    private final Nature nature;
+
+    /**
+     * Objet du résultat précédent (null pour un ajout).
+     */
+    private final T ancien;
+
+    /**
+     * Objet du nouveau résultat (null pour une suppression).
+     */
+    private final T nouveau;
+
+    /**
+     * Constructeur.
+     *
+     * @param nature  {@link Changement#nature}.
+     * @param ancien  {@link Changement#ancien}.
+     * @param nouveau {@link Changement#nouveau}.
+     */
+    Changement(Nature nature, T ancien, T nouveau) {
+        this.nature = nature;
+        this.ancien = ancien;
+        this.nouveau = nouveau;
+    }
+
+    /**
+     * @return {@link Changement#nature}.
+     */
+    public Nature getNature() {
+        return nature;
+    }
+
+    /**
+     * @return {@link Changement#ancien}.
+     */
+    public T getAncien() {
+        return ancien;
+    }
+
+    /**
+     * @return {@link Changement#nouveau}.
+     */
+    public T getNouveau() {
+        return nouveau;
+    }
+
+    @Override
+    public String toString() {
+        return "Changement[" + nature + ", " + ancien + " -> " + nouveau + ']';
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calcul des changements entre deux résultats successifs d'un flux, selon les règles du flux
+ * ({@link Flux#cle(Object)} et {@link Flux#modifie(Object, Object)}). Non thread-safe.
+ * <p/>
+ * Quand rien n'a changé (le cas le plus fréquent), la comparaison ne crée ni liste ni table : les objets arrivent
+ * en général dans le même ordre et sont comparés position par position au résultat retenu, avec
+ * {@link Flux#memeCle(Object, Object)} qui ne crée pas non plus d'objet pour les clés entières. Sinon (ordre
+ * changé, clé en double, ajout ou suppression), les objets sont rapprochés par clé ; seul le premier objet d'une clé
+ * en double est pris en compte. Les objets retenus ne doivent plus être modifiés par l'appelant.
+ *
+ * @param <T> type des objets du flux.
+ */
+final class DiffFlux<T> {
+
+    /**
+     * Flux.
+     */
+    private final Flux<T> flux;
+
+    /**
+     * Objets du dernier résultat ayant donné un changement, dans l'ordre du flux (une seule fois par clé).
+     */
+    private List<T> precedents = Collections.emptyList();
+
+    /**
+     * Objets du dernier résultat ayant donné un changement, par clé.
+     */
+    private Map<Object, T> parCle = Collections.emptyMap();
+
+    /**
+     * Constructeur.
+     *
+     * @param flux {@link DiffFlux#flux}.
+     */
+    DiffFlux(Flux<T> flux) {
+        this.flux = flux;
+    }
+
+    /**
+     * Compare un résultat au précédent, puis le retient s'il a changé.
+     *
+     * @param objets nouveau résultat.
+     * @return les changements, dans l'ordre du nouveau résultat puis les suppressions (liste vide non modifiable si
+     *         rien n'a changé).
+     */
+    List<Changement<T>> comparer(List<T> objets) {
+        if (inchange(objets)) {
+            return Collections.emptyList();
+        }
+        List<T> nouveaux = new ArrayList<T>(objets.size());
+        Map<Object, T> nouveauxParCle = new HashMap<Object, T>(2 * objets.size());
+        List<Changement<T>> changements = new ArrayList<Changement<T>>();
+        for (T objet : objets) {
+            Object cle = flux.cle(objet);
+            if (nouveauxParCle.containsKey(cle)) {
+                continue;
+            }
+            nouveauxParCle.put(cle, objet);
+            nouveaux.add(objet);
+            T ancien = parCle.get(cle);
+            if (ancien == null) {
+                changements.add(new Changement<T>(Changement.Nature.AJOUT, null, objet));
+            } else if (flux.modifie(ancien, objet)) {
+                changements.add(new Changement<T>(Changement.Nature.MODIFICATION, ancien, objet));
+            }
+        }
+        for (T precedent : precedents) {
+            if (!nouveauxParCle.containsKey(flux.cle(precedent))) {
+                changements.add(new Changement<T>(Changement.Nature.SUPPRESSION, precedent, null));
+            }
+        }
+        // Retenu même sans changement : le prochain appel dans le nouvel ordre reste sur le chemin rapide.
+        precedents = nouveaux;
+        parCle = nouveauxParCle;
+        if (changements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(changements);
+    }
+
+    /**
+     * @return le dernier résultat retenu, dans l'ordre du flux (liste non modifiable).
+     */
+    List<T> getPrecedents() {
+        return Collections.unmodifiableList(precedents);
+    }
+
+    /**
+     * @return le dernier résultat retenu, sous forme d'ajouts (pour un nouvel abonné).
+     */
+    List<Changement<T>> etat() {
+        List<Changement<T>> changements = new ArrayList<Changement<T>>(precedents.size());
+        for (T objet : precedents) {
+            changements.add(new Changement<T>(Changement.Nature.AJOUT, null, objet));
+        }
+        return changements;
+    }
+
+    /**
+     * Vérifie, sans créer de collection, que le résultat contient les mêmes clés dans le même ordre et qu'aucun objet
+     * n'est modifié.
+     *
+     * @param objets nouveau résultat.
+     * @return vrai si rien n'a changé.
+     */
+    private boolean inchange(List<T> objets) {
+        int taille = objets.size();
+        if (taille != precedents.size()) {
+            return false;
+        }
+        for (int position = 0; position < taille; position++) {
+            T objet = objets.get(position);
+            T ancien = precedents.get(position);
+            if (!flux.memeCle(ancien, objet) || flux.modifie(ancien, objet)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
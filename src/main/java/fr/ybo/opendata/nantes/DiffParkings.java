@@ -0,0 +1,56 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.modele.Parking;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Calcul des changements entre deux résultats successifs de {@link OpenDataApi#getParkings()}.
+ * <p/>
+ * Les parkings sont rapprochés par identifiant et comparés selon la règle de {@link Flux#PARKINGS} (statut ou
+ * places disponibles modifiés) : ce sont les mêmes changements que ceux publiés aux abonnés du flux (voir
+ * {@link OpenDataApi#abonner(Flux, EcouteurChangements, long, java.util.concurrent.TimeUnit)}). Quand rien n'a
+ * changé (le cas le plus fréquent), le résultat est {@link Collections#emptyList()}.
+ * <p/>
+ * Les parkings comparés sont retenus tels quels : il faut passer des résultats successifs de
+ * {@link OpenDataApi#getParkings()} et ne plus les modifier.
+ */
+public class DiffParkings {
+
+    /**
+     * Calcul des changements (protégé par le verrou de l'objet).
+     */
+    private final DiffFlux<Parking> diff = new DiffFlux<Parking>(Flux.PARKINGS);
+
+    /**
+     * Compare les parkings à l'appel précédent, puis les retient pour le prochain appel.
+     *
+     * @param parkings résultat de {@link OpenDataApi#getParkings()}.
+     * @return les changements, dans l'ordre des parkings puis les suppressions (liste vide non modifiable si rien
+     *         n'a changé).
+     */
+    public synchronized List<Changement<Parking>> comparer(List<Parking> parkings) {
+        return diff.comparer(parkings);
+    }
+
+    /**
+     * @return les derniers parkings retenus (liste non modifiable, vide au départ).
+     */
+    public synchronized List<Parking> getPrecedents() {
+        return diff.getPrecedents();
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import java.util.List;
+
+/**
+ * Ecouteur des changements d'un flux (voir
+ * {@link OpenDataApi#abonner(Flux, EcouteurChangements, long, java.util.concurrent.TimeUnit)}).
+ *
+ * @param <T> type des objets du flux.
+ */
+public interface EcouteurChangements<T> {
+
+    /**
+     * Appelée avec les changements d'un appel, dans l'ordre des appels et jamais en parallèle pour un même
+     * abonnement.
+     *
+     * @param changements changements (jamais vide).
+     */
+    void changements(List<Changement<T>> changements);
+}
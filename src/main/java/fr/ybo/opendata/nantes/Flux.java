@@ -0,0 +1,220 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.InfoTrafic;
+import fr.ybo.opendata.nantes.modele.Itineraire;
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.SegmentFluency;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flux de l'api OpenData, typé par les objets qu'il renvoie.
+ *
+ * @param <T> type des objets du flux.
+ */
+public abstract class Flux<T> {
+
+    /**
+     * Disponibilité des parkings publics.
+     */
+    public static final Flux<Parking> PARKINGS = new Flux<Parking>(OpenDataApi.CMD_PARKINGS) {
+        @Override
+        public List<Parking> appeler(OpenDataApi api) throws ApiReseauException {
+            return api.getParkings();
+        }
+
+        @Override
+        Object cle(Parking parking) {
+            return parking.getIdentifiant();
+        }
+
+        @Override
+        boolean modifie(Parking ancien, Parking nouveau) {
+            return ancien.getStatut() != nouveau.getStatut() || ancien.getDisponibles() != nouveau.getDisponibles();
+        }
+    };
+
+    /**
+     * Fluidité des axes routiers du centre ville.
+     */
+    public static final Flux<SegmentFluency> FLUIDITE = new Flux<SegmentFluency>(OpenDataApi.CMD_SEGMENT_FLUENCY) {
+        @Override
+        public List<SegmentFluency> appeler(OpenDataApi api) throws ApiReseauException {
+            return api.getCityCenterSegmentsFluencies();
+        }
+
+        @Override
+        Object cle(SegmentFluency segment) {
+            return segment.getId();
+        }
+
+        @Override
+        boolean memeCle(SegmentFluency segment1, SegmentFluency segment2) {
+            return segment1.getId() == segment2.getId();
+        }
+
+        @Override
+        boolean modifie(SegmentFluency ancien, SegmentFluency nouveau) {
+            return ancien.getColorId() != nouveau.getColorId();
+        }
+    };
+
+    /**
+     * Temps de parcours des itinéraires.
+     */
+    public static final Flux<Itineraire> TEMPS_PARCOURS = new Flux<Itineraire>(OpenDataApi.CMD_PARCOURS) {
+        @Override
+        public List<Itineraire> appeler(OpenDataApi api) throws ApiReseauException {
+            return api.getTempsParcours();
+        }
+
+        @Override
+        Object cle(Itineraire itineraire) {
+            return itineraire.getIdentifiant();
+        }
+
+        @Override
+        boolean modifie(Itineraire ancien, Itineraire nouveau) {
+            return ancien.getTemps() != nouveau.getTemps() || ancien.isValide() != nouveau.isValide();
+        }
+    };
+
+    /**
+     * Info trafic prévisionnel.
+     */
+    public static final Flux<InfoTrafic> INFOS_TRAFICS = new Flux<InfoTrafic>(OpenDataApi.CMD_INFOS_TRAFICS) {
+        @Override
+        public List<InfoTrafic> appeler(OpenDataApi api) throws ApiReseauException {
+            return api.getInfosTrafics();
+        }
+
+        @Override
+        Object cle(InfoTrafic infoTrafic) {
+            return infoTrafic.getCode();
+        }
+
+        @Override
+        boolean modifie(InfoTrafic ancien, InfoTrafic nouveau) {
+            return ancien.isTerminee() != nouveau.isTerminee();
+        }
+    };
+
+    /**
+     * Info trafic temps réel.
+     */
+    public static final Flux<InfoTrafic> INFOS_TRAFICS_TPS_REEL =
+            new Flux<InfoTrafic>(OpenDataApi.CMD_INFOS_TRAFICS_TPS_REEL) {
+                @Override
+                public List<InfoTrafic> appeler(OpenDataApi api) throws ApiReseauException {
+                    return api.getInfosTraficsTpsReel();
+                }
+
+                @Override
+                Object cle(InfoTrafic infoTrafic) {
+                    return infoTrafic.getCode();
+                }
+
+                @Override
+                boolean modifie(InfoTrafic ancien, InfoTrafic nouveau) {
+                    return ancien.isTerminee() != nouveau.isTerminee();
+                }
+            };
+
+    /**
+     * Tous les flux.
+     */
+    private static final List<Flux<?>> TOUS = Collections.unmodifiableList(Arrays.<Flux<?>>asList(PARKINGS, FLUIDITE,
+            TEMPS_PARCOURS, INFOS_TRAFICS, INFOS_TRAFICS_TPS_REEL));
+
+    /**
+     * Commande de l'api.
+     */
+    private final String commande;
+
+    /**
+     * Constructeur.
+     *
+     * @param commande {@link Flux#commande}.
+     */
+    private Flux(String commande) {
+        this.commande = commande;
+    }
+
+    /**
+     * Appelle l'api pour ce flux.
+     *
+     * @param api api.
+     * @return les objets du flux.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public abstract List<T> appeler(OpenDataApi api) throws ApiReseauException;
+
+    /**
+     * Clé d'un objet du flux, pour rapprocher deux résultats successifs (voir
+     * {@link OpenDataApi#abonner(Flux, EcouteurChangements, long, java.util.concurrent.TimeUnit)}).
+     *
+     * @param objet objet du flux.
+     * @return la clé de l'objet.
+     */
+    abstract Object cle(T objet);
+
+    /**
+     * Indique si deux objets du flux ont la même clé. Les flux dont la clé est un entier redéfinissent cette méthode
+     * pour comparer les clés sans les convertir en objets.
+     *
+     * @param objet1 premier objet.
+     * @param objet2 second objet.
+     * @return vrai si les clés sont égales (ou toutes deux null).
+     */
+    boolean memeCle(T objet1, T objet2) {
+        Object cle1 = cle(objet1);
+        Object cle2 = cle(objet2);
+        return cle1 == null ? cle2 == null : cle1.equals(cle2);
+    }
+
+    /**
+     * Indique si un objet a changé entre deux résultats successifs. Seuls les changements utiles sont retenus :
+     * statut et places disponibles pour un parking, couleur pour un tronçon, temps et validité pour un itinéraire,
+     * fin pour une info trafic.
+     *
+     * @param ancien  objet du résultat précédent.
+     * @param nouveau objet de même clé du nouveau résultat.
+     * @return vrai si l'objet a changé.
+     */
+    abstract boolean modifie(T ancien, T nouveau);
+
+    /**
+     * @return {@link Flux#commande}.
+     */
+    public String getCommande() {
+        return commande;
+    }
+
+    /**
+     * @return tous les flux.
+     */
+    public static List<Flux<?>> values() {
+        return TOUS;
+    }
+
+    @Override
+    public String toString() {
+        return commande;
+    }
+}
@@ -0,0 +1,466 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.modele.Parking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Historique des places disponibles de chaque parking.
+ * <p/>
+ * Les derniers échantillons de chaque parking sont conservés dans des tableaux circulaires de types primitifs (date en
+ * secondes depuis l'epoch, places disponibles, places totales) : la mémoire occupée par parking est fixe, quelle que
+ * soit la durée de fonctionnement. Les échantillons d'un parking sont rangés par date croissante ; un échantillon qui
+ * n'est pas plus récent que le dernier enregistré (même horodatage relu par un nouvel appel) est ignoré.
+ */
+public class HistoriqueParkings {
+
+    /**
+     * Nombre de millisecondes par seconde.
+     */
+    private static final long MS_PAR_SECONDE = 1000L;
+
+    /**
+     * Nombre d'échantillons conservés par parking.
+     */
+    private final int capacite;
+
+    /**
+     * Historique de chaque parking, par identifiant.
+     */
+    private final ConcurrentMap<String, Tampon> tampons = new ConcurrentHashMap<String, Tampon>();
+
+    /**
+     * Constructeur.
+     *
+     * @param capacite {@link HistoriqueParkings#capacite}.
+     */
+    public HistoriqueParkings(int capacite) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacite);
+        }
+        this.capacite = capacite;
+    }
+
+    /**
+     * Enregistre l'état des parkings (résultat de {@link OpenDataApi#getParkings()}).
+     *
+     * @param parkings parkings.
+     * @return nombre d'échantillons enregistrés.
+     */
+    public int enregistrer(Collection<Parking> parkings) {
+        int nbEnregistres = 0;
+        for (Parking parking : parkings) {
+            if (enregistrer(parking)) {
+                nbEnregistres++;
+            }
+        }
+        return nbEnregistres;
+    }
+
+    /**
+     * Enregistre l'état d'un parking, à la date de sa dernière mise à jour.
+     * Un parking sans date de mise à jour (horodatage illisible) est ignoré : la date courante, en avance sur
+     * l'horodatage du flux, bloquerait les échantillons suivants jusqu'à ce que le flux la rattrape.
+     *
+     * @param parking parking.
+     * @return vrai si l'échantillon a été enregistré, faux s'il n'est pas plus récent que le dernier ou si le parking
+     *         n'a pas d'identifiant ou pas de date de mise à jour.
+     */
+    public boolean enregistrer(Parking parking) {
+        if (parking.getIdentifiant() == null || parking.getLastUpdate() == null) {
+            return false;
+        }
+        return enregistrer(parking.getIdentifiant(), parking.getLastUpdate().getTime() / MS_PAR_SECONDE,
+                parking.getDisponibles(), parking.getPlacesTotales());
+    }
+
+    /**
+     * Enregistre un échantillon.
+     *
+     * @param identifiant   identifiant du parking.
+     * @param date          date (secondes depuis l'epoch).
+     * @param disponibles   places disponibles.
+     * @param placesTotales places totales.
+     * @return vrai si l'échantillon a été enregistré, faux s'il n'est pas plus récent que le dernier.
+     */
+    public boolean enregistrer(String identifiant, long date, int disponibles, int placesTotales) {
+        Tampon tampon = tampons.get(identifiant);
+        if (tampon == null) {
+            tampon = new Tampon(capacite);
+            Tampon existant = tampons.putIfAbsent(identifiant, tampon);
+            if (existant != null) {
+                tampon = existant;
+            }
+        }
+        return tampon.ajouter(date, disponibles, placesTotales);
+    }
+
+    /**
+     * @return identifiants des parkings ayant un historique.
+     */
+    public Set<String> getIdentifiants() {
+        return Collections.unmodifiableSet(tampons.keySet());
+    }
+
+    /**
+     * @param identifiant identifiant du parking.
+     * @return nombre d'échantillons conservés pour le parking.
+     */
+    public int getNbEchantillons(String identifiant) {
+        Tampon tampon = tampons.get(identifiant);
+        return tampon == null ? 0 : tampon.getTaille();
+    }
+
+    /**
+     * Echantillons d'un parking sur une période.
+     *
+     * @param identifiant identifiant du parking.
+     * @param debut       début de la période (secondes depuis l'epoch, inclus).
+     * @param fin         fin de la période (secondes depuis l'epoch, exclu).
+     * @return les échantillons, par date croissante.
+     */
+    public Serie getSerie(String identifiant, long debut, long fin) {
+        Tampon tampon = tampons.get(identifiant);
+        if (tampon == null) {
+            return new Serie(new long[0], new int[0], new int[0]);
+        }
+        return tampon.extraire(debut, fin);
+    }
+
+    /**
+     * Agrège les places disponibles d'un parking par tranches de durée fixe.
+     *
+     * @param identifiant identifiant du parking.
+     * @param debut       début de la période (secondes depuis l'epoch, inclus).
+     * @param fin         fin de la période (secondes depuis l'epoch, exclu).
+     * @param largeur     largeur d'une tranche (secondes).
+     * @return les tranches contenant au moins un échantillon, par date croissante.
+     */
+    public List<Agregat> agreger(String identifiant, long debut, long fin, long largeur) {
+        if (largeur < 1) {
+            throw new IllegalArgumentException("Largeur invalide : " + largeur);
+        }
+        Tampon tampon = tampons.get(identifiant);
+        if (tampon == null) {
+            return Collections.emptyList();
+        }
+        return tampon.agreger(debut, fin, largeur);
+    }
+
+    /**
+     * Echantillons d'un parking (tableaux de même longueur, par date croissante).
+     */
+    public static final class Serie {
+        /**
+         * Dates (secondes depuis l'epoch).
+         */
+        private final long[] dates;
+        /**
+         * Places disponibles.
+         */
+        private final int[] disponibles;
+        /**
+         * Places totales.
+         */
+        private final int[] placesTotales;
+
+        /**
+         * Constructeur.
+         *
+         * @param dates         {@link Serie#dates}.
+         * @param disponibles   {@link Serie#disponibles}.
+         * @param placesTotales {@link Serie#placesTotales}.
+         */
+        private Serie(long[] dates, int[] disponibles, int[] placesTotales) {
+            this.dates = dates;
+            this.disponibles = disponibles;
+            this.placesTotales = placesTotales;
+        }
+
+        /**
+         * @return nombre d'échantillons.
+         */
+        public int getTaille() {
+            return dates.length;
+        }
+
+        /**
+         * @param index index de l'échantillon.
+         * @return date de l'échantillon (secondes depuis l'epoch).
+         */
+        public long getDate(int index) {
+            return dates[index];
+        }
+
+        /**
+         * @param index index de l'échantillon.
+         * @return places disponibles.
+         */
+        public int getDisponibles(int index) {
+            return disponibles[index];
+        }
+
+        /**
+         * @param index index de l'échantillon.
+         * @return places totales.
+         */
+        public int getPlacesTotales(int index) {
+            return placesTotales[index];
+        }
+    }
+
+    /**
+     * Agrégat des places disponibles sur une tranche de temps.
+     */
+    public static final class Agregat {
+        /**
+         * Début de la tranche (secondes depuis l'epoch).
+         */
+        private final long debut;
+        /**
+         * Nombre d'échantillons.
+         */
+        private final int nbEchantillons;
+        /**
+         * Minimum des places disponibles.
+         */
+        private final int min;
+        /**
+         * Maximum des places disponibles.
+         */
+        private final int max;
+        /**
+         * Moyenne des places disponibles.
+         */
+        private final double moyenne;
+
+        /**
+         * Constructeur.
+         *
+         * @param debut          {@link Agregat#debut}.
+         * @param nbEchantillons {@link Agregat#nbEchantillons}.
+         * @param min            {@link Agregat#min}.
+         * @param max            {@link Agregat#max}.
+         * @param moyenne        {@link Agregat#moyenne}.
+         */
+        private Agregat(long debut, int nbEchantillons, int min, int max, double moyenne) {
+            this.debut = debut;
+            this.nbEchantillons = nbEchantillons;
+            this.min = min;
+            this.max = max;
+            this.moyenne = moyenne;
+        }
+
+        /**
+         * @return {@link Agregat#debut}.
+         */
+        public long getDebut() {
+            return debut;
+        }
+
+        /**
+         * @return {@link Agregat#nbEchantillons}.
+         */
+        public int getNbEchantillons() {
+            return nbEchantillons;
+        }
+
+        /**
+         * @return {@link Agregat#min}.
+         */
+        public int getMin() {
+            return min;
+        }
+
+        /**
+         * @return {@link Agregat#max}.
+         */
+        public int getMax() {
+            return max;
+        }
+
+        /**
+         * @return {@link Agregat#moyenne}.
+         */
+        public double getMoyenne() {
+            return moyenne;
+        }
+
+        @Override
+        public String toString() {
+            return "Agregat[" + debut + ", " + nbEchantillons + " échantillons, min=" + min + ", max=" + max
+                    + ", moyenne=" + moyenne + ']';
+        }
+    }
+
+    /**
+     * Tableau circulaire des échantillons d'un parking.
+     */
+    private static final class Tampon {
+        /**
+         * Dates (secondes depuis l'epoch).
+         */
+        private final long[] dates;
+        /**
+         * Places disponibles.
+         */
+        private final int[] disponibles;
+        /**
+         * Places totales.
+         */
+        private final int[] placesTotales;
+        /**
+         * Index du plus ancien échantillon.
+         */
+        private int premier;
+        /**
+         * Nombre d'échantillons.
+         */
+        private int taille;
+
+        /**
+         * @param capacite nombre d'échantillons conservés.
+         */
+        private Tampon(int capacite) {
+            dates = new long[capacite];
+            disponibles = new int[capacite];
+            placesTotales = new int[capacite];
+        }
+
+        /**
+         * @param rang rang de l'échantillon (0 pour le plus ancien).
+         * @return index de l'échantillon dans les tableaux.
+         */
+        private int index(int rang) {
+            int index = premier + rang;
+            return index < dates.length ? index : index - dates.length;
+        }
+
+        /**
+         * @param date         date (secondes depuis l'epoch).
+         * @param disponible   places disponibles.
+         * @param placesTotale places totales.
+         * @return vrai si l'échantillon a été ajouté.
+         */
+        private synchronized boolean ajouter(long date, int disponible, int placesTotale) {
+            if (taille > 0 && date <= dates[index(taille - 1)]) {
+                return false;
+            }
+            int index;
+            if (taille == dates.length) {
+                index = premier;
+                premier = index(1);
+            } else {
+                index = index(taille);
+                taille++;
+            }
+            dates[index] = date;
+            disponibles[index] = disponible;
+            placesTotales[index] = placesTotale;
+            return true;
+        }
+
+        /**
+         * @return {@link Tampon#taille}.
+         */
+        private synchronized int getTaille() {
+            return taille;
+        }
+
+        /**
+         * @param date date (secondes depuis l'epoch).
+         * @return rang du premier échantillon de date supérieure ou égale (taille si aucun).
+         */
+        private int rang(long date) {
+            int bas = 0;
+            int haut = taille;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (dates[index(milieu)] < date) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+
+        /**
+         * @param debut début de la période (inclus).
+         * @param fin   fin de la période (exclu).
+         * @return les échantillons de la période.
+         */
+        private synchronized Serie extraire(long debut, long fin) {
+            int rangDebut = rang(debut);
+            int nb = Math.max(0, rang(fin) - rangDebut);
+            long[] datesSerie = new long[nb];
+            int[] disponiblesSerie = new int[nb];
+            int[] placesSerie = new int[nb];
+            for (int rang = 0; rang < nb; rang++) {
+                int index = index(rangDebut + rang);
+                datesSerie[rang] = dates[index];
+                disponiblesSerie[rang] = disponibles[index];
+                placesSerie[rang] = placesTotales[index];
+            }
+            return new Serie(datesSerie, disponiblesSerie, placesSerie);
+        }
+
+        /**
+         * @param debut   début de la période (inclus).
+         * @param fin     fin de la période (exclu).
+         * @param largeur largeur d'une tranche.
+         * @return les tranches non vides.
+         */
+        private synchronized List<Agregat> agreger(long debut, long fin, long largeur) {
+            List<Agregat> agregats = new ArrayList<Agregat>();
+            int rangFin = rang(fin);
+            long tranche = 0;
+            int nb = 0;
+            int min = 0;
+            int max = 0;
+            long somme = 0;
+            for (int rang = rang(debut); rang < rangFin; rang++) {
+                int index = index(rang);
+                long trancheEchantillon = (dates[index] - debut) / largeur;
+                int disponible = disponibles[index];
+                if (nb > 0 && trancheEchantillon != tranche) {
+                    agregats.add(new Agregat(debut + tranche * largeur, nb, min, max, (double) somme / nb));
+                    nb = 0;
+                }
+                if (nb == 0) {
+                    tranche = trancheEchantillon;
+                    min = disponible;
+                    max = disponible;
+                    somme = 0;
+                }
+                min = Math.min(min, disponible);
+                max = Math.max(max, disponible);
+                somme += disponible;
+                nb++;
+            }
+            if (nb > 0) {
+                agregats.add(new Agregat(debut + tranche * largeur, nb, min, max, (double) somme / nb));
+            }
+            return agregats;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résultat d'un appel groupé à plusieurs flux (voir {@link OpenDataApi#getInstantane(Flux[])}).
+ * Chaque flux a soit un résultat, soit une erreur : l'échec d'un flux n'empêche pas d'avoir les autres.
+ */
+public class Instantane {
+
+    /**
+     * Résultats des flux en succès.
+     */
+    private final Map<Flux<?>, List<?>> resultats;
+
+    /**
+     * Erreurs des flux en échec.
+     */
+    private final Map<Flux<?>, Throwable> erreurs;
+
+    /**
+     * Date de fin des appels.
+     */
+    private final Date date;
+
+    /**
+     * Constructeur.
+     *
+     * @param resultats {@link Instantane#resultats}.
+     * @param erreurs   {@link Instantane#erreurs}.
+     */
+    Instantane(Map<Flux<?>, List<?>> resultats, Map<Flux<?>, Throwable> erreurs) {
+        this.resultats = Collections.unmodifiableMap(resultats);
+        this.erreurs = Collections.unmodifiableMap(erreurs);
+        date = new Date();
+    }
+
+    /**
+     * @param <T>  type des objets du flux.
+     * @param flux flux.
+     * @return résultat du flux, ou null si le flux est en échec ou n'a pas été demandé.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Flux<T> flux) {
+        return (List<T>) resultats.get(flux);
+    }
+
+    /**
+     * @param flux flux.
+     * @return erreur du flux, ou null si le flux est en succès ou n'a pas été demandé.
+     */
+    public Throwable getErreur(Flux<?> flux) {
+        return erreurs.get(flux);
+    }
+
+    /**
+     * @param flux flux.
+     * @return vrai si le flux a été demandé et est en succès.
+     */
+    public boolean isSucces(Flux<?> flux) {
+        return resultats.containsKey(flux);
+    }
+
+    /**
+     * @return vrai si tous les flux demandés sont en succès.
+     */
+    public boolean isComplet() {
+        return erreurs.isEmpty();
+    }
+
+    /**
+     * @return {@link Instantane#erreurs}.
+     */
+    public Map<Flux<?>, Throwable> getErreurs() {
+        return erreurs;
+    }
+
+    /**
+     * @return {@link Instantane#date}.
+     */
+    public Date getDate() {
+        return new Date(date.getTime());
+    }
+}
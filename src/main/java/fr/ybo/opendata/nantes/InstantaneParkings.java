@@ -0,0 +1,247 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.modele.EtatParking;
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.StatutParking;
+import fr.ybo.opendata.nantes.util.ArbreKd;
+import fr.ybo.opendata.nantes.util.IndexEntier;
+import fr.ybo.opendata.nantes.util.ResultatSpatial;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Etat immuable et versionné de tous les parkings, publié par {@link ParkingsCourants}.
+ * <p/>
+ * Les parkings sont copiés dans un tableau d'{@link EtatParking}, indexé par identifiant et par idObj : les
+ * recherches se font en temps constant, sans verrou ni copie. Un {@link ArbreKd} des parkings est construit avec
+ * l'instantané pour les recherches de proximité.
+ */
+public final class InstantaneParkings {
+
+    /**
+     * Instantané vide (version 0).
+     */
+    public static final InstantaneParkings VIDE = new InstantaneParkings(0, new EtatParking[0], 0);
+
+    /**
+     * Version (incrémentée à chaque publication).
+     */
+    private final long version;
+
+    /**
+     * Date de publication (ms).
+     */
+    private final long date;
+
+    /**
+     * Date de mise à jour la plus récente des parkings (ms), {@link Long#MIN_VALUE} si aucune n'est connue.
+     */
+    private final long miseAJour;
+
+    /**
+     * Etats des parkings, dans l'ordre de l'api.
+     */
+    private final EtatParking[] etats;
+
+    /**
+     * Position de chaque parking par identifiant.
+     */
+    private final Map<String, Integer> parIdentifiant;
+
+    /**
+     * Position de chaque parking par idObj.
+     */
+    private final IndexEntier parIdObj;
+
+    /**
+     * Index spatial des parkings ayant des coordonnées.
+     */
+    private final ArbreKd arbre;
+
+    /**
+     * Vue en liste (non modifiable) des états.
+     */
+    private final List<EtatParking> liste = new AbstractList<EtatParking>() {
+        @Override
+        public EtatParking get(int index) {
+            return etats[index];
+        }
+
+        @Override
+        public int size() {
+            return etats.length;
+        }
+    };
+
+    /**
+     * Construit un instantané à partir du résultat de {@link OpenDataApi#getParkings()}.
+     *
+     * @param version  version.
+     * @param parkings parkings (copiés).
+     */
+    InstantaneParkings(long version, Collection<Parking> parkings) {
+        this(version, copier(parkings), System.currentTimeMillis());
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param version {@link InstantaneParkings#version}.
+     * @param etats   {@link InstantaneParkings#etats}.
+     * @param date    {@link InstantaneParkings#date}.
+     */
+    private InstantaneParkings(long version, EtatParking[] etats, long date) {
+        this.version = version;
+        this.etats = etats;
+        this.date = date;
+        long plusRecente = Long.MIN_VALUE;
+        for (EtatParking etat : etats) {
+            Date lastUpdate = etat.getLastUpdate();
+            if (lastUpdate != null && lastUpdate.getTime() > plusRecente) {
+                plusRecente = lastUpdate.getTime();
+            }
+        }
+        miseAJour = plusRecente;
+        parIdentifiant = new HashMap<String, Integer>(2 * etats.length);
+        parIdObj = new IndexEntier(etats.length);
+        // En cas de doublon, le premier parking de l'api est conservé.
+        for (int position = etats.length - 1; position >= 0; position--) {
+            parIdentifiant.put(etats[position].getIdentifiant(), position);
+            parIdObj.put(etats[position].getIdObj(), position);
+        }
+        double[] latitudes = new double[etats.length];
+        double[] longitudes = new double[etats.length];
+        for (int position = 0; position < etats.length; position++) {
+            latitudes[position] = etats[position].getLatitude() == null ? Double.NaN : etats[position].getLatitude();
+            longitudes[position] =
+                    etats[position].getLongitude() == null ? Double.NaN : etats[position].getLongitude();
+        }
+        arbre = new ArbreKd(latitudes, longitudes);
+    }
+
+    /**
+     * @param parkings parkings.
+     * @return copies immuables des parkings.
+     */
+    private static EtatParking[] copier(Collection<Parking> parkings) {
+        EtatParking[] etats = new EtatParking[parkings.size()];
+        int position = 0;
+        for (Parking parking : parkings) {
+            etats[position++] = new EtatParking(parking);
+        }
+        return etats;
+    }
+
+    /**
+     * @return {@link InstantaneParkings#version}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return {@link InstantaneParkings#date}.
+     */
+    public Date getDate() {
+        return new Date(date);
+    }
+
+    /**
+     * @return {@link InstantaneParkings#miseAJour}.
+     */
+    long getMiseAJour() {
+        return miseAJour;
+    }
+
+    /**
+     * @return nombre de parkings.
+     */
+    public int getTaille() {
+        return etats.length;
+    }
+
+    /**
+     * @param position position (de 0 à {@link InstantaneParkings#getTaille()} exclu).
+     * @return le parking à cette position.
+     */
+    public EtatParking get(int position) {
+        return etats[position];
+    }
+
+    /**
+     * @param identifiant {@link Parking#getIdentifiant()}.
+     * @return le parking, ou null s'il n'existe pas.
+     */
+    public EtatParking getParIdentifiant(String identifiant) {
+        Integer position = parIdentifiant.get(identifiant);
+        return position == null ? null : etats[position];
+    }
+
+    /**
+     * @param idObj {@link Parking#getIdObj()}.
+     * @return le parking, ou null s'il n'existe pas.
+     */
+    public EtatParking getParIdObj(int idObj) {
+        int position = parIdObj.get(idObj);
+        return position == IndexEntier.ABSENT ? null : etats[position];
+    }
+
+    /**
+     * @return les parkings (vue non modifiable, sans copie).
+     */
+    public List<EtatParking> getParkings() {
+        return liste;
+    }
+
+    /**
+     * Recherche des parkings disponibles les plus proches d'un point. Un parking est disponible s'il est ouvert à
+     * tous ({@link StatutParking#OUVERT}), s'il n'affiche pas 'COMPLET' (plus de places disponibles que son seuil)
+     * et s'il a au moins le nombre de places demandé.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param nombre    nombre maximum de parkings.
+     * @param placesMin nombre minimum de places disponibles.
+     * @return les parkings trouvés, par distance croissante.
+     */
+    public List<ParkingProche> plusProchesDisponibles(double latitude, double longitude, int nombre,
+                                                      final int placesMin) {
+        ResultatSpatial resultat = arbre.plusProches(latitude, longitude, nombre, new ArbreKd.Filtre() {
+            @Override
+            public boolean accepte(int position) {
+                EtatParking etat = etats[position];
+                return etat.getStatut() == StatutParking.OUVERT && etat.getDisponibles() > etat.getSeuilComplet()
+                        && etat.getDisponibles() >= placesMin;
+            }
+        });
+        List<ParkingProche> parkings = new ArrayList<ParkingProche>(resultat.getTaille());
+        for (int rang = 0; rang < resultat.getTaille(); rang++) {
+            parkings.add(new ParkingProche(etats[resultat.getPosition(rang)], resultat.getDistance(rang)));
+        }
+        return parkings;
+    }
+
+    @Override
+    public String toString() {
+        return "InstantaneParkings[version=" + version + ", " + etats.length + " parkings]";
+    }
+}
@@ -13,21 +13,36 @@
  */
 package fr.ybo.opendata.nantes;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
-import org.xml.sax.SAXException;
 
 import fr.ybo.opendata.nantes.exceptions.ApiException;
 import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
@@ -39,9 +54,16 @@ import fr.ybo.opendata.nantes.modele.SegmentFluency;
 import fr.ybo.opendata.nantes.modele.StatutParking;
 import fr.ybo.opendata.nantes.sax.ApiHandler;
 import fr.ybo.opendata.nantes.sax.GenericHandler;
+import fr.ybo.opendata.nantes.sax.ModeParsing;
+import fr.ybo.opendata.nantes.sax.MoteurXml;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
+import fr.ybo.opendata.nantes.sax.TableIntern;
 import fr.ybo.opendata.nantes.util.Connecteur;
+import fr.ybo.opendata.nantes.util.ConnecteurConditionnel;
 import fr.ybo.opendata.nantes.util.EquipementManager;
 import fr.ybo.opendata.nantes.util.HttpConnecteur;
+import fr.ybo.opendata.nantes.util.ReponseConditionnelle;
+import fr.ybo.opendata.nantes.util.ResultatAsync;
 
 /**
  * Classe d'accés aux API OpenData de nantes.
@@ -75,12 +97,288 @@ public class OpenDataApi {
 	private EquipementManager equipementManager;
 
     /**
+     * Permet de changer de connecteur, par exemple pour un {@link fr.ybo.opendata.nantes.util.HttpPoolConnecteur}.
+     *
      * @param connecteur {@link OpenDataApi#connecteur}.
      */
-    protected void setConnecteur(Connecteur connecteur) {
+    public void setConnecteur(Connecteur connecteur) {
         this.connecteur = connecteur;
     }
 
+    /**
+     * Moteur de parsing des réponses (SAX par défaut).
+     */
+    private MoteurXml moteurXml = ModeParsing.SAX.getMoteur();
+
+    /**
+     * Permet de choisir le moteur de parsing des réponses.
+     *
+     * @param modeParsing mode de parsing.
+     */
+    public void setModeParsing(ModeParsing modeParsing) {
+        moteurXml = modeParsing.getMoteur();
+    }
+
+    /**
+     * Permet de fournir un moteur de parsing spécifique,
+     * par exemple {@code new MoteurSax(new PoolParseurSax(32))} pour agrandir le pool de parsers.
+     *
+     * @param moteurXml {@link OpenDataApi#moteurXml}.
+     */
+    public void setMoteurXml(MoteurXml moteurXml) {
+        this.moteurXml = moteurXml;
+    }
+
+    /**
+     * @return {@link OpenDataApi#moteurXml}.
+     */
+    public MoteurXml getMoteurXml() {
+        return moteurXml;
+    }
+
+    /**
+     * Table de chaines canoniques partagée par les appels (null par défaut : pas de déduplication).
+     */
+    private TableIntern tableIntern;
+
+    /**
+     * Permet de dédupliquer les chaines qui se répètent d'un appel à l'autre (noms, identifiants...),
+     * par exemple {@code setTableIntern(new TableIntern(1024))}.
+     *
+     * @param tableIntern {@link OpenDataApi#tableIntern} (null pour désactiver la déduplication).
+     */
+    public void setTableIntern(TableIntern tableIntern) {
+        this.tableIntern = tableIntern;
+    }
+
+    /**
+     * @return {@link OpenDataApi#tableIntern}.
+     */
+    public TableIntern getTableIntern() {
+        return tableIntern;
+    }
+
+    /**
+     * Taille du tampon de lecture des réponses.
+     */
+    private static final int TAILLE_TAMPON = 8192;
+
+    /**
+     * Vrai si les appels sont conditionnels (désactivé par défaut).
+     */
+    private volatile boolean appelsConditionnels;
+
+    /**
+     * Dernier résultat de chaque url, pour les appels conditionnels.
+     */
+    private final ConcurrentMap<String, DernierAppel> derniersAppels = new ConcurrentHashMap<String, DernierAppel>();
+
+    /**
+     * Nombre d'appels conditionnels dont le contenu n'avait pas changé.
+     */
+    private final AtomicLong nbNonModifies = new AtomicLong();
+
+    /**
+     * Active les appels conditionnels : le dernier résultat de chaque url est conservé, et renvoyé sans parsing si
+     * le contenu n'a pas changé. Le changement est détecté par le serveur (ETag, Last-Modified) si le connecteur est
+     * un {@link ConnecteurConditionnel}, sinon par une empreinte SHA-1 du contenu.
+     * Le résultat renvoyé est alors une copie des objets lus lors de l'appel précédent : comme pour un appel
+     * complet, chaque appel renvoie de nouveaux objets, que l'appelant peut modifier.
+     * Les méthodes stream* ne conservent rien et font toujours un appel complet.
+     *
+     * @param appelsConditionnels {@link OpenDataApi#appelsConditionnels}.
+     */
+    public void setAppelsConditionnels(boolean appelsConditionnels) {
+        this.appelsConditionnels = appelsConditionnels;
+        if (!appelsConditionnels) {
+            derniersAppels.clear();
+        }
+    }
+
+    /**
+     * @return {@link OpenDataApi#appelsConditionnels}.
+     */
+    public boolean isAppelsConditionnels() {
+        return appelsConditionnels;
+    }
+
+    /**
+     * @return {@link OpenDataApi#nbNonModifies}.
+     */
+    public long getNbNonModifies() {
+        return nbNonModifies.get();
+    }
+
+    /**
+     * Nombre de threads de l'executor par défaut des appels asynchrones (un par flux).
+     */
+    private static final int THREADS_ASYNC = 5;
+
+    /**
+     * Executor par défaut des appels asynchrones, partagé par toutes les instances (créé au premier appel).
+     */
+    private static ExecutorService executorDefaut;
+
+    /**
+     * Executor des appels asynchrones (null pour l'executor par défaut).
+     */
+    private volatile Executor executor;
+
+    /**
+     * Permet de choisir l'executor des appels asynchrones (méthodes *Async). Par défaut, les appels sont exécutés
+     * par un pool partagé de quelques threads démons. Pour garder des centaines d'appels en cours sans autant de
+     * threads système, on peut fournir un executor de threads virtuels quand la JVM en dispose
+     * ({@code Executors.newVirtualThreadPerTaskExecutor()}), le nombre de connexions simultanées restant limité
+     * par le connecteur (voir {@link fr.ybo.opendata.nantes.util.HttpPoolConnecteur}).
+     *
+     * @param executor {@link OpenDataApi#executor}.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Appelle plusieurs flux en parallèle, sur l'executor des appels asynchrones (voir
+     * {@link OpenDataApi#setExecutor(Executor)}), et attend la fin de tous les appels.
+     * L'échec d'un flux est conservé dans le résultat sans empêcher d'avoir les autres.
+     *
+     * @param flux flux à appeler (tous les flux si aucun n'est précisé).
+     * @return le résultat de chaque flux.
+     */
+    public Instantane getInstantane(Flux<?>... flux) {
+        List<Flux<?>> fluxAppeles = flux.length == 0 ? Flux.values() : Arrays.asList(flux);
+        Map<Flux<?>, ResultatAsync<List<?>>> appels = new LinkedHashMap<Flux<?>, ResultatAsync<List<?>>>();
+        for (final Flux<?> unFlux : fluxAppeles) {
+            if (!appels.containsKey(unFlux)) {
+                appels.put(unFlux, lancer(new Callable<List<?>>() {
+                    @Override
+                    public List<?> call() throws ApiReseauException {
+                        return unFlux.appeler(OpenDataApi.this);
+                    }
+                }));
+            }
+        }
+        Map<Flux<?>, List<?>> resultats = new LinkedHashMap<Flux<?>, List<?>>();
+        Map<Flux<?>, Throwable> erreurs = new LinkedHashMap<Flux<?>, Throwable>();
+        for (Map.Entry<Flux<?>, ResultatAsync<List<?>>> appel : appels.entrySet()) {
+            try {
+                resultats.put(appel.getKey(), appel.getValue().get());
+            } catch (ExecutionException exception) {
+                erreurs.put(appel.getKey(), exception.getCause());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                appel.getValue().cancel(true);
+                erreurs.put(appel.getKey(), exception);
+            }
+        }
+        return new Instantane(resultats, erreurs);
+    }
+
+    /**
+     * Lance un appel asynchrone.
+     *
+     * @param <T>   type du résultat.
+     * @param appel appel à exécuter.
+     * @return le résultat à venir.
+     */
+    private <T> ResultatAsync<T> lancer(Callable<T> appel) {
+        ResultatAsync<T> resultat = new ResultatAsync<T>(appel);
+        Executor executorAppel = executor;
+        if (executorAppel == null) {
+            executorAppel = getExecutorDefaut();
+        }
+        executorAppel.execute(resultat);
+        return resultat;
+    }
+
+    /**
+     * @return l'executor par défaut des appels asynchrones.
+     */
+    private static synchronized ExecutorService getExecutorDefaut() {
+        if (executorDefaut == null) {
+            executorDefaut = Executors.newFixedThreadPool(THREADS_ASYNC, new ThreadFactory() {
+                /**
+                 * Numéro du dernier thread créé.
+                 */
+                private final AtomicInteger numero = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "OpenDataApi-async-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executorDefaut;
+    }
+
+    /**
+     * Planificateur par défaut des appels périodiques des abonnements, partagé par toutes les instances. Il ne fait
+     * que lancer les appels sur l'executor des appels asynchrones, un seul thread suffit donc.
+     */
+    private static ScheduledExecutorService planificateurDefaut;
+
+    /**
+     * Abonnements aux changements des flux (créés au premier abonnement).
+     */
+    private Abonnements abonnements;
+
+    /**
+     * Abonne un écouteur aux changements d'un flux : les appels du flux sont planifiés sur un thread partagé, et
+     * l'écouteur n'est appelé qu'avec les changements (places disponibles ou statut d'un parking, couleur d'un
+     * tronçon, nouvelle info trafic ou info trafic terminée...). Les appels et la livraison des changements, au
+     * travers d'une file bornée par abonnement, ont lieu sur l'executor des appels asynchrones (voir
+     * {@link OpenDataApi#setExecutor(Executor)}).
+     *
+     * @param <T>        type des objets du flux.
+     * @param flux       flux.
+     * @param ecouteur   écouteur.
+     * @param intervalle intervalle entre deux appels.
+     * @param unite      unité de l'intervalle.
+     * @return l'abonnement, à annuler quand l'écouteur n'est plus utile.
+     */
+    public <T> Abonnement<T> abonner(Flux<T> flux, EcouteurChangements<T> ecouteur, long intervalle,
+                                     TimeUnit unite) {
+        return getAbonnements().abonner(flux, ecouteur, intervalle, unite);
+    }
+
+    /**
+     * @return {@link OpenDataApi#abonnements}.
+     */
+    public synchronized Abonnements getAbonnements() {
+        if (abonnements == null) {
+            abonnements = new Abonnements(this, getPlanificateurDefaut(), new Executor() {
+                @Override
+                public void execute(Runnable tache) {
+                    Executor executorAppel = executor;
+                    if (executorAppel == null) {
+                        executorAppel = getExecutorDefaut();
+                    }
+                    executorAppel.execute(tache);
+                }
+            });
+        }
+        return abonnements;
+    }
+
+    /**
+     * @return le planificateur par défaut des appels périodiques.
+     */
+    private static synchronized ScheduledExecutorService getPlanificateurDefaut() {
+        if (planificateurDefaut == null) {
+            planificateurDefaut = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "OpenDataApi-abonnements");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return planificateurDefaut;
+    }
+
     /**
      * Constructeur.
      *
@@ -101,7 +399,7 @@ public class OpenDataApi {
     /**
      * Commande pour récupérer la fluidité des axes routier
      */
-    private static final String CMD_SEGMENT_FLUENCY = "getFluiditeAxesRoutiers";
+    static final String CMD_SEGMENT_FLUENCY = "getFluiditeAxesRoutiers";
 
     /**
      * Cette commande permet de récupérer la fluidité des axes routiers du centre ville Nantais en temps réel.
@@ -114,10 +412,36 @@ public class OpenDataApi {
         return appelApi(getUrl(CMD_SEGMENT_FLUENCY), new GenericHandler<SegmentFluency>(SegmentFluency.class));
     }
 
+    /**
+     * Version streaming de {@link OpenDataApi#getCityCenterSegmentsFluencies()} : chaque tronçon est transmis au
+     * récepteur dès sa lecture.
+     *
+     * @param recepteur récepteur des tronçons.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public void streamCityCenterSegmentsFluencies(RecepteurObjet<SegmentFluency> recepteur)
+            throws ApiReseauException {
+        streamApi(getUrl(CMD_SEGMENT_FLUENCY), new GenericHandler<SegmentFluency>(SegmentFluency.class), recepteur);
+    }
+
+    /**
+     * Version asynchrone de {@link OpenDataApi#getCityCenterSegmentsFluencies()}.
+     *
+     * @return le résultat à venir (liste des tronçons).
+     */
+    public ResultatAsync<List<SegmentFluency>> getCityCenterSegmentsFluenciesAsync() {
+        return lancer(new Callable<List<SegmentFluency>>() {
+            @Override
+            public List<SegmentFluency> call() throws ApiReseauException {
+                return getCityCenterSegmentsFluencies();
+            }
+        });
+    }
+
     /**
      * Commande pour récupérer les parkings.
      */
-    private static final String CMD_PARKINGS = "getDisponibiliteParkingsPublics";
+    static final String CMD_PARKINGS = "getDisponibiliteParkingsPublics";
 
     /**
      * Cette commande permet de récupérer les informations concernant la disponibilité des parkings publics de
@@ -132,25 +456,63 @@ public class OpenDataApi {
         Iterator<Parking> iterator = parkings.iterator();
         Set<String> identifiants = new HashSet<String>();
         while (iterator.hasNext()) {
-            Parking parking = iterator.next();
-            if (parking.getStatut() == StatutParking.INVALIDE) {
+            if (!isParkingValide(iterator.next(), identifiants)) {
                 iterator.remove();
-            } else {
-                if (identifiants.contains(parking.getIdentifiant())) {
-                    iterator.remove();
-                } else {
-                    identifiants.add(parking.getIdentifiant());
-                }
             }
         }
         equipementManager.completeParkings(parkings);
         return parkings;
     }
 
+    /**
+     * Version streaming de {@link OpenDataApi#getParkings()} : chaque parking valide est complété puis transmis au
+     * récepteur dès sa lecture.
+     *
+     * @param recepteur récepteur des parkings.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public void streamParkings(final RecepteurObjet<Parking> recepteur) throws ApiReseauException {
+        final Set<String> identifiants = new HashSet<String>();
+        streamApi(getUrl(CMD_PARKINGS), new GenericHandler<Parking>(Parking.class), new RecepteurObjet<Parking>() {
+            @Override
+            public void recevoir(Parking parking) {
+                if (isParkingValide(parking, identifiants)) {
+                    equipementManager.completeParking(parking);
+                    recepteur.recevoir(parking);
+                }
+            }
+        });
+    }
+
+    /**
+     * Version asynchrone de {@link OpenDataApi#getParkings()}.
+     *
+     * @return le résultat à venir (liste des parkings).
+     */
+    public ResultatAsync<List<Parking>> getParkingsAsync() {
+        return lancer(new Callable<List<Parking>>() {
+            @Override
+            public List<Parking> call() throws ApiReseauException {
+                return getParkings();
+            }
+        });
+    }
+
+    /**
+     * Un parking est invalide si son statut est {@link StatutParking#INVALIDE} ou si son identifiant a déjà été vu.
+     *
+     * @param parking      parking à tester.
+     * @param identifiants identifiants déjà vus, complété par l'identifiant du parking s'il est valide.
+     * @return vrai si le parking est valide.
+     */
+    private static boolean isParkingValide(Parking parking, Set<String> identifiants) {
+        return parking.getStatut() != StatutParking.INVALIDE && identifiants.add(parking.getIdentifiant());
+    }
+
     /**
      * Commande pour récupérer les infoTrafics.
      */
-    private static final String CMD_INFOS_TRAFICS = "getInfoTraficTANPrevisionnel";
+    static final String CMD_INFOS_TRAFICS = "getInfoTraficTANPrevisionnel";
 
     /**
      * Cette commande permet de récupérer l'info trafic prévisionnel des bus et tramway de la SEMITAN.
@@ -162,10 +524,34 @@ public class OpenDataApi {
         return appelApi(getUrl(CMD_INFOS_TRAFICS), new GenericHandler<InfoTrafic>(InfoTrafic.class));
     }
 
+    /**
+     * Version streaming de {@link OpenDataApi#getInfosTrafics()}.
+     *
+     * @param recepteur récepteur des infos trafics.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public void streamInfosTrafics(RecepteurObjet<InfoTrafic> recepteur) throws ApiReseauException {
+        streamApi(getUrl(CMD_INFOS_TRAFICS), new GenericHandler<InfoTrafic>(InfoTrafic.class), recepteur);
+    }
+
+    /**
+     * Version asynchrone de {@link OpenDataApi#getInfosTrafics()}.
+     *
+     * @return le résultat à venir (liste des infos trafics).
+     */
+    public ResultatAsync<List<InfoTrafic>> getInfosTraficsAsync() {
+        return lancer(new Callable<List<InfoTrafic>>() {
+            @Override
+            public List<InfoTrafic> call() throws ApiReseauException {
+                return getInfosTrafics();
+            }
+        });
+    }
+
     /**
      * Commande pour récupérer les infoTrafics Temps Réel.
      */
-    private static final String CMD_INFOS_TRAFICS_TPS_REEL = "getInfoTraficTANTempsReel";
+    static final String CMD_INFOS_TRAFICS_TPS_REEL = "getInfoTraficTANTempsReel";
 
     /**
      * Cette commande permet de récupérer l'info trafic en temps réel des bus et tramway de la SEMITAN.
@@ -177,10 +563,34 @@ public class OpenDataApi {
         return appelApi(getUrl(CMD_INFOS_TRAFICS_TPS_REEL), new GenericHandler<InfoTrafic>(InfoTrafic.class));
     }
 
+    /**
+     * Version streaming de {@link OpenDataApi#getInfosTraficsTpsReel()}.
+     *
+     * @param recepteur récepteur des infos trafics.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public void streamInfosTraficsTpsReel(RecepteurObjet<InfoTrafic> recepteur) throws ApiReseauException {
+        streamApi(getUrl(CMD_INFOS_TRAFICS_TPS_REEL), new GenericHandler<InfoTrafic>(InfoTrafic.class), recepteur);
+    }
+
+    /**
+     * Version asynchrone de {@link OpenDataApi#getInfosTraficsTpsReel()}.
+     *
+     * @return le résultat à venir (liste des infos trafics).
+     */
+    public ResultatAsync<List<InfoTrafic>> getInfosTraficsTpsReelAsync() {
+        return lancer(new Callable<List<InfoTrafic>>() {
+            @Override
+            public List<InfoTrafic> call() throws ApiReseauException {
+                return getInfosTraficsTpsReel();
+            }
+        });
+    }
+
     /**
      * Commande pour récupérer les temps de itinéraires.
      */
-    private static final String CMD_PARCOURS = "getTempsParcours";
+    static final String CMD_PARCOURS = "getTempsParcours";
 
     /**
      * Indication des temps de parcours en minutes sur chaque itinéraire.
@@ -193,6 +603,33 @@ public class OpenDataApi {
     }
 
     /**
+     * Version streaming de {@link OpenDataApi#getTempsParcours()}.
+     *
+     * @param recepteur récepteur des itinéraires.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public void streamTempsParcours(RecepteurObjet<Itineraire> recepteur) throws ApiReseauException {
+        streamApi(getUrl(CMD_PARCOURS), new GenericHandler<Itineraire>(Itineraire.class), recepteur);
+    }
+
+    /**
+     * Version asynchrone de {@link OpenDataApi#getTempsParcours()}.
+     *
+     * @return le résultat à venir (liste des temps de parcours).
+     */
+    public ResultatAsync<List<Itineraire>> getTempsParcoursAsync() {
+        return lancer(new Callable<List<Itineraire>>() {
+            @Override
+            public List<Itineraire> call() throws ApiReseauException {
+                return getTempsParcours();
+            }
+        });
+    }
+
+    /**
+     * Appel à l'API. Si les appels sont conditionnels, le dernier résultat est renvoyé sans parsing quand le
+     * contenu n'a pas changé.
+     *
      * @param <T>     type d'objet OpenDataApi.
      * @param url     url.
      * @param handler handler.
@@ -200,28 +637,80 @@ public class OpenDataApi {
      * @throws ApiReseauException en cas d'erreur réseau.
      */
     private <T> List<T> appelApi(String url, ApiHandler<T> handler) throws ApiReseauException {
+        if (!appelsConditionnels) {
+            return parser(connecteur.openInputStream(url), handler);
+        }
+        DernierAppel dernierAppel = derniersAppels.get(url);
+        InputStream inputStream;
+        String etag = null;
+        String lastModified = null;
+        if (connecteur instanceof ConnecteurConditionnel) {
+            ReponseConditionnelle reponse = ((ConnecteurConditionnel) connecteur).openInputStream(url,
+                    dernierAppel == null ? null : dernierAppel.etag,
+                    dernierAppel == null ? null : dernierAppel.lastModified);
+            if (reponse.isNonModifiee()) {
+                if (dernierAppel == null) {
+                    throw new ApiReseauException("Réponse non modifiée sans appel précédent pour " + url);
+                }
+                nbNonModifies.incrementAndGet();
+                return dernierAppel.copie(handler);
+            }
+            inputStream = reponse.getFlux();
+            etag = reponse.getEtag();
+            lastModified = reponse.getLastModified();
+        } else {
+            inputStream = connecteur.openInputStream(url);
+        }
+        byte[] empreinte = null;
+        if (etag == null && lastModified == null) {
+            // Pas de validateur : le contenu est lu en entier pour comparer son empreinte avec la précédente.
+            byte[] contenu = lireContenu(inputStream);
+            empreinte = empreinte(contenu);
+            if (dernierAppel != null && Arrays.equals(empreinte, dernierAppel.empreinte)) {
+                nbNonModifies.incrementAndGet();
+                return dernierAppel.copie(handler);
+            }
+            inputStream = new ByteArrayInputStream(contenu);
+        }
+        List<T> data = parser(inputStream, handler);
+        derniersAppels.put(url, new DernierAppel(etag, lastModified, empreinte, copier(handler, data)));
+        return data;
+    }
+
+    /**
+     * @param <T>     type d'objet OpenDataApi.
+     * @param handler handler ayant lu les objets.
+     * @param objets  objets à copier.
+     * @return copies des objets.
+     */
+    private static <T> List<T> copier(ApiHandler<T> handler, List<T> objets) {
+        List<T> copies = new ArrayList<T>(objets.size());
+        for (T objet : objets) {
+            copies.add(handler.copier(objet));
+        }
+        return copies;
+    }
+
+    /**
+     * Parse la réponse puis ferme le flux.
+     *
+     * @param <T>         type d'objet OpenDataApi.
+     * @param inputStream réponse.
+     * @param handler     handler.
+     * @return liste d'objets OpenDataApi.
+     * @throws ApiReseauException en cas d'erreur réseau ou de status en erreur.
+     */
+    private <T> List<T> parser(InputStream inputStream, ApiHandler<T> handler) throws ApiReseauException {
         Answer<T> answer;
+        handler.setTableIntern(tableIntern);
         try {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-
-            InputStream inputStream = connecteur.openInputStream(url);
+            answer = moteurXml.parser(inputStream, handler);
+        } finally {
             try {
-                parser.parse(inputStream, handler);
-                answer = handler.getAnswer();
-            } finally {
-                try {
-                    inputStream.close();
-                } catch (Exception exception) {
-                    LOGGER.warning(exception.getMessage());
-                }
+                inputStream.close();
+            } catch (Exception exception) {
+                LOGGER.warning(exception.getMessage());
             }
-        } catch (IOException ioException) {
-            throw new ApiReseauException(ioException);
-        } catch (SAXException saxException) {
-            throw new ApiReseauException(saxException);
-        } catch (ParserConfigurationException exception) {
-            throw new ApiException("Erreur lors de l'appel à l'API OpenData", exception);
         }
         if (answer == null || answer.getStatus() == null || !"0".equals(answer.getStatus().getCode())) {
             throw new ApiReseauException();
@@ -229,6 +718,108 @@ public class OpenDataApi {
         return answer.getData();
     }
 
+    /**
+     * Appel à l'API en transmettant les objets au récepteur au fil du parsing.
+     * Les objets ne sont transmis que si le status de la réponse est correct.
+     *
+     * @param <T>       type d'objet OpenDataApi.
+     * @param url       url.
+     * @param handler   handler.
+     * @param recepteur récepteur des objets.
+     * @throws ApiReseauException en cas d'erreur réseau.
+     */
+    private <T> void streamApi(String url, ApiHandler<T> handler, RecepteurObjet<T> recepteur)
+            throws ApiReseauException {
+        handler.setRecepteur(recepteur);
+        parser(connecteur.openInputStream(url), handler);
+    }
+
+    /**
+     * Lit puis ferme un flux.
+     *
+     * @param inputStream flux.
+     * @return contenu du flux.
+     * @throws ApiReseauException problème de lecture.
+     */
+    private static byte[] lireContenu(InputStream inputStream) throws ApiReseauException {
+        try {
+            ByteArrayOutputStream contenu = new ByteArrayOutputStream(TAILLE_TAMPON);
+            byte[] tampon = new byte[TAILLE_TAMPON];
+            int lus;
+            while ((lus = inputStream.read(tampon)) != -1) {
+                contenu.write(tampon, 0, lus);
+            }
+            return contenu.toByteArray();
+        } catch (IOException exception) {
+            throw new ApiReseauException(exception);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (Exception exception) {
+                LOGGER.warning(exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param contenu contenu.
+     * @return empreinte SHA-1 du contenu.
+     */
+    private static byte[] empreinte(byte[] contenu) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(contenu);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new ApiException("SHA-1 non disponible", exception);
+        }
+    }
+
+    /**
+     * Dernier résultat d'une url, avec ce qui permet de savoir si le contenu a changé.
+     */
+    private static final class DernierAppel {
+        /**
+         * Entête ETag de la réponse.
+         */
+        private final String etag;
+        /**
+         * Entête Last-Modified de la réponse.
+         */
+        private final String lastModified;
+        /**
+         * Empreinte du contenu (null si la réponse avait des validateurs).
+         */
+        private final byte[] empreinte;
+        /**
+         * Copies des objets parsés, jamais transmises à l'appelant.
+         */
+        private final List<?> data;
+
+        /**
+         * Constructeur.
+         *
+         * @param etag         {@link DernierAppel#etag}.
+         * @param lastModified {@link DernierAppel#lastModified}.
+         * @param empreinte    {@link DernierAppel#empreinte}.
+         * @param data         {@link DernierAppel#data}.
+         */
+        private DernierAppel(String etag, String lastModified, byte[] empreinte, List<?> data) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.empreinte = empreinte;
+            this.data = data;
+        }
+
+        /**
+         * @param <T>     type d'objet OpenDataApi.
+         * @param handler handler ayant lu les objets.
+         * @return nouvelles copies des objets parsés.
+         */
+        @SuppressWarnings("unchecked")
+        private <T> List<T> copie(ApiHandler<T> handler) {
+            return copier(handler, (List<T>) data);
+        }
+    }
+
     /**
      * Permet de récupérer l'URL d'accés aux API OpenData en fonction de la
      * commande à exécuter.
@@ -0,0 +1,401 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des résultats d'une {@link OpenDataApi}, par flux.
+ * <p/>
+ * Chaque flux a sa durée de vie. Les appels simultanés à un flux absent ou expiré sont regroupés : un seul appel
+ * (réseau et parsing) est fait, et tous les appelants reçoivent son résultat. La taille du cache (nombre total
+ * d'objets conservés) est bornée : au delà, les flux les moins récemment utilisés sont retirés (le dernier flux
+ * chargé est toujours conservé).
+ * Chaque appel renvoie une nouvelle liste, contenant les objets partagés par le cache.
+ */
+public class OpenDataApiCache {
+
+    /**
+     * Durée de vie par défaut (ms).
+     */
+    public static final long DUREE_VIE_DEFAUT = 60000L;
+
+    /**
+     * Durée de vie par défaut de l'info trafic prévisionnel, qui change rarement (ms).
+     */
+    public static final long DUREE_VIE_INFOS_TRAFICS = 600000L;
+
+    /**
+     * Nombre maximum d'objets conservés par défaut.
+     */
+    public static final int TAILLE_MAX_DEFAUT = 100000;
+
+    /**
+     * Capacité initiale de la map des résultats.
+     */
+    private static final int CAPACITE_INITIALE = 16;
+
+    /**
+     * Facteur de charge de la map des résultats.
+     */
+    private static final float FACTEUR_CHARGE = 0.75f;
+
+    /**
+     * Api.
+     */
+    private final OpenDataApi api;
+
+    /**
+     * Nombre maximum d'objets conservés.
+     */
+    private final int tailleMax;
+
+    /**
+     * Durée de vie de chaque flux (ms).
+     */
+    private final ConcurrentMap<Flux<?>, Long> dureesVie = new ConcurrentHashMap<Flux<?>, Long>();
+
+    /**
+     * Résultats conservés, du moins récemment utilisé au plus récemment utilisé (accès synchronisé sur la map).
+     */
+    private final Map<Flux<?>, Entree> entrees = new LinkedHashMap<Flux<?>, Entree>(CAPACITE_INITIALE,
+            FACTEUR_CHARGE, true);
+
+    /**
+     * Nombre total d'objets conservés (accès synchronisé sur {@link OpenDataApiCache#entrees}).
+     */
+    private int taille;
+
+    /**
+     * Chargements en cours.
+     */
+    private final ConcurrentMap<Flux<?>, FutureTask<Entree>> chargements =
+            new ConcurrentHashMap<Flux<?>, FutureTask<Entree>>();
+
+    /**
+     * Nombre de résultats servis par le cache.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Nombre de résultats absents ou expirés.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Nombre d'appels à l'api.
+     */
+    private final AtomicLong appels = new AtomicLong();
+
+    /**
+     * Constructeur.
+     *
+     * @param api api.
+     */
+    public OpenDataApiCache(OpenDataApi api) {
+        this(api, TAILLE_MAX_DEFAUT);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param api       api.
+     * @param tailleMax nombre maximum d'objets conservés.
+     */
+    public OpenDataApiCache(OpenDataApi api, int tailleMax) {
+        if (tailleMax < 1) {
+            throw new IllegalArgumentException("Taille de cache invalide : " + tailleMax);
+        }
+        this.api = api;
+        this.tailleMax = tailleMax;
+        dureesVie.put(Flux.INFOS_TRAFICS, DUREE_VIE_INFOS_TRAFICS);
+    }
+
+    /**
+     * Change la durée de vie d'un flux (les résultats déjà conservés gardent leur date d'expiration).
+     *
+     * @param flux  flux.
+     * @param duree durée de vie.
+     * @param unite unité de la durée.
+     */
+    public void setDureeVie(Flux<?> flux, long duree, TimeUnit unite) {
+        dureesVie.put(flux, unite.toMillis(duree));
+    }
+
+    /**
+     * @param flux flux.
+     * @return durée de vie du flux (ms).
+     */
+    public long getDureeVie(Flux<?> flux) {
+        Long dureeVie = dureesVie.get(flux);
+        return dureeVie == null ? DUREE_VIE_DEFAUT : dureeVie;
+    }
+
+    /**
+     * Renvoie le résultat d'un flux, en appelant l'api s'il est absent ou expiré.
+     *
+     * @param <T>  type des objets du flux.
+     * @param flux flux.
+     * @return le résultat du flux.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public <T> List<T> get(Flux<T> flux) throws ApiReseauException {
+        Entree entree = lire(flux);
+        if (entree != null && !entree.isExpiree(maintenant())) {
+            hits.incrementAndGet();
+            return entree.copie();
+        }
+        misses.incrementAndGet();
+        return charger(flux, false).copie();
+    }
+
+    /**
+     * Appelle l'api pour un flux, même si son résultat n'est pas expiré.
+     *
+     * @param <T>  type des objets du flux.
+     * @param flux flux.
+     * @return le nouveau résultat du flux.
+     * @throws ApiReseauException problème réseaux.
+     */
+    public <T> List<T> rafraichir(Flux<T> flux) throws ApiReseauException {
+        return recharger(flux).copie();
+    }
+
+    /**
+     * Appelle l'api pour un flux, même si son résultat n'est pas expiré.
+     *
+     * @param flux flux.
+     * @return le nouveau résultat conservé.
+     * @throws ApiReseauException problème réseaux.
+     */
+    Entree recharger(Flux<?> flux) throws ApiReseauException {
+        return charger(flux, true);
+    }
+
+    /**
+     * Retire le résultat d'un flux.
+     *
+     * @param flux flux.
+     */
+    public void invalider(Flux<?> flux) {
+        synchronized (entrees) {
+            Entree entree = entrees.remove(flux);
+            if (entree != null) {
+                taille -= entree.data.size();
+            }
+        }
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void vider() {
+        synchronized (entrees) {
+            entrees.clear();
+            taille = 0;
+        }
+    }
+
+    /**
+     * @param flux flux.
+     * @return le résultat conservé (éventuellement expiré), ou null.
+     */
+    Entree lire(Flux<?> flux) {
+        synchronized (entrees) {
+            return entrees.get(flux);
+        }
+    }
+
+    /**
+     * Charge un flux : si un chargement est déjà en cours, son résultat est attendu.
+     *
+     * @param flux  flux.
+     * @param force vrai pour appeler l'api même si le résultat conservé n'est pas expiré.
+     * @return le résultat.
+     * @throws ApiReseauException problème réseaux.
+     */
+    private Entree charger(final Flux<?> flux, final boolean force) throws ApiReseauException {
+        FutureTask<Entree> chargement = new FutureTask<Entree>(new Callable<Entree>() {
+            @Override
+            public Entree call() throws ApiReseauException {
+                if (!force) {
+                    // Un chargement a pu se terminer entre la lecture du cache et ce chargement.
+                    Entree entree = lire(flux);
+                    if (entree != null && !entree.isExpiree(maintenant())) {
+                        return entree;
+                    }
+                }
+                return appeler(flux);
+            }
+        });
+        FutureTask<Entree> chargementEnCours = chargements.putIfAbsent(flux, chargement);
+        if (chargementEnCours == null) {
+            try {
+                chargement.run();
+            } finally {
+                chargements.remove(flux, chargement);
+            }
+            chargementEnCours = chargement;
+        }
+        try {
+            return chargementEnCours.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ApiReseauException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof ApiReseauException) {
+                throw (ApiReseauException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ApiException("Problème lors du chargement de " + flux, exception);
+        }
+    }
+
+    /**
+     * Appelle l'api et conserve le résultat.
+     *
+     * @param flux flux.
+     * @return le résultat.
+     * @throws ApiReseauException problème réseaux.
+     */
+    private Entree appeler(Flux<?> flux) throws ApiReseauException {
+        appels.incrementAndGet();
+        Entree entree = new Entree(new ArrayList<Object>(flux.appeler(api)), maintenant() + getDureeVie(flux));
+        synchronized (entrees) {
+            Entree ancienne = entrees.put(flux, entree);
+            taille += entree.data.size() - (ancienne == null ? 0 : ancienne.data.size());
+            Iterator<Map.Entry<Flux<?>, Entree>> iterator = entrees.entrySet().iterator();
+            while (taille > tailleMax && entrees.size() > 1) {
+                Entree retiree = iterator.next().getValue();
+                iterator.remove();
+                taille -= retiree.data.size();
+            }
+        }
+        return entree;
+    }
+
+    /**
+     * @return heure courante (ms), pour le calcul des expirations.
+     */
+    protected long maintenant() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * @return nombre d'objets conservés.
+     */
+    public int getTaille() {
+        synchronized (entrees) {
+            return taille;
+        }
+    }
+
+    /**
+     * @return {@link OpenDataApiCache#hits}.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return {@link OpenDataApiCache#misses}.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return {@link OpenDataApiCache#appels}.
+     */
+    public long getAppels() {
+        return appels.get();
+    }
+
+    /**
+     * @return {@link OpenDataApiCache#api}.
+     */
+    public OpenDataApi getApi() {
+        return api;
+    }
+
+    /**
+     * Résultat conservé d'un flux.
+     */
+    static final class Entree {
+        /**
+         * Objets du flux (non modifiable).
+         */
+        private final List<?> data;
+        /**
+         * Date d'expiration (ms, voir {@link OpenDataApiCache#maintenant()}).
+         */
+        private final long expiration;
+
+        /**
+         * Constructeur.
+         *
+         * @param data       {@link Entree#data}.
+         * @param expiration {@link Entree#expiration}.
+         */
+        private Entree(List<?> data, long expiration) {
+            this.data = Collections.unmodifiableList(data);
+            this.expiration = expiration;
+        }
+
+        /**
+         * @param maintenant heure courante (ms).
+         * @return vrai si le résultat est expiré.
+         */
+        boolean isExpiree(long maintenant) {
+            return maintenant - expiration >= 0;
+        }
+
+        /**
+         * @return {@link Entree#expiration}.
+         */
+        long getExpiration() {
+            return expiration;
+        }
+
+        /**
+         * @param <T> type des objets du flux.
+         * @return copie de la liste des objets.
+         */
+        @SuppressWarnings("unchecked")
+        <T> List<T> copie() {
+            return new ArrayList<T>((List<T>) data);
+        }
+    }
+}
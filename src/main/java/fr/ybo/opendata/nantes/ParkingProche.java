@@ -0,0 +1,63 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.modele.EtatParking;
+
+/**
+ * Parking trouvé par une recherche de proximité (voir
+ * {@link InstantaneParkings#plusProchesDisponibles(double, double, int, int)}).
+ */
+public final class ParkingProche {
+
+    /**
+     * Parking.
+     */
+    private final EtatParking parking;
+
+    /**
+     * Distance au point recherché (m).
+     */
+    private final double distance;
+
+    /**
+     * Constructeur.
+     *
+     * @param parking  {@link ParkingProche#parking}.
+     * @param distance {@link ParkingProche#distance}.
+     */
+    ParkingProche(EtatParking parking, double distance) {
+        this.parking = parking;
+        this.distance = distance;
+    }
+
+    /**
+     * @return {@link ParkingProche#parking}.
+     */
+    public EtatParking getParking() {
+        return parking;
+    }
+
+    /**
+     * @return {@link ParkingProche#distance}.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "ParkingProche[" + parking + ", " + Math.round(distance) + " m]";
+    }
+}
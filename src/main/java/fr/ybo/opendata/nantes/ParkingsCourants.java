@@ -0,0 +1,102 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.Parking;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Dernier état connu des parkings.
+ * <p/>
+ * Chaque mise à jour construit un nouvel {@link InstantaneParkings} immuable et le publie par un simple échange de
+ * référence : les lecteurs ne prennent aucun verrou et ne voient jamais un état partiellement construit.
+ * <p/>
+ * Quand plusieurs mises à jour sont publiées en même temps, les données les plus récentes l'emportent : un état
+ * dont la date de mise à jour la plus récente (lastUpdate) est antérieure à celle de l'instantané courant n'est
+ * pas publié. Si l'un des deux états n'a aucune date connue, le dernier publié l'emporte.
+ */
+public class ParkingsCourants {
+
+    /**
+     * Dernier instantané publié.
+     */
+    private final AtomicReference<InstantaneParkings> courant =
+            new AtomicReference<InstantaneParkings>(InstantaneParkings.VIDE);
+
+    /**
+     * @return le dernier instantané publié ({@link InstantaneParkings#VIDE} avant la première publication).
+     */
+    public InstantaneParkings getInstantane() {
+        return courant.get();
+    }
+
+    /**
+     * Publie un nouvel état des parkings, sauf s'il est plus ancien que l'instantané courant (voir la description
+     * de la classe).
+     *
+     * @param parkings parkings (copiés : ils peuvent être modifiés ensuite sans effet sur l'instantané).
+     * @return l'instantané publié, ou l'instantané courant s'il est plus récent.
+     */
+    public InstantaneParkings publier(Collection<Parking> parkings) {
+        while (true) {
+            InstantaneParkings precedent = courant.get();
+            InstantaneParkings instantane = new InstantaneParkings(precedent.getVersion() + 1, parkings);
+            if (plusAncien(instantane, precedent)) {
+                return precedent;
+            }
+            if (courant.compareAndSet(precedent, instantane)) {
+                return instantane;
+            }
+        }
+    }
+
+    /**
+     * @param instantane instantané à publier.
+     * @param courant    instantané courant.
+     * @return vrai si les deux instantanés ont une date de mise à jour et que celle du premier est antérieure.
+     */
+    private static boolean plusAncien(InstantaneParkings instantane, InstantaneParkings courant) {
+        return instantane.getMiseAJour() != Long.MIN_VALUE && courant.getMiseAJour() != Long.MIN_VALUE
+                && instantane.getMiseAJour() < courant.getMiseAJour();
+    }
+
+    /**
+     * Récupère les parkings et publie le résultat.
+     *
+     * @param api api à appeler.
+     * @return l'instantané publié, ou l'instantané courant s'il est plus récent.
+     * @throws ApiReseauException problème réseaux (le dernier instantané reste publié).
+     */
+    public InstantaneParkings rafraichir(OpenDataApi api) throws ApiReseauException {
+        return publier(api.getParkings());
+    }
+
+    /**
+     * Recherche des parkings disponibles les plus proches d'un point, dans le dernier instantané publié (voir
+     * {@link InstantaneParkings#plusProchesDisponibles(double, double, int, int)}). Aucun appel à l'api n'est fait.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param nombre    nombre maximum de parkings.
+     * @param placesMin nombre minimum de places disponibles.
+     * @return les parkings trouvés, par distance croissante.
+     */
+    public List<ParkingProche> plusProchesDisponibles(double latitude, double longitude, int nombre, int placesMin) {
+        return courant.get().plusProchesDisponibles(latitude, longitude, nombre, placesMin);
+    }
+}
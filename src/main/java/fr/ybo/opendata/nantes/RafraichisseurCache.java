@@ -0,0 +1,338 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rafraîchissement en tâche de fond des flux d'un {@link OpenDataApiCache}.
+ * <p/>
+ * Chaque flux enregistré est rechargé peu avant son expiration. Les lectures ne font donc jamais d'appel
+ * réseau (sauf la toute première, si le flux n'a pas encore été chargé) : elles renvoient le dernier résultat
+ * obtenu, même expiré si les derniers rafraîchissements ont échoué. Ce résultat est conservé par le
+ * rafraîchisseur : il reste disponible même si le cache l'a retiré pour respecter sa taille maximum. Après un
+ * échec ({@link ApiReseauException}, ou toute autre erreur), le flux est rechargé avec un délai croissant et
+ * aléatoire, pour ne pas surcharger le serveur.
+ */
+public class RafraichisseurCache {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RafraichisseurCache.class.getSimpleName());
+
+    /**
+     * Part de la durée de vie avant l'expiration à laquelle le flux est rechargé.
+     */
+    private static final int DIVISEUR_AVANCE = 10;
+
+    /**
+     * Délai minimum entre deux chargements d'un flux (ms).
+     */
+    private static final long DELAI_MIN = 100L;
+
+    /**
+     * Délai après le premier échec (ms).
+     */
+    public static final long DELAI_ECHEC_INITIAL = 1000L;
+
+    /**
+     * Délai maximum après des échecs successifs (ms).
+     */
+    public static final long DELAI_ECHEC_MAX = 300000L;
+
+    /**
+     * Cache rafraîchi.
+     */
+    private final OpenDataApiCache cache;
+
+    /**
+     * Executor des rafraîchissements.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Vrai si l'executor a été créé par le rafraîchisseur (il est alors arrêté avec lui).
+     */
+    private final boolean executorInterne;
+
+    /**
+     * Flux enregistrés.
+     */
+    private final ConcurrentMap<Flux<?>, EtatFlux> etats = new ConcurrentHashMap<Flux<?>, EtatFlux>();
+
+    /**
+     * Tirage du délai aléatoire après un échec.
+     */
+    private final Random random = new Random();
+
+    /**
+     * Nombre de rafraîchissements réussis.
+     */
+    private final AtomicLong nbRafraichissements = new AtomicLong();
+
+    /**
+     * Nombre de rafraîchissements en échec.
+     */
+    private final AtomicLong nbEchecs = new AtomicLong();
+
+    /**
+     * Constructeur, avec un thread démon dédié.
+     *
+     * @param cache cache à rafraîchir.
+     */
+    public RafraichisseurCache(OpenDataApiCache cache) {
+        this(cache, Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RafraichisseurCache");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param cache    cache à rafraîchir.
+     * @param executor executor des rafraîchissements (non arrêté par {@link RafraichisseurCache#arreter()}).
+     */
+    public RafraichisseurCache(OpenDataApiCache cache, ScheduledExecutorService executor) {
+        this(cache, executor, false);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param cache           cache à rafraîchir.
+     * @param executor        executor des rafraîchissements.
+     * @param executorInterne {@link RafraichisseurCache#executorInterne}.
+     */
+    private RafraichisseurCache(OpenDataApiCache cache, ScheduledExecutorService executor, boolean executorInterne) {
+        this.cache = cache;
+        this.executor = executor;
+        this.executorInterne = executorInterne;
+    }
+
+    /**
+     * Enregistre un flux : il est chargé tout de suite en tâche de fond, puis rafraîchi avant chaque expiration.
+     *
+     * @param flux flux.
+     */
+    public void enregistrer(Flux<?> flux) {
+        EtatFlux etat = new EtatFlux(flux);
+        if (etats.putIfAbsent(flux, etat) == null) {
+            etat.planifier(0);
+        }
+    }
+
+    /**
+     * Arrête le rafraîchissement d'un flux (son dernier résultat reste dans le cache).
+     *
+     * @param flux flux.
+     */
+    public void desenregistrer(Flux<?> flux) {
+        EtatFlux etat = etats.remove(flux);
+        if (etat != null) {
+            etat.annuler();
+        }
+    }
+
+    /**
+     * Arrête tous les rafraîchissements.
+     */
+    public void arreter() {
+        for (Flux<?> flux : etats.keySet()) {
+            desenregistrer(flux);
+        }
+        if (executorInterne) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Renvoie le dernier résultat d'un flux, même expiré. Si le flux n'a jamais été chargé, il est chargé (appel
+     * bloquant, regroupé avec le chargement en cours s'il y en a un).
+     *
+     * @param <T>  type des objets du flux.
+     * @param flux flux.
+     * @return le dernier résultat du flux.
+     * @throws ApiReseauException si le flux n'a jamais pu être chargé.
+     */
+    public <T> List<T> get(Flux<T> flux) throws ApiReseauException {
+        EtatFlux etat = etats.get(flux);
+        if (etat != null && etat.dernier != null) {
+            return etat.dernier.copie();
+        }
+        OpenDataApiCache.Entree entree = cache.lire(flux);
+        if (entree != null) {
+            return entree.copie();
+        }
+        return cache.get(flux);
+    }
+
+    /**
+     * Recharge un flux enregistré et planifie son prochain chargement.
+     *
+     * @param etat état du flux.
+     */
+    private void rafraichir(EtatFlux etat) {
+        if (etats.get(etat.flux) != etat) {
+            return;
+        }
+        long delai = -1;
+        try {
+            OpenDataApiCache.Entree entree = cache.recharger(etat.flux);
+            etat.dernier = entree;
+            nbRafraichissements.incrementAndGet();
+            etat.echecs = 0;
+            delai = delaiRafraichissement(etat.flux, entree);
+        } catch (ApiReseauException exception) {
+            LOGGER.warning("Echec du rafraîchissement de " + etat.flux + " : " + exception);
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Erreur lors du rafraîchissement de " + etat.flux, exception);
+        } finally {
+            // Replanifié dans tous les cas, même après une Error : sinon le flux ne serait plus jamais rafraîchi.
+            etat.planifier(delai < 0 ? echec(etat) : delai);
+        }
+    }
+
+    /**
+     * @param etat état du flux en échec.
+     * @return délai avant le prochain essai (ms).
+     */
+    private long echec(EtatFlux etat) {
+        nbEchecs.incrementAndGet();
+        etat.echecs++;
+        return delaiEchec(etat.echecs);
+    }
+
+    /**
+     * @param flux   flux qui vient d'être chargé.
+     * @param entree résultat chargé.
+     * @return délai avant le prochain chargement (ms) : un peu avant l'expiration.
+     */
+    private long delaiRafraichissement(Flux<?> flux, OpenDataApiCache.Entree entree) {
+        long dureeVie = cache.getDureeVie(flux);
+        long restant = entree.getExpiration() - cache.maintenant();
+        return Math.max(DELAI_MIN, restant - dureeVie / DIVISEUR_AVANCE);
+    }
+
+    /**
+     * Délai après des échecs successifs : doublé à chaque échec (jusqu'à
+     * {@link RafraichisseurCache#DELAI_ECHEC_MAX}), puis tiré au hasard entre sa moitié et sa totalité pour que les
+     * clients ne réessaient pas tous ensemble.
+     *
+     * @param echecs nombre d'échecs successifs (au moins 1).
+     * @return délai avant le prochain essai (ms).
+     */
+    protected long delaiEchec(int echecs) {
+        long delai = DELAI_ECHEC_MAX;
+        if (echecs < Long.SIZE - 2) {
+            delai = Math.min(DELAI_ECHEC_MAX, DELAI_ECHEC_INITIAL << (echecs - 1));
+        }
+        long moitie = delai / 2;
+        synchronized (random) {
+            return moitie + (long) (random.nextDouble() * (delai - moitie));
+        }
+    }
+
+    /**
+     * @return {@link RafraichisseurCache#nbRafraichissements}.
+     */
+    public long getNbRafraichissements() {
+        return nbRafraichissements.get();
+    }
+
+    /**
+     * @return {@link RafraichisseurCache#nbEchecs}.
+     */
+    public long getNbEchecs() {
+        return nbEchecs.get();
+    }
+
+    /**
+     * @return {@link RafraichisseurCache#cache}.
+     */
+    public OpenDataApiCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Etat du rafraîchissement d'un flux.
+     */
+    private final class EtatFlux implements Runnable {
+        /**
+         * Flux.
+         */
+        private final Flux<?> flux;
+        /**
+         * Nombre d'échecs successifs (modifié uniquement par la tâche de rafraîchissement).
+         */
+        private int echecs;
+        /**
+         * Dernier résultat chargé (null tant que le flux n'a pas été chargé).
+         */
+        private volatile OpenDataApiCache.Entree dernier;
+        /**
+         * Prochain rafraîchissement.
+         */
+        private volatile ScheduledFuture<?> prochain;
+
+        /**
+         * @param flux {@link EtatFlux#flux}.
+         */
+        private EtatFlux(Flux<?> flux) {
+            this.flux = flux;
+        }
+
+        @Override
+        public void run() {
+            rafraichir(this);
+        }
+
+        /**
+         * @param delai délai avant le prochain rafraîchissement (ms).
+         */
+        private void planifier(long delai) {
+            if (etats.get(flux) == this && !executor.isShutdown()) {
+                prochain = executor.schedule(this, delai, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Annule le prochain rafraîchissement.
+         */
+        private void annuler() {
+            ScheduledFuture<?> rafraichissement = prochain;
+            if (rafraichissement != null) {
+                rafraichissement.cancel(false);
+            }
+        }
+    }
+}
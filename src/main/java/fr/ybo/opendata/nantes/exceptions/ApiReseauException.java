@@ -38,4 +38,12 @@ public class ApiReseauException extends Exception {
     public ApiReseauException(Exception exception) {
         super(exception);
     }
+
+    /**
+     * Constructeur.
+     * @param message message.
+     */
+    public ApiReseauException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,404 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.modele;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
+import fr.ybo.opendata.nantes.util.ParseurNombres;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lecture du fichier des équipements (Equipements_publics_deplacement.csv) sans passer par le moteur csv générique.
+ * <p/>
+ * Le fichier est lu par blocs dans un tableau de caractères ; les cellules utiles sont converties directement dans
+ * ce tableau (entiers et décimaux à virgule, voir {@link ParseurNombres}), sans formateur ni chaine intermédiaire.
+ * Les équipements obtenus sont identiques à ceux du moteur csv avec les adapteurs de {@link Equipement} : une
+ * cellule vide laisse le champ à sa valeur par défaut, les entiers sont tronqués à leur partie entière
+ * ("3733,000000000000000" donne 3733) et valent -1 s'ils sont illisibles.
+ * <p/>
+ * Le chargeur est placé dans le paquetage du modèle pour remplir les équipements sans leur ajouter de mutateurs
+ * publics : un équipement ne change plus une fois lu.
+ */
+public final class ChargeurEquipements {
+
+    /**
+     * Séparateur des colonnes.
+     */
+    private static final char SEPARATEUR = ';';
+
+    /**
+     * Séparateur décimal.
+     */
+    private static final char SEPARATEUR_DECIMAL = ',';
+
+    /**
+     * Marque d'ordre des octets, éventuellement présente en tête de fichier.
+     */
+    private static final char BOM = '\uFEFF';
+
+    /**
+     * Taille initiale du tampon de lecture.
+     */
+    private static final int TAILLE_TAMPON = 8192;
+
+    /**
+     * Nombre maximum de chiffres lus sans risque de dépassement d'un int.
+     */
+    private static final int CHIFFRES_MAX = 9;
+
+    /**
+     * Base décimale.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Valeur d'un entier illisible (comme {@link fr.ybo.opendata.nantes.util.MyAdapteurInt}).
+     */
+    private static final int ENTIER_ILLISIBLE = -1;
+
+    /**
+     * Colonnes lues, dans l'ordre des constantes COL_*.
+     */
+    private static final String[] COLONNES = {
+        "_IDOBJ", "LAT_WGS84", "LONG_WGS84", "NOM_COMPLET", "THEME", "CATEGORIE", "TYPE", "COMMUNE", "ADRESSE",
+        "CODE_POSTAL"
+    };
+
+    /**
+     * Colonne _IDOBJ.
+     */
+    private static final int COL_IDOBJ = 0;
+    /**
+     * Colonne LAT_WGS84.
+     */
+    private static final int COL_LATITUDE = 1;
+    /**
+     * Colonne LONG_WGS84.
+     */
+    private static final int COL_LONGITUDE = 2;
+    /**
+     * Colonne NOM_COMPLET.
+     */
+    private static final int COL_NOM = 3;
+    /**
+     * Colonne THEME.
+     */
+    private static final int COL_THEME = 4;
+    /**
+     * Colonne CATEGORIE.
+     */
+    private static final int COL_CATEGORIE = 5;
+    /**
+     * Colonne TYPE.
+     */
+    private static final int COL_TYPE = 6;
+    /**
+     * Colonne COMMUNE.
+     */
+    private static final int COL_COMMUNE = 7;
+    /**
+     * Colonne ADRESSE.
+     */
+    private static final int COL_ADRESSE = 8;
+    /**
+     * Colonne CODE_POSTAL.
+     */
+    private static final int COL_CODE_POSTAL = 9;
+
+    /**
+     * Flux lu.
+     */
+    private final Reader reader;
+
+    /**
+     * Tampon de lecture.
+     */
+    private char[] tampon = new char[TAILLE_TAMPON];
+
+    /**
+     * Index dans le fichier de chaque colonne lue (-1 tant que l'entête n'est pas lue).
+     */
+    private final int[] indexColonnes = new int[COLONNES.length];
+
+    /**
+     * Début de chaque cellule de la ligne courante.
+     */
+    private int[] debuts;
+
+    /**
+     * Longueur de chaque cellule de la ligne courante.
+     */
+    private int[] longueurs;
+
+    /**
+     * Constructeur.
+     *
+     * @param reader {@link ChargeurEquipements#reader}.
+     */
+    private ChargeurEquipements(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Lit tous les équipements.
+     *
+     * @param reader flux du fichier (non fermé).
+     * @return les équipements, dans l'ordre du fichier.
+     * @throws IOException problème de lecture.
+     */
+    public static List<Equipement> charger(Reader reader) throws IOException {
+        final List<Equipement> equipements = new ArrayList<Equipement>();
+        charger(reader, new RecepteurObjet<Equipement>() {
+            @Override
+            public void recevoir(Equipement equipement) {
+                equipements.add(equipement);
+            }
+        });
+        return equipements;
+    }
+
+    /**
+     * Lit les équipements au fil du fichier.
+     *
+     * @param reader    flux du fichier (non fermé).
+     * @param recepteur reçoit chaque équipement, dans l'ordre du fichier.
+     * @throws IOException problème de lecture.
+     */
+    public static void charger(Reader reader, RecepteurObjet<Equipement> recepteur) throws IOException {
+        new ChargeurEquipements(reader).lire(recepteur);
+    }
+
+    /**
+     * Découpe le flux en lignes.
+     *
+     * @param recepteur reçoit chaque équipement.
+     * @throws IOException problème de lecture.
+     */
+    private void lire(RecepteurObjet<Equipement> recepteur) throws IOException {
+        int debutLigne = 0;
+        int fin = 0;
+        int index = 0;
+        boolean entete = true;
+        while (true) {
+            while (index < fin && tampon[index] != '\n') {
+                index++;
+            }
+            if (index < fin) {
+                entete = traiterLigne(debutLigne, index, entete, recepteur);
+                index++;
+                debutLigne = index;
+                continue;
+            }
+            // Ligne incomplète : on la ramène en début de tampon (agrandi si besoin) avant de lire la suite.
+            if (debutLigne > 0) {
+                System.arraycopy(tampon, debutLigne, tampon, 0, fin - debutLigne);
+                fin -= debutLigne;
+                index -= debutLigne;
+                debutLigne = 0;
+            } else if (fin == tampon.length) {
+                char[] nouveauTampon = new char[tampon.length << 1];
+                System.arraycopy(tampon, 0, nouveauTampon, 0, fin);
+                tampon = nouveauTampon;
+            }
+            int lus = reader.read(tampon, fin, tampon.length - fin);
+            if (lus < 0) {
+                if (debutLigne < fin) {
+                    traiterLigne(debutLigne, fin, entete, recepteur);
+                }
+                return;
+            }
+            fin += lus;
+        }
+    }
+
+    /**
+     * Traite une ligne.
+     *
+     * @param debut     début de la ligne dans le tampon.
+     * @param fin       fin (exclue, sans le saut de ligne) de la ligne.
+     * @param entete    vrai si la ligne est l'entête.
+     * @param recepteur reçoit l'équipement.
+     * @return vrai si l'entête reste à lire.
+     */
+    private boolean traiterLigne(int debut, int fin, boolean entete, RecepteurObjet<Equipement> recepteur) {
+        int finLigne = fin;
+        if (finLigne > debut && tampon[finLigne - 1] == '\r') {
+            finLigne--;
+        }
+        int debutLigne = debut;
+        if (entete && debutLigne < finLigne && tampon[debutLigne] == BOM) {
+            debutLigne++;
+        }
+        if (debutLigne == finLigne) {
+            return entete;
+        }
+        if (entete) {
+            lireEntete(debutLigne, finLigne);
+        } else {
+            decouper(debutLigne, finLigne);
+            recepteur.recevoir(creerEquipement());
+        }
+        return false;
+    }
+
+    /**
+     * Lit l'entête et repère les colonnes utiles.
+     *
+     * @param debut début de la ligne.
+     * @param fin   fin de la ligne.
+     */
+    private void lireEntete(int debut, int fin) {
+        int nbColonnes = 1;
+        for (int index = debut; index < fin; index++) {
+            if (tampon[index] == SEPARATEUR) {
+                nbColonnes++;
+            }
+        }
+        debuts = new int[nbColonnes];
+        longueurs = new int[nbColonnes];
+        decouper(debut, fin);
+        for (int colonne = 0; colonne < COLONNES.length; colonne++) {
+            indexColonnes[colonne] = -1;
+            for (int cellule = 0; cellule < nbColonnes; cellule++) {
+                if (COLONNES[colonne].equals(new String(tampon, debuts[cellule], longueurs[cellule]))) {
+                    indexColonnes[colonne] = cellule;
+                    break;
+                }
+            }
+            if (indexColonnes[colonne] < 0) {
+                throw new ApiException("Colonne " + COLONNES[colonne] + " absente du fichier des équipements");
+            }
+        }
+    }
+
+    /**
+     * Repère les cellules d'une ligne (les cellules manquantes sont vides, les cellules en trop ignorées).
+     *
+     * @param debut début de la ligne.
+     * @param fin   fin de la ligne.
+     */
+    private void decouper(int debut, int fin) {
+        int cellule = 0;
+        int debutCellule = debut;
+        for (int index = debut; index < fin && cellule < debuts.length; index++) {
+            if (tampon[index] == SEPARATEUR) {
+                debuts[cellule] = debutCellule;
+                longueurs[cellule] = index - debutCellule;
+                cellule++;
+                debutCellule = index + 1;
+            }
+        }
+        if (cellule < debuts.length) {
+            debuts[cellule] = debutCellule;
+            longueurs[cellule] = fin - debutCellule;
+            cellule++;
+        }
+        for (; cellule < debuts.length; cellule++) {
+            debuts[cellule] = fin;
+            longueurs[cellule] = 0;
+        }
+    }
+
+    /**
+     * @return l'équipement de la ligne courante.
+     */
+    private Equipement creerEquipement() {
+        Equipement equipement = new Equipement();
+        if (!vide(COL_IDOBJ)) {
+            equipement.setIdObj(entier(COL_IDOBJ));
+        }
+        if (!vide(COL_LATITUDE)) {
+            equipement.setLatitude(decimal(COL_LATITUDE));
+        }
+        if (!vide(COL_LONGITUDE)) {
+            equipement.setLongitude(decimal(COL_LONGITUDE));
+        }
+        equipement.setNom(chaine(COL_NOM));
+        if (!vide(COL_THEME)) {
+            equipement.setTheme(Theme.fromId(entier(COL_THEME)));
+        }
+        if (!vide(COL_CATEGORIE)) {
+            equipement.setCategorie(Categorie.fromId(entier(COL_CATEGORIE)));
+        }
+        if (!vide(COL_TYPE)) {
+            equipement.setType(Type.fromId(entier(COL_TYPE)));
+        }
+        equipement.setCommune(chaine(COL_COMMUNE));
+        equipement.setAdresse(chaine(COL_ADRESSE));
+        equipement.setCodePostal(chaine(COL_CODE_POSTAL));
+        return equipement;
+    }
+
+    /**
+     * @param colonne colonne (COL_*).
+     * @return vrai si la cellule est vide.
+     */
+    private boolean vide(int colonne) {
+        return longueurs[indexColonnes[colonne]] == 0;
+    }
+
+    /**
+     * @param colonne colonne (COL_*).
+     * @return contenu de la cellule, null si elle est vide.
+     */
+    private String chaine(int colonne) {
+        int cellule = indexColonnes[colonne];
+        return longueurs[cellule] == 0 ? null : new String(tampon, debuts[cellule], longueurs[cellule]);
+    }
+
+    /**
+     * @param colonne colonne (COL_*).
+     * @return nombre décimal à virgule de la cellule.
+     */
+    private Double decimal(int colonne) {
+        int cellule = indexColonnes[colonne];
+        return ParseurNombres.parseDouble(tampon, debuts[cellule], longueurs[cellule], SEPARATEUR_DECIMAL);
+    }
+
+    /**
+     * Partie entière de la cellule. Le cas courant (chiffres éventuellement suivis de décimales) est lu directement ;
+     * les autres formes sont confiées à {@link NumberFormat}, comme dans
+     * {@link fr.ybo.opendata.nantes.util.MyAdapteurInt}.
+     *
+     * @param colonne colonne (COL_*).
+     * @return entier de la cellule, {@link ChargeurEquipements#ENTIER_ILLISIBLE} s'il est illisible.
+     */
+    private int entier(int colonne) {
+        int cellule = indexColonnes[colonne];
+        int debut = debuts[cellule];
+        int fin = debut + longueurs[cellule];
+        int valeur = 0;
+        int index = debut;
+        while (index < fin && index - debut < CHIFFRES_MAX && tampon[index] >= '0' && tampon[index] <= '9') {
+            valeur = valeur * BASE + tampon[index] - '0';
+            index++;
+        }
+        if (index > debut && (index == fin || tampon[index] == SEPARATEUR_DECIMAL)) {
+            return valeur;
+        }
+        try {
+            return NumberFormat.getIntegerInstance(Locale.FRENCH).parse(new String(tampon, debut, fin - debut))
+                    .intValue();
+        } catch (ParseException exception) {
+            return ENTIER_ILLISIBLE;
+        }
+    }
+}
@@ -78,6 +78,13 @@ public class Equipement {
         return idObj;
     }
 
+    /**
+     * @param idObj {@link Equipement#idObj}.
+     */
+    void setIdObj(int idObj) {
+        this.idObj = idObj;
+    }
+
     /**
      * @return {@link Equipement#latitude}.
      */
@@ -85,6 +92,13 @@ public class Equipement {
         return latitude;
     }
 
+    /**
+     * @param latitude {@link Equipement#latitude}.
+     */
+    void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
     /**
      * @return {@link Equipement#longitude}.
      */
@@ -92,6 +106,13 @@ public class Equipement {
         return longitude;
     }
 
+    /**
+     * @param longitude {@link Equipement#longitude}.
+     */
+    void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     /**
      * @return {@link Equipement#nom}.
      */
@@ -99,6 +120,13 @@ public class Equipement {
         return nom;
     }
 
+    /**
+     * @param nom {@link Equipement#nom}.
+     */
+    void setNom(String nom) {
+        this.nom = nom;
+    }
+
     /**
      * @return {@link Equipement#theme}.
      */
@@ -106,6 +134,13 @@ public class Equipement {
         return theme;
     }
 
+    /**
+     * @param theme {@link Equipement#theme}.
+     */
+    void setTheme(Theme theme) {
+        this.theme = theme;
+    }
+
     /**
      * @return {@link Equipement#categorie}.
      */
@@ -113,6 +148,13 @@ public class Equipement {
         return categorie;
     }
 
+    /**
+     * @param categorie {@link Equipement#categorie}.
+     */
+    void setCategorie(Categorie categorie) {
+        this.categorie = categorie;
+    }
+
     /**
      * @return {@link Equipement#type}.
      */
@@ -120,6 +162,13 @@ public class Equipement {
         return type;
     }
 
+    /**
+     * @param type {@link Equipement#type}.
+     */
+    void setType(Type type) {
+        this.type = type;
+    }
+
     /**
      * @return {@link Equipement#commune}.
      */
@@ -127,6 +176,13 @@ public class Equipement {
         return commune;
     }
 
+    /**
+     * @param commune {@link Equipement#commune}.
+     */
+    void setCommune(String commune) {
+        this.commune = commune;
+    }
+
     /**
      * @return {@link Equipement#adresse}.
      */
@@ -134,6 +190,13 @@ public class Equipement {
         return adresse;
     }
 
+    /**
+     * @param adresse {@link Equipement#adresse}.
+     */
+    void setAdresse(String adresse) {
+        this.adresse = adresse;
+    }
+
     /**
      * @return {@link Equipement#codePostal}.
      */
@@ -141,4 +204,11 @@ public class Equipement {
         return codePostal;
     }
 
+    /**
+     * @param codePostal {@link Equipement#codePostal}.
+     */
+    void setCodePostal(String codePostal) {
+        this.codePostal = codePostal;
+    }
+
 }
@@ -0,0 +1,177 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.modele;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Etat immuable d'un parking, copié depuis un {@link Parking} : il peut être partagé entre threads sans copie.
+ */
+public final class EtatParking implements Serializable {
+    /**
+     * Serial.
+     */
+    private static final long serialVersionUID = 4315620743163095328L;
+    /**
+     * Valeur de {@link EtatParking#lastUpdate} quand la date est inconnue.
+     */
+    private static final long DATE_INCONNUE = Long.MIN_VALUE;
+    /**
+     * Identifiant du parking.
+     */
+    private final String identifiant;
+    /**
+     * Nom du parking.
+     */
+    private final String nom;
+    /**
+     * Statut du parking.
+     */
+    private final StatutParking statut;
+    /**
+     * Niveau de priorité du mode automatique.
+     */
+    private final int priorite;
+    /**
+     * Nombre de places disponibles.
+     */
+    private final int disponibles;
+    /**
+     * Nombre de places minimum devant déclencher l'affichage 'COMPLET'.
+     */
+    private final int seuilComplet;
+    /**
+     * Nombre de places ouvertes au clients horaires.
+     */
+    private final int placesTotales;
+    /**
+     * Timestamp de l'information (ms), {@link EtatParking#DATE_INCONNUE} si inconnu.
+     */
+    private final long lastUpdate;
+    /**
+     * Identifiant de l'objet.
+     */
+    private final int idObj;
+    /**
+     * Latitude.
+     */
+    private final Double latitude;
+    /**
+     * Longitude.
+     */
+    private final Double longitude;
+
+    /**
+     * Constructeur.
+     *
+     * @param parking parking à copier.
+     */
+    public EtatParking(Parking parking) {
+        identifiant = parking.getIdentifiant();
+        nom = parking.getNom();
+        statut = parking.getStatut();
+        priorite = parking.getPriorite();
+        disponibles = parking.getDisponibles();
+        seuilComplet = parking.getSeuilComplet();
+        placesTotales = parking.getPlacesTotales();
+        lastUpdate = parking.getLastUpdate() == null ? DATE_INCONNUE : parking.getLastUpdate().getTime();
+        idObj = parking.getIdObj();
+        latitude = parking.getLatitude();
+        longitude = parking.getLongitude();
+    }
+
+    /**
+     * @return {@link EtatParking#identifiant}.
+     */
+    public String getIdentifiant() {
+        return identifiant;
+    }
+
+    /**
+     * @return {@link EtatParking#nom}.
+     */
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * @return {@link EtatParking#statut}.
+     */
+    public StatutParking getStatut() {
+        return statut;
+    }
+
+    /**
+     * @return {@link EtatParking#priorite}.
+     */
+    public int getPriorite() {
+        return priorite;
+    }
+
+    /**
+     * @return {@link EtatParking#disponibles}.
+     */
+    public int getDisponibles() {
+        return disponibles;
+    }
+
+    /**
+     * @return {@link EtatParking#seuilComplet}.
+     */
+    public int getSeuilComplet() {
+        return seuilComplet;
+    }
+
+    /**
+     * @return {@link EtatParking#placesTotales}.
+     */
+    public int getPlacesTotales() {
+        return placesTotales;
+    }
+
+    /**
+     * @return {@link EtatParking#lastUpdate} (nouvelle instance), ou null si inconnu.
+     */
+    public Date getLastUpdate() {
+        return lastUpdate == DATE_INCONNUE ? null : new Date(lastUpdate);
+    }
+
+    /**
+     * @return {@link EtatParking#idObj}.
+     */
+    public int getIdObj() {
+        return idObj;
+    }
+
+    /**
+     * @return {@link EtatParking#latitude}.
+     */
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return {@link EtatParking#longitude}.
+     */
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return "EtatParking[" + identifiant + ' ' + nom + ", " + statut + ", " + disponibles + '/' + placesTotales
+                + ']';
+    }
+}
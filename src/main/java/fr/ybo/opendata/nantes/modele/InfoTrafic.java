@@ -1,12 +1,12 @@
 package fr.ybo.opendata.nantes.modele;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import fr.ybo.opendata.nantes.sax.BaliseData;
 import fr.ybo.opendata.nantes.sax.BaliseType;
 import fr.ybo.opendata.nantes.sax.BaliseXml;
+import fr.ybo.opendata.nantes.util.ParseurDate;
 
 /**
  * Classe InfoTrafic.
@@ -17,18 +17,22 @@ public class InfoTrafic {
     /**
      * Code de l’info trafic.
      */
+    @BaliseXml(name = "CODE")
     private String code;
     /**
      * Intitulé de l’info trafic.
      */
+    @BaliseXml(name = "INTITULE")
     private String intitule;
     /**
      * Résumé.
      */
+    @BaliseXml(name = "RESUME")
     private String resume;
     /**
      * Texte vocal.
      */
+    @BaliseXml(name = "TEXTE_VOCAL")
     private String texteVocal;
     /**
      * Date de début de perturbation.
@@ -41,10 +45,12 @@ public class InfoTrafic {
     /**
      * Perturbation terminee?
      */
+    @BaliseXml(name = "PERTURBATION_TERMINEE", type = BaliseType.BOOLEAN)
     private boolean terminee;
     /**
      * Tronçons concernés.
      */
+    @BaliseXml(name = "TRONCONS")
     private String troncons;
 
     /**
@@ -57,7 +63,6 @@ public class InfoTrafic {
     /**
      * @param code {@link InfoTrafic#code}.
      */
-    @BaliseXml(name = "CODE")
     public void setCode(String code) {
         this.code = code;
     }
@@ -72,7 +77,6 @@ public class InfoTrafic {
     /**
      * @param intitule {@link InfoTrafic#intitule}.
      */
-    @BaliseXml(name = "INTITULE")
     public void setIntitule(String intitule) {
         this.intitule = intitule;
     }
@@ -87,7 +91,6 @@ public class InfoTrafic {
     /**
      * @param resume {@link InfoTrafic#resume}.
      */
-    @BaliseXml(name = "RESUME")
     public void setResume(String resume) {
         this.resume = resume;
     }
@@ -102,7 +105,6 @@ public class InfoTrafic {
     /**
      * @param texteVocal {@link InfoTrafic#texteVocal}.
      */
-    @BaliseXml(name = "TEXTE_VOCAL")
     public void setTexteVocal(String texteVocal) {
         this.texteVocal = texteVocal;
     }
@@ -117,11 +119,15 @@ public class InfoTrafic {
     /**
      * Format des dates.
      */
-    private static final SimpleDateFormat SDF_DATE = new SimpleDateFormat("dd/MM/yyyy");
+    private static final ParseurDate PARSEUR_DATE = new ParseurDate("dd/MM/yyyy");
     /**
      * Format des heures.
      */
-    private static final SimpleDateFormat SDF_TIME = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+    private static final ParseurDate PARSEUR_HEURE = new ParseurDate("HH:mm");
+    /**
+     * Heure de fin d'une perturbation sans heure de fin.
+     */
+    private static final String FIN_JOURNEE = "23:59";
 
     /**
      * @param dateDebut {@link InfoTrafic#dateDebut}.
@@ -129,7 +135,7 @@ public class InfoTrafic {
      */
     @BaliseXml(name = "DATE_DEBUT")
     public void setDateDebut(String dateDebut) throws ParseException {
-        this.dateDebut = SDF_DATE.parse(dateDebut);
+        this.dateDebut = PARSEUR_DATE.parse(dateDebut);
     }
 
     /**
@@ -145,7 +151,7 @@ public class InfoTrafic {
      */
     @BaliseXml(name = "DATE_FIN")
     public void setDateFin(String dateFin) throws ParseException {
-        this.dateFin = SDF_TIME.parse(dateFin + " 23:59");
+        this.dateFin = PARSEUR_HEURE.changerHeure(PARSEUR_DATE.parse(dateFin), FIN_JOURNEE);
     }
 
     /**
@@ -155,7 +161,7 @@ public class InfoTrafic {
      */
     @BaliseXml(name = "HEURE_DEBUT")
     public void setHeureDebut(String heureDebut) throws ParseException {
-        dateDebut = SDF_TIME.parse(SDF_DATE.format(dateDebut) + ' ' + heureDebut);
+        dateDebut = PARSEUR_HEURE.changerHeure(dateDebut, heureDebut);
     }
 
     /**
@@ -165,7 +171,7 @@ public class InfoTrafic {
      */
     @BaliseXml(name = "HEURE_FIN")
     public void setHeureFin(String heureFin) throws ParseException {
-        dateFin = SDF_TIME.parse(SDF_DATE.format(dateFin) + ' ' + heureFin);
+        dateFin = PARSEUR_HEURE.changerHeure(dateFin, heureFin);
     }
 
     /**
@@ -178,7 +184,6 @@ public class InfoTrafic {
     /**
      * @param terminee {@link InfoTrafic#terminee}.
      */
-    @BaliseXml(name = "PERTURBATION_TERMINEE", type = BaliseType.BOOLEAN)
     public void setTerminee(boolean terminee) {
         this.terminee = terminee;
     }
@@ -193,7 +198,6 @@ public class InfoTrafic {
     /**
      * @param troncons {@link InfoTrafic#troncons}.
      */
-    @BaliseXml(name = "TRONCONS")
     public void setTroncons(String troncons) {
         this.troncons = troncons;
     }
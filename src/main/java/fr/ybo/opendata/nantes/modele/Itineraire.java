@@ -3,9 +3,9 @@ package fr.ybo.opendata.nantes.modele;
 import fr.ybo.opendata.nantes.sax.BaliseData;
 import fr.ybo.opendata.nantes.sax.BaliseType;
 import fr.ybo.opendata.nantes.sax.BaliseXml;
+import fr.ybo.opendata.nantes.util.ParseurDate;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
@@ -16,14 +16,17 @@ public class Itineraire {
     /**
      * Identifiant de l’itinéraire.
      */
+    @BaliseXml(name = "Identifiant")
     private String identifiant;
     /**
      * Temps de parcours en minutes.
      */
+    @BaliseXml(name = "Temps", type = BaliseType.INTEGER)
     private int temps;
     /**
      * Indicateur de validité.
      */
+    @BaliseXml(name = "Validite", type = BaliseType.BOOLEAN)
     private boolean valide;
     /**
      * Timestamp de mesure.
@@ -40,7 +43,6 @@ public class Itineraire {
     /**
      * @param identifiant {@link Itineraire#identifiant}.
      */
-    @BaliseXml(name = "Identifiant")
     public void setIdentifiant(String identifiant) {
         this.identifiant = identifiant;
     }
@@ -55,7 +57,6 @@ public class Itineraire {
     /**
      * @param temps {@link Itineraire#temps}.
      */
-    @BaliseXml(name = "Temps", type = BaliseType.INTEGER)
     public void setTemps(int temps) {
         this.temps = temps;
     }
@@ -70,7 +71,6 @@ public class Itineraire {
     /**
      * @param valide {@link Itineraire#valide}.
      */
-    @BaliseXml(name = "Validite", type = BaliseType.BOOLEAN)
     public void setValide(boolean valide) {
         this.valide = valide;
     }
@@ -85,7 +85,7 @@ public class Itineraire {
     /**
      * Format de lastUpdate.
      */
-    private static final SimpleDateFormat SDF_DATE = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    private static final ParseurDate PARSEUR_DATE = new ParseurDate("dd/MM/yyyy HH:mm:ss");
 
     /**
      * @param lastUpdate {@link Itineraire#lastUpdate}.
@@ -93,6 +93,6 @@ public class Itineraire {
      */
     @BaliseXml(name = "Horodatage")
     public void setLastUpdate(String lastUpdate) throws ParseException {
-        this.lastUpdate = SDF_DATE.parse(lastUpdate);
+        this.lastUpdate = PARSEUR_DATE.parse(lastUpdate);
     }
 }
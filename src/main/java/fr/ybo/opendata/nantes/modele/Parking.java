@@ -3,10 +3,10 @@ package fr.ybo.opendata.nantes.modele;
 import fr.ybo.opendata.nantes.sax.BaliseData;
 import fr.ybo.opendata.nantes.sax.BaliseType;
 import fr.ybo.opendata.nantes.sax.BaliseXml;
+import fr.ybo.opendata.nantes.util.ParseurDate;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.logging.Logger;
 
@@ -26,10 +26,12 @@ public class Parking implements Serializable {
     /**
      * Identifiant du parking.
      */
+    @BaliseXml(name = "Grp_identifiant")
     private String identifiant;
     /**
      * Nom du parking.
      */
+    @BaliseXml(name = "Grp_nom")
     private String nom;
     /**
      * Statut du parking.
@@ -39,18 +41,22 @@ public class Parking implements Serializable {
     /**
      * Niveau de priorité du mode automatique.
      */
+    @BaliseXml(name = "Grp_pri_aut", type = BaliseType.INTEGER)
     private int priorite;
     /**
      * Nombre de places disponibles.
      */
+    @BaliseXml(name = "Grp_disponible", type = BaliseType.INTEGER)
     private int disponibles;
     /**
      * Nombre de places minimum devant déclencher l'affichage 'COMPLET'.
      */
+    @BaliseXml(name = "Grp_complet", type = BaliseType.INTEGER)
     private int seuilComplet;
     /**
      * Nombre de places ouvertes au clients horaires.
      */
+    @BaliseXml(name = "Grp_exploitation", type = BaliseType.INTEGER)
     private int placesTotales;
 
     /**
@@ -62,6 +68,7 @@ public class Parking implements Serializable {
     /**
      * Identifiant de l'objet.
      */
+    @BaliseXml(name = "IdObj", type = BaliseType.INTEGER)
     private int idObj;
 
     /**
@@ -84,7 +91,6 @@ public class Parking implements Serializable {
     /**
      * @param identifiant {@link Parking#identifiant}.
      */
-    @BaliseXml(name = "Grp_identifiant")
     public void setIdentifiant(String identifiant) {
         this.identifiant = identifiant;
     }
@@ -99,7 +105,6 @@ public class Parking implements Serializable {
     /**
      * @param nom {@link Parking#nom}.
      */
-    @BaliseXml(name = "Grp_nom")
     public void setNom(String nom) {
         this.nom = nom;
     }
@@ -129,7 +134,6 @@ public class Parking implements Serializable {
     /**
      * @param priorite {@link Parking#priorite}.
      */
-    @BaliseXml(name = "Grp_pri_aut", type = BaliseType.INTEGER)
     public void setPriorite(int priorite) {
         this.priorite = priorite;
     }
@@ -144,7 +148,6 @@ public class Parking implements Serializable {
     /**
      * @param disponibles {@link Parking#disponibles}.
      */
-    @BaliseXml(name = "Grp_disponible", type = BaliseType.INTEGER)
     public void setDisponibles(int disponibles) {
         this.disponibles = disponibles;
     }
@@ -159,7 +162,6 @@ public class Parking implements Serializable {
     /**
      * @param seuilComplet {@link Parking#seuilComplet}.
      */
-    @BaliseXml(name = "Grp_complet", type = BaliseType.INTEGER)
     public void setSeuilComplet(int seuilComplet) {
         this.seuilComplet = seuilComplet;
     }
@@ -174,7 +176,6 @@ public class Parking implements Serializable {
     /**
      * @param placesTotales {@link Parking#placesTotales}.
      */
-    @BaliseXml(name = "Grp_exploitation", type = BaliseType.INTEGER)
     public void setPlacesTotales(int placesTotales) {
         this.placesTotales = placesTotales;
     }
@@ -189,7 +190,7 @@ public class Parking implements Serializable {
     /**
      * Format pour le champ Grp_horodatage.
      */
-    private static final SimpleDateFormat SDF_DATE = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    private static final ParseurDate PARSEUR_DATE = new ParseurDate("dd/MM/yyyy HH:mm:ss");
 
     /**
      * @param lastUpdate {@link Parking#lastUpdate}.
@@ -197,7 +198,7 @@ public class Parking implements Serializable {
     @BaliseXml(name = "Grp_horodatage")
     public void setLastUpdate(String lastUpdate) {
         try {
-            this.lastUpdate = SDF_DATE.parse(lastUpdate);
+            this.lastUpdate = PARSEUR_DATE.parse(lastUpdate);
         } catch (ParseException exception) {
             LOGGER.warning(exception.getMessage());
         }
@@ -213,7 +214,6 @@ public class Parking implements Serializable {
     /**
      * @param idObj {@link Parking#idObj}.
      */
-    @BaliseXml(name = "IdObj", type = BaliseType.INTEGER)
     public void setIdObj(int idObj) {
         this.idObj = idObj;
     }
@@ -40,15 +40,16 @@ public class SegmentFluency implements Serializable {
     /**
     * Identifiant du tronçon
     * */
+    @BaliseXml(name = "Id", type = BaliseType.INTEGER)
     private int id;
 
+    @BaliseXml(name = "Couleur_TP", type = BaliseType.INTEGER)
     private int colorId;
 
     public int getId() {
         return id;
     }
 
-    @BaliseXml(name = "Id", type = BaliseType.INTEGER)
     public void setId(int id) {
         this.id = id;
     }
@@ -68,7 +69,6 @@ public class SegmentFluency implements Serializable {
         return colorId;
     }
 
-    @BaliseXml(name = "Couleur_TP", type = BaliseType.INTEGER)
     public void setColorId(int colorId) {
         this.colorId = colorId;
     }
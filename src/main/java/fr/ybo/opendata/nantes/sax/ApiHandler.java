@@ -29,20 +29,20 @@ public abstract class ApiHandler<T> extends DefaultHandler {
     /**
      * Nom de la balise answer.
      */
-    private static final String ANSWER = "answer";
+    static final String ANSWER = "answer";
 
     /**
      * Nom de la balise status.
      */
-    private static final String STATUS = "status";
+    static final String STATUS = "status";
     /**
      * Nom de la balise code.
      */
-    private static final String CODE = "code";
+    static final String CODE = "code";
     /**
      * Nom de la balise message.
      */
-    private static final String MESSAGE = "message";
+    static final String MESSAGE = "message";
 
     /**
      * Réponse de l'API getdistrict.
@@ -55,14 +55,34 @@ public abstract class ApiHandler<T> extends DefaultHandler {
     private T currentObjet;
 
     /**
-     * StringBuilder servant au parsing xml.
+     * Récepteur des objets au fil du parsing (null : les objets sont ajoutés à la réponse).
      */
-    private StringBuilder contenu;
+    private RecepteurObjet<T> recepteur;
+
+    /**
+     * Table de chaines canoniques (null si les chaines ne sont pas dédupliquées).
+     */
+    private TableIntern tableIntern;
+
+    /**
+     * Taille initiale du tampon de contenu.
+     */
+    private static final int TAILLE_CONTENU = 256;
+
+    /**
+     * Tampon servant au parsing xml, réutilisé d'une balise à l'autre.
+     */
+    private char[] contenu = new char[TAILLE_CONTENU];
+
+    /**
+     * Longueur du contenu de la balise courante.
+     */
+    private int longueurContenu;
 
     @Override
     public void characters(char[] cars, int start, int length) throws SAXException {
         super.characters(cars, start, length);
-        contenu.append(cars, start, length);
+        ajouterContenu(cars, start, length);
     }
 
     @Override
@@ -70,16 +90,118 @@ public abstract class ApiHandler<T> extends DefaultHandler {
         super.endElement(uri, localName, qName);
         if (answer != null) {
             if (qName.equals(getBaliseData())) {
-                answer.getData().add(currentObjet);
+                finObjet();
             } else {
-                if (contenu != null) {
-                    remplirObject(currentObjet, qName, contenu.toString());
-                }
-            }
-            if (contenu != null) {
-                contenu.setLength(0);
+                remplir(qName);
             }
+            viderContenu();
+        }
+    }
+
+    /**
+     * Ajoute du texte au contenu de la balise courante.
+     *
+     * @param cars   tableau de caractères.
+     * @param start  index du premier caractère.
+     * @param length nombre de caractères.
+     */
+    void ajouterContenu(char[] cars, int start, int length) {
+        int longueur = longueurContenu + length;
+        if (longueur > contenu.length) {
+            char[] nouveauContenu = new char[Math.max(longueur, 2 * contenu.length)];
+            System.arraycopy(contenu, 0, nouveauContenu, 0, longueurContenu);
+            contenu = nouveauContenu;
         }
+        System.arraycopy(cars, start, contenu, longueurContenu, length);
+        longueurContenu = longueur;
+    }
+
+    /**
+     * Vide le contenu de la balise courante.
+     */
+    void viderContenu() {
+        longueurContenu = 0;
+    }
+
+    /**
+     * Début de la balise answer.
+     */
+    void debutReponse() {
+        answer = new Answer<T>();
+    }
+
+    /**
+     * @return vrai si la balise answer a été rencontrée.
+     */
+    boolean hasReponse() {
+        return answer != null;
+    }
+
+    /**
+     * Renseigne le status de la réponse (seul le premier status est conservé).
+     *
+     * @param code    code du status.
+     * @param message message du status.
+     */
+    void status(String code, String message) {
+        if (answer.getStatus() == null) {
+            answer.setStatus(new StatusApi());
+            answer.getStatus().setCode(code);
+            answer.getStatus().setMessage(message);
+        }
+    }
+
+    /**
+     * Début de la balise data : création d'un nouvel objet courant.
+     */
+    void debutObjet() {
+        currentObjet = getNewObjet();
+    }
+
+    /**
+     * Fin de la balise data : l'objet courant est ajouté à la réponse,
+     * ou transmis au récepteur si le status de la réponse est correct.
+     */
+    void finObjet() {
+        if (recepteur == null) {
+            answer.getData().add(currentObjet);
+        } else if (answer.getStatus() != null && "0".equals(answer.getStatus().getCode())) {
+            recepteur.recevoir(currentObjet);
+        }
+    }
+
+    /**
+     * Rempli l'objet courant avec le contenu accumulé pour une balise.
+     *
+     * @param baliseName nom de la balise.
+     */
+    void remplir(String baliseName) {
+        remplirObject(currentObjet, baliseName, contenu, 0, longueurContenu);
+    }
+
+    /**
+     * Permet de recevoir les objets au fil du parsing plutôt que dans {@link Answer#getData()}.
+     *
+     * @param recepteur {@link ApiHandler#recepteur}.
+     */
+    public void setRecepteur(RecepteurObjet<T> recepteur) {
+        this.recepteur = recepteur;
+    }
+
+    /**
+     * Permet de dédupliquer les chaines lues, pour les handlers qui le gèrent.
+     *
+     * @param tableIntern {@link ApiHandler#tableIntern} (null pour ne pas dédupliquer).
+     */
+    public void setTableIntern(TableIntern tableIntern) {
+        this.tableIntern = tableIntern;
+    }
+
+    /**
+     * @return {@link ApiHandler#tableIntern}.
+     */
+    protected TableIntern getTableIntern() {
+        return tableIntern;
     }
 
     /**
@@ -105,6 +227,14 @@ public abstract class ApiHandler<T> extends DefaultHandler {
      */
     protected abstract T getNewObjet();
 
+    /**
+     * Méthode à implémenter copiant un objet OpenDataApi lu par ce handler.
+     *
+     * @param objet objet à copier.
+     * @return nouvel objet de même contenu.
+     */
+    public abstract T copier(T objet);
+
     /**
      * Méthode à implémenter remplissant le contenu d'un objet OpenDataApi.
      *
@@ -114,25 +244,50 @@ public abstract class ApiHandler<T> extends DefaultHandler {
      */
     protected abstract void remplirObject(T currentObject, String baliseName, String contenuOfBalise);
 
+    /**
+     * Rempli le contenu d'un objet OpenDataApi à partir du tampon du parser.
+     * Par défaut le contenu est converti en chaine pour
+     * {@link ApiHandler#remplirObject(Object, String, String)} : les implémentations peuvent redéfinir cette
+     * méthode pour éviter de créer une chaine pour chaque balise.
+     *
+     * @param currentObject objet courant.
+     * @param baliseName    nom de la balise.
+     * @param cars          tableau de caractères (réutilisé après l'appel).
+     * @param debut         index du premier caractère du contenu.
+     * @param longueur      longueur du contenu.
+     */
+    protected void remplirObject(T currentObject, String baliseName, char[] cars, int debut, int longueur) {
+        remplirObject(currentObject, baliseName, new String(cars, debut, longueur));
+    }
+
+    /**
+     * Indique si une balise est utilisée pour remplir un objet OpenDataApi.
+     * Les moteurs de parsing qui le savent peuvent ainsi lire directement le texte des balises utiles.
+     *
+     * @param baliseName nom de la balise.
+     * @return vrai si {@link ApiHandler#remplirObject(Object, String, String)} utilise cette balise.
+     */
+    protected boolean isBaliseUtile(String baliseName) {
+        return false;
+    }
+
     @Override
     public void startDocument() throws SAXException {
         super.startDocument();
-        contenu = new StringBuilder();
+        viderContenu();
     }
 
     @Override
     public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
         super.startElement(uri, localName, qName, attributes);
         if (qName.equals(ANSWER)) {
-            answer = new Answer<T>();
-        } else if (qName.equals(STATUS) && answer.getStatus() == null) {
-            answer.setStatus(new StatusApi());
-            answer.getStatus().setCode(attributes.getValue(attributes.getIndex(CODE)));
-            answer.getStatus().setMessage(attributes.getValue(attributes.getIndex(MESSAGE)));
+            debutReponse();
+        } else if (qName.equals(STATUS)) {
+            status(attributes.getValue(attributes.getIndex(CODE)), attributes.getValue(attributes.getIndex(MESSAGE)));
         } else if (qName.equals(getBaliseData())) {
-            currentObjet = getNewObjet();
+            debutObjet();
         }
-        contenu.setLength(0);
+        viderContenu();
     }
 
 }
@@ -14,6 +14,9 @@
 
 package fr.ybo.opendata.nantes.sax;
 
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.util.ParseurNombres;
+
 /**
  * Type de balise.
  */
@@ -21,40 +24,89 @@ public enum BaliseType {
     /**
      * Type chaine (converti un String en String).
      */
-    STRING {
+    STRING(String.class) {
         @Override
         Object convertir(String data) {
             return data;
         }
+
+        @Override
+        Object convertir(char[] cars, int debut, int longueur) {
+            return new String(cars, debut, longueur);
+        }
     },
     /**
      * Type Boolean (converti un String en boolean).
      */
-    BOOLEAN {
+    BOOLEAN(boolean.class) {
         @Override
         Object convertir(String data) {
             return "1".equals(data);
         }
+
+        @Override
+        Object convertir(char[] cars, int debut, int longueur) {
+            return convertirBoolean(cars, debut, longueur);
+        }
+
+        @Override
+        boolean convertirBoolean(char[] cars, int debut, int longueur) {
+            return longueur == 1 && cars[debut] == '1';
+        }
     },
     /**
      * Type Integer (converti un String en int).
      */
-    INTEGER {
+    INTEGER(int.class) {
         @Override
         Object convertir(String data) {
             return Integer.parseInt(data);
         }
+
+        @Override
+        Object convertir(char[] cars, int debut, int longueur) {
+            return convertirInt(cars, debut, longueur);
+        }
+
+        @Override
+        int convertirInt(char[] cars, int debut, int longueur) {
+            return ParseurNombres.parseInt(cars, debut, longueur);
+        }
     },
     /**
      * Type Double (converti un String en double).
      */
-    DOUBLE {
+    DOUBLE(double.class) {
         @Override
         Object convertir(String data) {
             return Double.parseDouble(data);
         }
+
+        @Override
+        Object convertir(char[] cars, int debut, int longueur) {
+            return convertirDouble(cars, debut, longueur);
+        }
+
+        @Override
+        double convertirDouble(char[] cars, int debut, int longueur) {
+            return ParseurNombres.parseDouble(cars, debut, longueur, '.');
+        }
     };
 
+    /**
+     * Type java correspondant.
+     */
+    private final Class<?> typeJava;
+
+    /**
+     * Constructeur.
+     *
+     * @param typeJava {@link BaliseType#typeJava}.
+     */
+    BaliseType(Class<?> typeJava) {
+        this.typeJava = typeJava;
+    }
+
     /**
      * Converti data dans le type approprié.
      *
@@ -62,4 +114,60 @@ public enum BaliseType {
      * @return l'objet approprié.
      */
     abstract Object convertir(String data);
+
+    /**
+     * Converti une donnée lue dans un tableau de caractères dans le type approprié.
+     * Seul le type {@link BaliseType#STRING} crée une chaine.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère de la donnée.
+     * @param longueur longueur de la donnée.
+     * @return l'objet approprié.
+     */
+    abstract Object convertir(char[] cars, int debut, int longueur);
+
+    /**
+     * Converti une donnée en int, sans objet intermédiaire.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère de la donnée.
+     * @param longueur longueur de la donnée.
+     * @return l'entier.
+     */
+    int convertirInt(char[] cars, int debut, int longueur) {
+        throw new ApiException("Une balise de type " + this + " ne peut pas être convertie en int");
+    }
+
+    /**
+     * Converti une donnée en double, sans objet intermédiaire.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère de la donnée.
+     * @param longueur longueur de la donnée.
+     * @return le nombre.
+     */
+    double convertirDouble(char[] cars, int debut, int longueur) {
+        throw new ApiException("Une balise de type " + this + " ne peut pas être convertie en double");
+    }
+
+    /**
+     * Converti une donnée en boolean, sans objet intermédiaire.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère de la donnée.
+     * @param longueur longueur de la donnée.
+     * @return le booléen.
+     */
+    boolean convertirBoolean(char[] cars, int debut, int longueur) {
+        throw new ApiException("Une balise de type " + this + " ne peut pas être convertie en boolean");
+    }
+
+    /**
+     * Type java correspondant à la balise, pour les champs et paramètres de setter.
+     *
+     * @return le type java.
+     */
+    Class<?> getTypeJava() {
+        return typeJava;
+    }
 }
@@ -21,9 +21,11 @@ import java.lang.annotation.Target;
 
 /**
  * Annotation pour les méthodes à appeler pour une balise xml donnée.
+ * Elle peut aussi être posée directement sur un champ quand le setter ne fait qu'une simple affectation :
+ * le champ est alors rempli sans appel de méthode.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
+@Target({ElementType.METHOD, ElementType.FIELD})
 public @interface BaliseXml {
     /**
      * Nom de la balise.
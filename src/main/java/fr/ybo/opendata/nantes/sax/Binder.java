@@ -0,0 +1,241 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Liaison entre une balise xml et un membre annoté {@link BaliseXml} d'un objet OpenData.
+ * <p/>
+ * Un binder est construit une seule fois par membre annoté puis partagé par tous les handlers.
+ * Un champ annoté est écrit directement avec l'accesseur typé correspondant
+ * ({@link Field#setInt(Object, int)}...) et la conversion primitive de {@link BaliseType}
+ * ({@link BaliseType#convertirInt(char[], int, int)}...) : du tampon du parser au champ, la valeur reste primitive.
+ * Une méthode annotée est appelée par réflexion, pour les setters qui font plus qu'une simple affectation.
+ * Le type du champ ou du paramètre du setter est vérifié à la construction du binder.
+ * Les chaines lues dans le tampon du parser passent par la {@link TableIntern} du handler, s'il en a une.
+ *
+ * @param <T> Objet représentant le xml.
+ */
+abstract class Binder<T> {
+
+    /**
+     * Vrai si le membre lié est statique (il peut alors être appelé sans objet courant).
+     */
+    private final boolean statique;
+
+    /**
+     * Nom du membre lié, pour les messages d'erreur.
+     */
+    private final String nom;
+
+    /**
+     * Constructeur.
+     *
+     * @param modifiers modifiers du membre lié.
+     * @param nom       {@link Binder#nom}.
+     */
+    protected Binder(int modifiers, String nom) {
+        statique = Modifier.isStatic(modifiers);
+        this.nom = nom;
+    }
+
+    /**
+     * Rempli l'objet avec le contenu de la balise.
+     *
+     * @param objet   objet courant (peut être null hors de la balise data).
+     * @param contenu contenu de la balise.
+     */
+    void lier(T objet, String contenu) {
+        if (statique || objet != null) {
+            try {
+                affecter(objet, contenu);
+            } catch (IllegalAccessException exception) {
+                throw new ApiException("Problème lors de l'appel à la méthode " + nom, exception);
+            } catch (InvocationTargetException exception) {
+                throw new ApiException("Problème lors de l'appel à la méthode " + nom, exception);
+            }
+        }
+    }
+
+    /**
+     * Rempli l'objet avec le contenu de la balise, lu directement dans le tableau de caractères du parser.
+     *
+     * @param objet    objet courant (peut être null hors de la balise data).
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère du contenu.
+     * @param longueur longueur du contenu.
+     * @param table    table de chaines canoniques (peut être null).
+     */
+    void lier(T objet, char[] cars, int debut, int longueur, TableIntern table) {
+        if (statique || objet != null) {
+            try {
+                affecter(objet, cars, debut, longueur, table);
+            } catch (IllegalAccessException exception) {
+                throw new ApiException("Problème lors de l'appel à la méthode " + nom, exception);
+            } catch (InvocationTargetException exception) {
+                throw new ApiException("Problème lors de l'appel à la méthode " + nom, exception);
+            }
+        }
+    }
+
+    /**
+     * Affecte le contenu converti au membre lié.
+     *
+     * @param objet   objet courant.
+     * @param contenu contenu de la balise.
+     * @throws IllegalAccessException    membre inaccessible.
+     * @throws InvocationTargetException exception levée par le setter.
+     */
+    protected abstract void affecter(T objet, String contenu)
+            throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Affecte le contenu converti au membre lié.
+     *
+     * @param objet    objet courant.
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère du contenu.
+     * @param longueur longueur du contenu.
+     * @param table    table de chaines canoniques (peut être null).
+     * @throws IllegalAccessException    membre inaccessible.
+     * @throws InvocationTargetException exception levée par le setter.
+     */
+    protected abstract void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+            throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Construit le binder d'un setter annoté.
+     *
+     * @param <T>     Objet représentant le xml.
+     * @param methode setter.
+     * @param type    type de la balise.
+     * @return le binder.
+     */
+    static <T> Binder<T> pourMethode(final Method methode, final BaliseType type) {
+        if (methode.getParameterTypes().length != 1) {
+            throw new ApiException("La méthode " + methode.getName() + " doit avoir un unique paramètre");
+        }
+        verifierType(methode.getName(), methode.getParameterTypes()[0], type);
+        methode.setAccessible(true);
+        return new Binder<T>(methode.getModifiers(), methode.getName()) {
+            @Override
+            protected void affecter(T objet, String contenu) throws IllegalAccessException,
+                    InvocationTargetException {
+                methode.invoke(objet, type.convertir(contenu));
+            }
+
+            @Override
+            protected void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+                    throws IllegalAccessException, InvocationTargetException {
+                if (type == BaliseType.STRING && table != null) {
+                    methode.invoke(objet, table.intern(cars, debut, longueur));
+                } else {
+                    methode.invoke(objet, type.convertir(cars, debut, longueur));
+                }
+            }
+        };
+    }
+
+    /**
+     * Construit le binder d'un champ annoté.
+     *
+     * @param <T>   Objet représentant le xml.
+     * @param champ champ.
+     * @param type  type de la balise.
+     * @return le binder.
+     */
+    static <T> Binder<T> pourChamp(final Field champ, final BaliseType type) {
+        if (Modifier.isFinal(champ.getModifiers())) {
+            throw new ApiException("Le champ " + champ.getName() + " ne doit pas être final");
+        }
+        verifierType(champ.getName(), champ.getType(), type);
+        champ.setAccessible(true);
+        switch (type) {
+            case STRING:
+                return new Binder<T>(champ.getModifiers(), champ.getName()) {
+                    @Override
+                    protected void affecter(T objet, String contenu) throws IllegalAccessException {
+                        champ.set(objet, contenu);
+                    }
+
+                    @Override
+                    protected void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+                            throws IllegalAccessException {
+                        champ.set(objet, table == null ? new String(cars, debut, longueur)
+                                : table.intern(cars, debut, longueur));
+                    }
+                };
+            case INTEGER:
+                return new Binder<T>(champ.getModifiers(), champ.getName()) {
+                    @Override
+                    protected void affecter(T objet, String contenu) throws IllegalAccessException {
+                        champ.setInt(objet, Integer.parseInt(contenu));
+                    }
+
+                    @Override
+                    protected void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+                            throws IllegalAccessException {
+                        champ.setInt(objet, type.convertirInt(cars, debut, longueur));
+                    }
+                };
+            case DOUBLE:
+                return new Binder<T>(champ.getModifiers(), champ.getName()) {
+                    @Override
+                    protected void affecter(T objet, String contenu) throws IllegalAccessException {
+                        champ.setDouble(objet, Double.parseDouble(contenu));
+                    }
+
+                    @Override
+                    protected void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+                            throws IllegalAccessException {
+                        champ.setDouble(objet, type.convertirDouble(cars, debut, longueur));
+                    }
+                };
+            case BOOLEAN:
+                return new Binder<T>(champ.getModifiers(), champ.getName()) {
+                    @Override
+                    protected void affecter(T objet, String contenu) throws IllegalAccessException {
+                        champ.setBoolean(objet, "1".equals(contenu));
+                    }
+
+                    @Override
+                    protected void affecter(T objet, char[] cars, int debut, int longueur, TableIntern table)
+                            throws IllegalAccessException {
+                        champ.setBoolean(objet, type.convertirBoolean(cars, debut, longueur));
+                    }
+                };
+            default:
+                throw new ApiException("Type de balise non géré : " + type);
+        }
+    }
+
+    /**
+     * Vérifie que le type du champ ou du paramètre du setter correspond au type de la balise.
+     *
+     * @param nomMembre  nom du champ ou de la méthode.
+     * @param typeMembre type du champ ou du paramètre.
+     * @param type       type de la balise.
+     */
+    private static void verifierType(String nomMembre, Class<?> typeMembre, BaliseType type) {
+        if (typeMembre != type.getTypeJava()) {
+            throw new ApiException(nomMembre + " doit être de type " + type.getTypeJava().getName());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Métadonnées d'une classe représentant le xml (balise data, constructeur, binders).
+ * <p/>
+ * Les annotations ne sont lues qu'une seule fois par classe : le descripteur est ensuite conservé dans un
+ * registre partagé et réutilisé par tous les handlers. Il est immuable une fois construit.
+ *
+ * @param <T> Objet représentant le xml.
+ */
+final class DescripteurClasse<T> {
+
+    /**
+     * Registre des descripteurs déjà construits.
+     */
+    private static final ConcurrentMap<Class<?>, DescripteurClasse<?>> REGISTRE =
+            new ConcurrentHashMap<Class<?>, DescripteurClasse<?>>();
+
+    /**
+     * Balise data.
+     */
+    private final String baliseData;
+
+    /**
+     * Constructeur de l'objet représentant le xml.
+     */
+    private final Constructor<T> constructor;
+
+    /**
+     * Index du slot associé à chaque balise xml.
+     */
+    private final Map<String, Integer> slots;
+
+    /**
+     * Binders, rangés par slot.
+     */
+    private final Binder<T>[] binders;
+
+    /**
+     * Champs d'instance de la classe, recopiés par {@link DescripteurClasse#copier(Object)}.
+     */
+    private final Field[] champs;
+
+    /**
+     * Récupère le descripteur d'une classe, en le construisant lors du premier appel.
+     *
+     * @param <T>   Objet représentant le xml.
+     * @param clazz Classe représentant le xml.
+     * @return le descripteur.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> DescripteurClasse<T> pour(Class<T> clazz) {
+        DescripteurClasse<?> descripteur = REGISTRE.get(clazz);
+        if (descripteur == null) {
+            descripteur = new DescripteurClasse<T>(clazz);
+            DescripteurClasse<?> existant = REGISTRE.putIfAbsent(clazz, descripteur);
+            if (existant != null) {
+                descripteur = existant;
+            }
+        }
+        return (DescripteurClasse<T>) descripteur;
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param clazz Classe représentant le xml.
+     */
+    private DescripteurClasse(Class<T> clazz) {
+        BaliseData annotationData = clazz.getAnnotation(BaliseData.class);
+        if (annotationData == null) {
+            throw new ApiException("Pas d'annotation BaliseData trouvée pour la classe " + clazz);
+        }
+        baliseData = annotationData.value();
+        try {
+            constructor = clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException exception) {
+            throw new ApiException("Le constructeur n'a pas été trouvé", exception);
+        }
+
+        Map<String, Integer> mapSlots = new HashMap<String, Integer>();
+        List<Binder<T>> listeBinders = new ArrayList<Binder<T>>();
+        for (Method method : clazz.getDeclaredMethods()) {
+            BaliseXml baliseXml = method.getAnnotation(BaliseXml.class);
+            if (baliseXml != null) {
+                ajouterBinder(mapSlots, listeBinders, baliseXml, Binder.<T>pourMethode(method, baliseXml.type()));
+            }
+        }
+        for (Field field : clazz.getDeclaredFields()) {
+            BaliseXml baliseXml = field.getAnnotation(BaliseXml.class);
+            if (baliseXml != null) {
+                ajouterBinder(mapSlots, listeBinders, baliseXml, Binder.<T>pourChamp(field, baliseXml.type()));
+            }
+        }
+        List<Field> listeChamps = new ArrayList<Field>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                listeChamps.add(field);
+            }
+        }
+        champs = listeChamps.toArray(new Field[listeChamps.size()]);
+        slots = mapSlots;
+        binders = listeBinders.toArray(DescripteurClasse.<T>nouveauTableau(listeBinders.size()));
+    }
+
+    /**
+     * @param <T>    Objet représentant le xml.
+     * @param taille taille du tableau.
+     * @return un tableau de binders vide.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Binder<T>[] nouveauTableau(int taille) {
+        return (Binder<T>[]) new Binder<?>[taille];
+    }
+
+    /**
+     * Ajoute un binder en vérifiant l'unicité de la balise.
+     *
+     * @param mapSlots     slots déjà attribués.
+     * @param listeBinders binders déjà construits.
+     * @param baliseXml    annotation du membre.
+     * @param binder       binder du membre.
+     */
+    private void ajouterBinder(Map<String, Integer> mapSlots, List<Binder<T>> listeBinders, BaliseXml baliseXml,
+                               Binder<T> binder) {
+        if (mapSlots.containsKey(baliseXml.name())) {
+            throw new ApiException("Deux méthodes trouvées avec la même baliseXml");
+        }
+        mapSlots.put(baliseXml.name(), listeBinders.size());
+        listeBinders.add(binder);
+    }
+
+    /**
+     * @return {@link DescripteurClasse#baliseData}.
+     */
+    String getBaliseData() {
+        return baliseData;
+    }
+
+    /**
+     * Donne le slot associé à une balise.
+     *
+     * @param baliseName nom de la balise.
+     * @return le slot, ou -1 si la balise n'est pas liée.
+     */
+    int getSlot(String baliseName) {
+        Integer slot = slots.get(baliseName);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param slot slot obtenu par {@link DescripteurClasse#getSlot(String)}.
+     * @return le binder du slot.
+     */
+    Binder<T> getBinder(int slot) {
+        return binders[slot];
+    }
+
+    /**
+     * @return nouvel objet représentant le xml.
+     */
+    T nouvelObjet() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new ApiException("Problème lors de l'appel au constructeur", e);
+        } catch (IllegalAccessException e) {
+            throw new ApiException("Problème lors de l'appel au constructeur", e);
+        } catch (InvocationTargetException e) {
+            throw new ApiException("Problème lors de l'appel au constructeur", e);
+        }
+    }
+
+    /**
+     * Copie un objet représentant le xml : nouvel objet dont tous les champs d'instance ont la valeur de ceux de
+     * l'objet copié (les dates, modifiables, sont elles-mêmes copiées).
+     *
+     * @param objet objet à copier.
+     * @return la copie.
+     */
+    T copier(T objet) {
+        T copie = nouvelObjet();
+        try {
+            for (Field champ : champs) {
+                Object valeur = champ.get(objet);
+                if (valeur instanceof Date) {
+                    valeur = new Date(((Date) valeur).getTime());
+                }
+                champ.set(copie, valeur);
+            }
+        } catch (IllegalAccessException exception) {
+            throw new ApiException("Problème lors de la copie d'un objet", exception);
+        }
+        return copie;
+    }
+}
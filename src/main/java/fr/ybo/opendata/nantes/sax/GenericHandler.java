@@ -13,17 +13,10 @@
  */
 package fr.ybo.opendata.nantes.sax;
 
-import fr.ybo.opendata.nantes.exceptions.ApiException;
-
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Handler SAX générique pour les apis OpenData..
+ * Les métadonnées de la classe sont lues une seule fois (voir {@link DescripteurClasse}) :
+ * la construction d'un handler ne coûte donc rien.
  *
  * @param <T> Objet représentant le xml.
  * @author ybonnel
@@ -31,83 +24,53 @@ import java.util.Map;
 public class GenericHandler<T> extends ApiHandler<T> {
 
     /**
-     * Balise data.
-     */
-    private String baliseData;
-
-    /**
-     * Map contenant la méthode à appelée pour chaque balise xml.
-     */
-    private Map<String, Method> mapBaliseMethod = new HashMap<String, Method>();
-    /**
-     * Map contenant le type associé à chaque balise xml.
-     */
-    private Map<String, BaliseType> mapBaliseType = new HashMap<String, BaliseType>();
-
-    /**
-     * Constructeur de l'objet représentant le xml.
+     * Métadonnées de la classe représentant le xml.
      */
-    private Constructor<T> constructor;
+    private final DescripteurClasse<T> descripteur;
 
     /**
      * @param clazz Classe représentant le xml.
      */
     public GenericHandler(Class<T> clazz) {
-        BaliseData annotationData = clazz.getAnnotation(BaliseData.class);
-        if (annotationData == null) {
-            throw new ApiException("Pas d'annotation BaliseData trouvée pour la classe " + clazz);
-        }
-        baliseData = annotationData.value();
-        try {
-            constructor = clazz.getDeclaredConstructor();
-        } catch (NoSuchMethodException exception) {
-            throw new ApiException("Le constructeur n'a pas été trouvé", exception);
-        }
-
-        for (Method method : clazz.getDeclaredMethods()) {
-            BaliseXml baliseXml = method.getAnnotation(BaliseXml.class);
-            if (baliseXml != null) {
-                if (mapBaliseMethod.containsKey(baliseXml.name())) {
-                    throw new ApiException("Deux méthodes trouvées avec la même baliseXml");
-                }
-                mapBaliseMethod.put(baliseXml.name(), method);
-                mapBaliseType.put(baliseXml.name(), baliseXml.type());
-            }
-        }
+        descripteur = DescripteurClasse.pour(clazz);
     }
 
     @Override
     protected String getBaliseData() {
-        return baliseData;
+        return descripteur.getBaliseData();
     }
 
     @Override
     protected T getNewObjet() {
-        try {
-            return constructor.newInstance();
-        } catch (InstantiationException e) {
-            throw new ApiException("Problème lors de l'appel au constructeur", e);
-        } catch (IllegalAccessException e) {
-            throw new ApiException("Problème lors de l'appel au constructeur", e);
-        } catch (InvocationTargetException e) {
-            throw new ApiException("Problème lors de l'appel au constructeur", e);
-        }
+        return descripteur.nouvelObjet();
+    }
+
+    @Override
+    public T copier(T objet) {
+        return descripteur.copier(objet);
+    }
+
+    @Override
+    protected boolean isBaliseUtile(String baliseName) {
+        return descripteur.getSlot(baliseName) >= 0;
     }
 
     @Override
     protected void remplirObject(T currentObject, String baliseName, String contenuOfBalise) {
-        if (contenuOfBalise.length() > 0 && mapBaliseMethod.containsKey(baliseName)) {
-            try {
-                if (Modifier.isStatic(mapBaliseMethod.get(baliseName).getModifiers()) || currentObject != null) {
-                    mapBaliseMethod.get(baliseName)
-                            .invoke(currentObject, mapBaliseType.get(baliseName).convertir(contenuOfBalise));
-                }
-            } catch (IllegalAccessException e) {
-                throw new ApiException(
-                        "Problème lors de l'appel à la méthode " + mapBaliseMethod.get(baliseName).getName(), e);
-            } catch (InvocationTargetException e) {
-                throw new ApiException(
-                        "Problème lors de l'appel à la méthode " + mapBaliseMethod.get(baliseName).getName(), e);
+        if (contenuOfBalise.length() > 0) {
+            int slot = descripteur.getSlot(baliseName);
+            if (slot >= 0) {
+                descripteur.getBinder(slot).lier(currentObject, contenuOfBalise);
+            }
+        }
+    }
+
+    @Override
+    protected void remplirObject(T currentObject, String baliseName, char[] cars, int debut, int longueur) {
+        if (longueur > 0) {
+            int slot = descripteur.getSlot(baliseName);
+            if (slot >= 0) {
+                descripteur.getBinder(slot).lier(currentObject, cars, debut, longueur, getTableIntern());
             }
         }
     }
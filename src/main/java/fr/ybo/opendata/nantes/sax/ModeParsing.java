@@ -0,0 +1,49 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+/**
+ * Moteurs de parsing disponibles.
+ */
+public enum ModeParsing {
+    /**
+     * Parsing SAX (moteur historique).
+     */
+    SAX(new MoteurSax()),
+    /**
+     * Parsing StAX.
+     */
+    STAX(new MoteurStax());
+
+    /**
+     * Moteur associé au mode.
+     */
+    private final MoteurXml moteur;
+
+    /**
+     * Constructeur.
+     *
+     * @param moteur {@link ModeParsing#moteur}.
+     */
+    ModeParsing(MoteurXml moteur) {
+        this.moteur = moteur;
+    }
+
+    /**
+     * @return {@link ModeParsing#moteur}.
+     */
+    public MoteurXml getMoteur() {
+        return moteur;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.Answer;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Moteur de parsing SAX : les évènements sont transmis au handler par ses callbacks {@link ApiHandler}.
+ * Les parsers sont réutilisés d'un appel à l'autre grâce à un {@link PoolParseurSax}.
+ */
+public class MoteurSax implements MoteurXml {
+
+    /**
+     * Pool de parsers.
+     */
+    private final PoolParseurSax pool;
+
+    /**
+     * Constructeur avec un pool de taille par défaut.
+     */
+    public MoteurSax() {
+        this(new PoolParseurSax());
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param pool {@link MoteurSax#pool}.
+     */
+    public MoteurSax(PoolParseurSax pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return {@link MoteurSax#pool}.
+     */
+    public PoolParseurSax getPool() {
+        return pool;
+    }
+
+    @Override
+    public <T> Answer<T> parser(InputStream inputStream, ApiHandler<T> handler) throws ApiReseauException {
+        try {
+            SAXParser parser = pool.emprunter();
+            try {
+                parser.parse(inputStream, handler);
+            } finally {
+                pool.rendre(parser);
+            }
+            return handler.getAnswer();
+        } catch (IOException ioException) {
+            throw new ApiReseauException(ioException);
+        } catch (SAXException saxException) {
+            throw new ApiReseauException(saxException);
+        } catch (ParserConfigurationException exception) {
+            throw new ApiException("Erreur lors de l'appel à l'API OpenData", exception);
+        }
+    }
+}
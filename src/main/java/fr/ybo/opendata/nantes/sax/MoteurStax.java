@@ -0,0 +1,160 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.Answer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Moteur de parsing StAX.
+ * <p/>
+ * Le document est parcouru en mode pull : les fils de la racine autres que answer (l'url de la requête
+ * notamment) sont sautés sans être analysés, et seul le texte des balises utiles au handler est lu, directement
+ * dans le tampon du handler.
+ */
+public class MoteurStax implements MoteurXml {
+
+    /**
+     * Factory StAX, créée une seule fois.
+     */
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    @Override
+    public <T> Answer<T> parser(InputStream inputStream, ApiHandler<T> handler) throws ApiReseauException {
+        try {
+            XMLStreamReader reader;
+            // La factory n'est pas garantie thread-safe.
+            synchronized (FACTORY) {
+                reader = FACTORY.createXMLStreamReader(inputStream);
+            }
+            try {
+                parcourir(reader, handler);
+            } finally {
+                reader.close();
+            }
+            return handler.getAnswer();
+        } catch (XMLStreamException exception) {
+            throw new ApiReseauException(exception);
+        }
+    }
+
+    /**
+     * Parcours du document.
+     *
+     * @param <T>     type d'objet OpenDataApi.
+     * @param reader  reader StAX.
+     * @param handler handler à alimenter.
+     * @throws XMLStreamException xml invalide.
+     */
+    private <T> void parcourir(XMLStreamReader reader, ApiHandler<T> handler) throws XMLStreamException {
+        String baliseData = handler.getBaliseData();
+        int profondeur = 0;
+        while (reader.hasNext()) {
+            int evenement = reader.next();
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                String nom = reader.getLocalName();
+                if (profondeur == 1 && !ApiHandler.ANSWER.equals(nom)) {
+                    sauterElement(reader);
+                } else if (handler.hasReponse() && handler.isBaliseUtile(nom)) {
+                    lireContenu(reader, handler);
+                    handler.remplir(nom);
+                } else {
+                    profondeur++;
+                    if (ApiHandler.ANSWER.equals(nom)) {
+                        handler.debutReponse();
+                    } else if (handler.hasReponse() && ApiHandler.STATUS.equals(nom)) {
+                        handler.status(reader.getAttributeValue(null, ApiHandler.CODE),
+                                reader.getAttributeValue(null, ApiHandler.MESSAGE));
+                    } else if (handler.hasReponse() && nom.equals(baliseData)) {
+                        handler.debutObjet();
+                    }
+                }
+            } else if (evenement == XMLStreamConstants.END_ELEMENT) {
+                profondeur--;
+                if (handler.hasReponse() && reader.getLocalName().equals(baliseData)) {
+                    handler.finObjet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Saute l'élément courant et tous ses fils.
+     *
+     * @param reader reader positionné sur le début de l'élément.
+     * @throws XMLStreamException xml invalide.
+     */
+    private static void sauterElement(XMLStreamReader reader) throws XMLStreamException {
+        int profondeur = 1;
+        while (profondeur > 0) {
+            int evenement = reader.next();
+            if (evenement == XMLStreamConstants.START_ELEMENT) {
+                profondeur++;
+            } else if (evenement == XMLStreamConstants.END_ELEMENT) {
+                profondeur--;
+            }
+        }
+    }
+
+    /**
+     * Accumule le texte de l'élément courant dans le tampon du handler, jusqu'à la fin de l'élément.
+     * Comme avec le moteur SAX, un élément fils est lu à son tour (et lié s'il est utile), et le texte qui le
+     * précède est oublié : seul le texte qui suit le dernier fils reste dans le tampon.
+     *
+     * @param reader  reader positionné sur le début de l'élément.
+     * @param handler handler dont le tampon est alimenté.
+     * @throws XMLStreamException xml invalide.
+     */
+    private static void lireContenu(XMLStreamReader reader, ApiHandler<?> handler) throws XMLStreamException {
+        handler.viderContenu();
+        while (true) {
+            int evenement = reader.next();
+            switch (evenement) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    handler.ajouterContenu(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    String texte = reader.getText();
+                    handler.ajouterContenu(texte.toCharArray(), 0, texte.length());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return;
+                case XMLStreamConstants.START_ELEMENT:
+                    String fils = reader.getLocalName();
+                    lireContenu(reader, handler);
+                    if (handler.isBaliseUtile(fils)) {
+                        handler.remplir(fils);
+                    }
+                    handler.viderContenu();
+                    break;
+                default:
+                    // Commentaires et instructions de traitement ignorés.
+                    break;
+            }
+        }
+    }
+}
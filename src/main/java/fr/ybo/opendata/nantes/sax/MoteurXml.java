@@ -0,0 +1,39 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.Answer;
+
+import java.io.InputStream;
+
+/**
+ * Moteur de parsing des réponses xml de l'API.
+ * Les implémentations doivent pouvoir être partagées entre plusieurs threads.
+ *
+ * @see ModeParsing
+ */
+public interface MoteurXml {
+
+    /**
+     * Parse le flux xml en alimentant le handler.
+     *
+     * @param <T>         type d'objet OpenDataApi.
+     * @param inputStream flux xml (il n'est pas fermé par le moteur).
+     * @param handler     handler à alimenter.
+     * @return la réponse construite par le handler.
+     * @throws ApiReseauException en cas d'erreur de lecture ou de xml invalide.
+     */
+    <T> Answer<T> parser(InputStream inputStream, ApiHandler<T> handler) throws ApiReseauException;
+}
@@ -0,0 +1,145 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool borné de {@link SAXParser} réutilisables, partageable entre plusieurs threads.
+ * <p/>
+ * Un parser est emprunté pour la durée d'un parsing, puis remis à zéro ({@link SAXParser#reset()}) et rendu.
+ * Si le pool est vide un nouveau parser est créé (miss), si le pool est plein le parser rendu est abandonné.
+ */
+public class PoolParseurSax {
+
+    /**
+     * Taille par défaut du pool.
+     */
+    public static final int TAILLE_DEFAUT = 8;
+
+    /**
+     * Factory SAX, créée une seule fois (la recherche de l'implémentation est coûteuse).
+     */
+    private static final SAXParserFactory FACTORY = SAXParserFactory.newInstance();
+
+    /**
+     * Nombre maximum de parsers conservés.
+     */
+    private final int tailleMax;
+
+    /**
+     * Parsers disponibles.
+     */
+    private final BlockingQueue<SAXParser> parseurs;
+
+    /**
+     * Nombre d'emprunts servis par un parser du pool.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Nombre d'emprunts ayant nécessité la création d'un parser.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructeur avec la taille par défaut.
+     */
+    public PoolParseurSax() {
+        this(TAILLE_DEFAUT);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param tailleMax {@link PoolParseurSax#tailleMax}.
+     */
+    public PoolParseurSax(int tailleMax) {
+        if (tailleMax < 1) {
+            throw new IllegalArgumentException("La taille du pool doit être positive : " + tailleMax);
+        }
+        this.tailleMax = tailleMax;
+        parseurs = new ArrayBlockingQueue<SAXParser>(tailleMax);
+    }
+
+    /**
+     * Emprunte un parser, à rendre par {@link PoolParseurSax#rendre(SAXParser)}.
+     *
+     * @return un parser prêt à l'emploi.
+     * @throws ParserConfigurationException problème de configuration.
+     * @throws SAXException                 problème lors de la création du parser.
+     */
+    SAXParser emprunter() throws ParserConfigurationException, SAXException {
+        SAXParser parser = parseurs.poll();
+        if (parser != null) {
+            hits.incrementAndGet();
+            return parser;
+        }
+        misses.incrementAndGet();
+        // La factory n'est pas garantie thread-safe.
+        synchronized (FACTORY) {
+            return FACTORY.newSAXParser();
+        }
+    }
+
+    /**
+     * Rend un parser au pool.
+     *
+     * @param parser parser emprunté.
+     */
+    void rendre(SAXParser parser) {
+        try {
+            parser.reset();
+        } catch (UnsupportedOperationException exception) {
+            // Parser non réutilisable.
+            return;
+        }
+        parseurs.offer(parser);
+    }
+
+    /**
+     * @return {@link PoolParseurSax#tailleMax}.
+     */
+    public int getTailleMax() {
+        return tailleMax;
+    }
+
+    /**
+     * @return nombre de parsers actuellement disponibles dans le pool.
+     */
+    public int getNbDisponibles() {
+        return parseurs.size();
+    }
+
+    /**
+     * @return {@link PoolParseurSax#hits}.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return {@link PoolParseurSax#misses}.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+/**
+ * Reçoit les objets OpenDataApi au fil du parsing, dès la fermeture de leur balise data.
+ *
+ * @param <T> type d'objet OpenDataApi.
+ */
+public interface RecepteurObjet<T> {
+
+    /**
+     * Appelé pour chaque objet, dans l'ordre du document.
+     *
+     * @param objet objet complètement rempli.
+     */
+    void recevoir(T objet);
+}
@@ -0,0 +1,181 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.sax;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table bornée de chaines canoniques, pour dédupliquer les valeurs qui se répètent d'un appel à l'autre
+ * (noms et identifiants de parkings, tronçons...).
+ * <p/>
+ * La table est un cache à correspondance directe : chaque valeur a une seule case possible, déterminée par son
+ * hash, et une nouvelle valeur remplace celle qui occupait sa case. La recherche se fait directement sur le
+ * tampon du parser : aucune chaine n'est créée quand la valeur est trouvée.
+ * La table peut être partagée entre plusieurs threads (les chaines étant immuables, une écriture concurrente ne
+ * fait que remplacer une valeur canonique par une autre).
+ */
+public class TableIntern {
+
+    /**
+     * Taille maximum de la table.
+     */
+    private static final int TAILLE_MAX = 1 << 30;
+
+    /**
+     * Multiplicateur du hash, identique à celui de {@link String#hashCode()}.
+     */
+    private static final int MULTIPLICATEUR_HASH = 31;
+
+    /**
+     * Décalage pour mélanger les bits de poids fort du hash dans l'index de la case.
+     */
+    private static final int DECALAGE_HASH = 16;
+
+    /**
+     * Cases de la table.
+     */
+    private final String[] chaines;
+
+    /**
+     * Masque donnant la case d'un hash.
+     */
+    private final int masque;
+
+    /**
+     * Nombre de valeurs trouvées dans la table.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Nombre de valeurs absentes de la table.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructeur.
+     *
+     * @param taille nombre de cases (arrondi à la puissance de deux supérieure).
+     */
+    public TableIntern(int taille) {
+        if (taille < 1 || taille > TAILLE_MAX) {
+            throw new IllegalArgumentException("Taille de table invalide : " + taille);
+        }
+        int puissance = Integer.highestOneBit(taille);
+        if (puissance < taille) {
+            puissance <<= 1;
+        }
+        chaines = new String[puissance];
+        masque = puissance - 1;
+    }
+
+    /**
+     * Renvoie la chaine canonique correspondant aux caractères.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère.
+     * @param longueur nombre de caractères.
+     * @return la chaine canonique.
+     */
+    public String intern(char[] cars, int debut, int longueur) {
+        int hash = 0;
+        for (int index = debut; index < debut + longueur; index++) {
+            hash = MULTIPLICATEUR_HASH * hash + cars[index];
+        }
+        int caseChaine = indexCase(hash);
+        String existante = chaines[caseChaine];
+        if (existante != null && egales(existante, cars, debut, longueur)) {
+            hits.incrementAndGet();
+            return existante;
+        }
+        misses.incrementAndGet();
+        String chaine = new String(cars, debut, longueur);
+        chaines[caseChaine] = chaine;
+        return chaine;
+    }
+
+    /**
+     * Renvoie la chaine canonique égale à la chaine fournie.
+     *
+     * @param chaine chaine.
+     * @return la chaine canonique.
+     */
+    public String intern(String chaine) {
+        int caseChaine = indexCase(chaine.hashCode());
+        String existante = chaines[caseChaine];
+        if (chaine.equals(existante)) {
+            hits.incrementAndGet();
+            return existante;
+        }
+        misses.incrementAndGet();
+        chaines[caseChaine] = chaine;
+        return chaine;
+    }
+
+    /**
+     * @param hash hash de la chaine (même calcul que {@link String#hashCode()}).
+     * @return index de la case.
+     */
+    private int indexCase(int hash) {
+        return (hash ^ (hash >>> DECALAGE_HASH)) & masque;
+    }
+
+    /**
+     * @param chaine   chaine.
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère.
+     * @param longueur nombre de caractères.
+     * @return vrai si la chaine est égale aux caractères.
+     */
+    private static boolean egales(String chaine, char[] cars, int debut, int longueur) {
+        if (chaine.length() != longueur) {
+            return false;
+        }
+        for (int index = 0; index < longueur; index++) {
+            if (chaine.charAt(index) != cars[debut + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return nombre de cases de la table.
+     */
+    public int getTaille() {
+        return chaines.length;
+    }
+
+    /**
+     * @return {@link TableIntern#hits}.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return {@link TableIntern#misses}.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return proportion des valeurs trouvées dans la table (entre 0 et 1).
+     */
+    public double getTauxHits() {
+        long nbHits = hits.get();
+        long total = nbHits + misses.get();
+        return total == 0 ? 0 : (double) nbHits / total;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+/**
+ * Arbre k-d immuable de points géographiques, pour les recherches des plus proches voisins et des points dans un rayon.
+ * <p/>
+ * Les coordonnées sont projetées une fois pour toutes en mètres (projection équirectangulaire autour de la latitude
+ * moyenne des points, précise à l'échelle d'une agglomération). L'arbre est implicite : les points sont rangés dans
+ * des tableaux de doubles de sorte que chaque sous-arbre occupe une plage contiguë dont l'élément du milieu est la
+ * racine ; aucun objet n'est créé par nœud.
+ */
+public final class ArbreKd {
+
+    /**
+     * Rayon moyen de la Terre (m).
+     */
+    private static final double RAYON_TERRE = 6371008.8;
+
+    /**
+     * Capacité initiale du résultat d'une recherche dans un rayon.
+     */
+    private static final int CAPACITE_RAYON = 16;
+
+    /**
+     * Filtre des points acceptés par une recherche.
+     */
+    public interface Filtre {
+        /**
+         * @param position position du point (dans les tableaux fournis à la construction).
+         * @return vrai si le point est accepté.
+         */
+        boolean accepte(int position);
+    }
+
+    /**
+     * Cosinus de la latitude de référence.
+     */
+    private final double cosLatitude;
+
+    /**
+     * Abscisses projetées (m), dans l'ordre de l'arbre.
+     */
+    private final double[] xs;
+
+    /**
+     * Ordonnées projetées (m), dans l'ordre de l'arbre.
+     */
+    private final double[] ys;
+
+    /**
+     * Position d'origine de chaque point, dans l'ordre de l'arbre.
+     */
+    private final int[] positions;
+
+    /**
+     * Construit l'arbre. Les points sans coordonnées (NaN) sont ignorés.
+     *
+     * @param latitudes  latitudes (degrés).
+     * @param longitudes longitudes (degrés).
+     */
+    public ArbreKd(double[] latitudes, double[] longitudes) {
+        int taille = 0;
+        double sommeLatitudes = 0;
+        for (int position = 0; position < latitudes.length; position++) {
+            if (!Double.isNaN(latitudes[position]) && !Double.isNaN(longitudes[position])) {
+                taille++;
+                sommeLatitudes += latitudes[position];
+            }
+        }
+        cosLatitude = taille == 0 ? 1 : Math.cos(Math.toRadians(sommeLatitudes / taille));
+        xs = new double[taille];
+        ys = new double[taille];
+        positions = new int[taille];
+        int index = 0;
+        for (int position = 0; position < latitudes.length; position++) {
+            if (!Double.isNaN(latitudes[position]) && !Double.isNaN(longitudes[position])) {
+                xs[index] = x(longitudes[position]);
+                ys[index] = y(latitudes[position]);
+                positions[index] = position;
+                index++;
+            }
+        }
+        construire(0, taille, true);
+    }
+
+    /**
+     * @param longitude longitude (degrés).
+     * @return abscisse projetée (m).
+     */
+    private double x(double longitude) {
+        return Math.toRadians(longitude) * cosLatitude * RAYON_TERRE;
+    }
+
+    /**
+     * @param latitude latitude (degrés).
+     * @return ordonnée projetée (m).
+     */
+    private static double y(double latitude) {
+        return Math.toRadians(latitude) * RAYON_TERRE;
+    }
+
+    /**
+     * @return nombre de points de l'arbre.
+     */
+    public int getTaille() {
+        return positions.length;
+    }
+
+    /**
+     * Recherche des plus proches voisins.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param nombre    nombre maximum de points.
+     * @param filtre    filtre (null pour accepter tous les points).
+     * @return les points acceptés les plus proches, par distance croissante.
+     */
+    public ResultatSpatial plusProches(double latitude, double longitude, int nombre, Filtre filtre) {
+        if (nombre < 1) {
+            return ResultatSpatial.VIDE;
+        }
+        Tas tas = new Tas(nombre, Math.min(nombre, positions.length));
+        chercher(0, positions.length, true, x(longitude), y(latitude), Double.POSITIVE_INFINITY, filtre, tas);
+        return tas.resultat();
+    }
+
+    /**
+     * Recherche des points dans un rayon.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param rayon     rayon (m).
+     * @param filtre    filtre (null pour accepter tous les points).
+     * @return les points acceptés à une distance inférieure ou égale au rayon, par distance croissante.
+     */
+    public ResultatSpatial dansRayon(double latitude, double longitude, double rayon, Filtre filtre) {
+        Tas tas = new Tas(Integer.MAX_VALUE, Math.min(positions.length, CAPACITE_RAYON));
+        chercher(0, positions.length, true, x(longitude), y(latitude), rayon * rayon, filtre, tas);
+        return tas.resultat();
+    }
+
+    /**
+     * Parcours d'un sous-arbre.
+     *
+     * @param debut       début de la plage du sous-arbre.
+     * @param fin         fin (exclue) de la plage du sous-arbre.
+     * @param axeX        vrai si le sous-arbre est séparé selon les abscisses.
+     * @param x           abscisse recherchée.
+     * @param y           ordonnée recherchée.
+     * @param distanceMax carré de la distance maximum.
+     * @param filtre      filtre.
+     * @param tas         points retenus.
+     */
+    private void chercher(int debut, int fin, boolean axeX, double x, double y, double distanceMax, Filtre filtre,
+                          Tas tas) {
+        if (debut >= fin) {
+            return;
+        }
+        int milieu = (debut + fin) >>> 1;
+        double dx = x - xs[milieu];
+        double dy = y - ys[milieu];
+        double distance = dx * dx + dy * dy;
+        if (distance <= Math.min(distanceMax, tas.getPire()) && (filtre == null || filtre.accepte(positions[milieu]))) {
+            tas.ajouter(distance, positions[milieu]);
+        }
+        double ecart = axeX ? dx : dy;
+        if (ecart < 0) {
+            chercher(debut, milieu, !axeX, x, y, distanceMax, filtre, tas);
+            if (ecart * ecart <= Math.min(distanceMax, tas.getPire())) {
+                chercher(milieu + 1, fin, !axeX, x, y, distanceMax, filtre, tas);
+            }
+        } else {
+            chercher(milieu + 1, fin, !axeX, x, y, distanceMax, filtre, tas);
+            if (ecart * ecart <= Math.min(distanceMax, tas.getPire())) {
+                chercher(debut, milieu, !axeX, x, y, distanceMax, filtre, tas);
+            }
+        }
+    }
+
+    /**
+     * Range une plage de points en sous-arbre : la médiane selon l'axe au milieu, les points inférieurs avant,
+     * les points supérieurs après, puis chaque moitié selon l'autre axe.
+     *
+     * @param debut début de la plage.
+     * @param fin   fin (exclue) de la plage.
+     * @param axeX  vrai pour séparer selon les abscisses.
+     */
+    private void construire(int debut, int fin, boolean axeX) {
+        if (fin - debut <= 1) {
+            return;
+        }
+        int milieu = (debut + fin) >>> 1;
+        selectionner(debut, fin - 1, milieu, axeX ? xs : ys);
+        construire(debut, milieu, !axeX);
+        construire(milieu + 1, fin, !axeX);
+    }
+
+    /**
+     * Sélection rapide (Hoare) : place au rang demandé l'élément qui y serait si la plage était triée.
+     *
+     * @param debut       début de la plage.
+     * @param dernier     dernier index (inclus) de la plage.
+     * @param rang        rang recherché.
+     * @param coordonnees coordonnées de l'axe.
+     */
+    private void selectionner(int debut, int dernier, int rang, double[] coordonnees) {
+        int gauche = debut;
+        int droite = dernier;
+        while (gauche < droite) {
+            double pivot = coordonnees[(gauche + droite) >>> 1];
+            int i = gauche;
+            int j = droite;
+            while (i <= j) {
+                while (coordonnees[i] < pivot) {
+                    i++;
+                }
+                while (coordonnees[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    echanger(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (rang <= j) {
+                droite = j;
+            } else if (rang >= i) {
+                gauche = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param i index d'un point.
+     * @param j index d'un autre point.
+     */
+    private void echanger(int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int position = positions[i];
+        positions[i] = positions[j];
+        positions[j] = position;
+    }
+
+    /**
+     * Tas max borné des points retenus, par carré de distance.
+     */
+    private static final class Tas {
+        /**
+         * Nombre maximum de points.
+         */
+        private final int borne;
+        /**
+         * Carrés des distances.
+         */
+        private double[] distances;
+        /**
+         * Positions.
+         */
+        private int[] positionsTas;
+        /**
+         * Nombre de points.
+         */
+        private int taille;
+
+        /**
+         * @param borne    {@link Tas#borne}.
+         * @param capacite capacité initiale.
+         */
+        private Tas(int borne, int capacite) {
+            this.borne = borne;
+            distances = new double[Math.max(1, capacite)];
+            positionsTas = new int[distances.length];
+        }
+
+        /**
+         * @return carré de distance à battre pour être retenu.
+         */
+        private double getPire() {
+            return taille < borne ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        /**
+         * @param distance carré de la distance.
+         * @param position position du point.
+         */
+        private void ajouter(double distance, int position) {
+            if (taille < borne) {
+                if (taille == distances.length) {
+                    int capacite = distances.length << 1;
+                    double[] nouvellesDistances = new double[capacite];
+                    int[] nouvellesPositions = new int[capacite];
+                    System.arraycopy(distances, 0, nouvellesDistances, 0, taille);
+                    System.arraycopy(positionsTas, 0, nouvellesPositions, 0, taille);
+                    distances = nouvellesDistances;
+                    positionsTas = nouvellesPositions;
+                }
+                // Remontée depuis la dernière feuille.
+                int index = taille++;
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    distances[index] = distances[parent];
+                    positionsTas[index] = positionsTas[parent];
+                    index = parent;
+                }
+                distances[index] = distance;
+                positionsTas[index] = position;
+            } else if (distance < distances[0]) {
+                descendre(distance, position, taille);
+            }
+        }
+
+        /**
+         * Remplace la racine et rétablit le tas.
+         *
+         * @param distance  carré de la distance du nouvel élément.
+         * @param position  position du nouvel élément.
+         * @param tailleTas nombre d'éléments du tas.
+         */
+        private void descendre(double distance, int position, int tailleTas) {
+            int index = 0;
+            while (true) {
+                int enfant = 2 * index + 1;
+                if (enfant >= tailleTas) {
+                    break;
+                }
+                if (enfant + 1 < tailleTas && distances[enfant + 1] > distances[enfant]) {
+                    enfant++;
+                }
+                if (distances[enfant] <= distance) {
+                    break;
+                }
+                distances[index] = distances[enfant];
+                positionsTas[index] = positionsTas[enfant];
+                index = enfant;
+            }
+            distances[index] = distance;
+            positionsTas[index] = position;
+        }
+
+        /**
+         * Vide le tas en rangeant ses éléments par distance croissante.
+         *
+         * @return les points retenus.
+         */
+        private ResultatSpatial resultat() {
+            int nombre = taille;
+            double[] distancesTriees = new double[nombre];
+            int[] positionsTriees = new int[nombre];
+            for (int rang = nombre - 1; rang >= 0; rang--) {
+                distancesTriees[rang] = Math.sqrt(distances[0]);
+                positionsTriees[rang] = positionsTas[0];
+                descendre(distances[rang], positionsTas[rang], rang);
+            }
+            taille = 0;
+            return new ResultatSpatial(positionsTriees, distancesTriees);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+/**
+ * Connecteur gérant les requêtes conditionnelles (entêtes If-None-Match et If-Modified-Since) : le serveur peut
+ * alors répondre que le contenu n'a pas changé depuis le dernier appel, sans le renvoyer.
+ */
+public interface ConnecteurConditionnel extends Connecteur {
+
+    /**
+     * Ouvre l'url si son contenu a changé.
+     *
+     * @param url          l'url.
+     * @param etag         ETag du dernier contenu reçu (null si inconnu).
+     * @param lastModified Last-Modified du dernier contenu reçu (null si inconnu).
+     * @return la réponse, éventuellement {@link ReponseConditionnelle#isNonModifiee() non modifiée}.
+     * @throws ApiReseauException si un problème réseaux est rencontré.
+     */
+    ReponseConditionnelle openInputStream(String url, String etag, String lastModified) throws ApiReseauException;
+}
@@ -0,0 +1,36 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+/**
+ * Ecouteur de la fin d'un appel asynchrone (voir {@link ResultatAsync}).
+ *
+ * @param <T> type du résultat.
+ */
+public interface EcouteurResultat<T> {
+
+    /**
+     * Appelé quand l'appel a réussi.
+     *
+     * @param resultat résultat de l'appel.
+     */
+    void succes(T resultat);
+
+    /**
+     * Appelé quand l'appel a échoué ou a été annulé.
+     *
+     * @param erreur erreur rencontrée (par exemple {@link fr.ybo.opendata.nantes.exceptions.ApiReseauException}).
+     */
+    void erreur(Throwable erreur);
+}
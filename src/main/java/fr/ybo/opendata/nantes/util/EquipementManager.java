@@ -1,10 +1,10 @@
 package fr.ybo.opendata.nantes.util;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,15 +12,22 @@ import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import javax.inject.Singleton;
 
-import fr.ybo.moteurcsv.MoteurCsv;
-import fr.ybo.moteurcsv.MoteurCsv.InsertObject;
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.modele.ChargeurEquipements;
 import fr.ybo.opendata.nantes.modele.Equipement;
 import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
 
 /**
  * Manager des équipements.
+ * <p/>
+ * Les équipements sont chargés une seule fois, au premier besoin (ou à la création de l'injecteur avec
+ * {@link EquipementModule}), puis publiés dans un {@link IndexEquipements} immuable : les lectures ne prennent aucun
+ * verrou.
  */
+@Singleton
 public class EquipementManager {
 
     /**
@@ -65,8 +72,8 @@ public class EquipementManager {
      *
      * @param parking parking à completer.
      */
-    private void completeParking(Parking parking) {
-        Equipement equipement = getMapEquipements().get(parking.getIdObj());
+    public void completeParking(Parking parking) {
+        Equipement equipement = getIndexEquipements().get(parking.getIdObj());
         if (equipement == null) {
             LOGGER.warning("Pas d'equipements trouvés pour le parking " + parking.getIdentifiant());
         } else {
@@ -76,37 +83,72 @@ public class EquipementManager {
     }
 
     /**
-     * Map des equipements.
+     * Index des equipements (null tant qu'il n'est pas chargé).
      */
-    private Map<Integer, Equipement> mapEquipements;
+    private volatile IndexEquipements indexEquipements;
 
     /**
-     * @return {@link EquipementManager#mapEquipements}.
+     * @return {@link EquipementManager#indexEquipements}.
+     */
+    public IndexEquipements getIndexEquipements() {
+        IndexEquipements index = indexEquipements;
+        if (index == null) {
+            synchronized (this) {
+                index = indexEquipements;
+                if (index == null) {
+                    index = new IndexEquipements(chargerEquipements().values());
+                    indexEquipements = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return les équipements par idObj (non modifiable).
      */
     public Map<Integer, Equipement> getMapEquipements() {
-        if (mapEquipements == null) {
-            mapEquipements = new HashMap<Integer, Equipement>();
-            MoteurCsv moteurCsv = new MoteurCsv(Arrays.<Class<?>>asList(Equipement.class));
-            BufferedReader bufferedReader = null;
+        return getIndexEquipements().getMap();
+    }
+
+    /**
+     * @return vrai si les équipements sont chargés.
+     */
+    public boolean isCharge() {
+        return indexEquipements != null;
+    }
+
+    /**
+     * Lecture du fichier des équipements.
+     *
+     * @return les équipements par identifiant.
+     */
+    private Map<Integer, Equipement> chargerEquipements() {
+        final Map<Integer, Equipement> equipements = new HashMap<Integer, Equipement>();
+        BufferedReader bufferedReader = null;
+        try {
+            bufferedReader = new BufferedReader(new InputStreamReader(
+                    getInputStream(), CHARSET_NAME));
             try {
-                bufferedReader = new BufferedReader(new InputStreamReader(
-                        getInputStream(), CHARSET_NAME));
-                try {
-                    moteurCsv.parseFileAndInsert(bufferedReader, Equipement.class,
-                            new EquipementInsertObject(mapEquipements));
-                } finally {
-                    try {
-                        bufferedReader.close();
-                    } catch (Exception exception) {
-                        LOGGER.warning(exception.getMessage());
+                ChargeurEquipements.charger(bufferedReader, new RecepteurObjet<Equipement>() {
+                    @Override
+                    public void recevoir(Equipement equipement) {
+                        equipements.put(equipement.getIdObj(), equipement);
                     }
+                });
+            } finally {
+                try {
+                    bufferedReader.close();
+                } catch (Exception exception) {
+                    LOGGER.warning(exception.getMessage());
                 }
-            } catch (UnsupportedEncodingException exception) {
-                LOGGER.warning(exception.getMessage());
             }
-
+        } catch (UnsupportedEncodingException exception) {
+            LOGGER.warning(exception.getMessage());
+        } catch (IOException exception) {
+            throw new ApiException("Problème lors de la lecture du fichier des équipements", exception);
         }
-        return mapEquipements;
+        return equipements;
     }
 
 	/**
@@ -117,27 +159,4 @@ public class EquipementManager {
 	protected InputStream getInputStream() {
 		return EquipementManager.class.getResourceAsStream(EQUIPEMENTS_PUBLICS_DEPLACEMENT_CSV);
 	}
-    /**
-     * Gestion des {@link Equipement}.
-     */
-    private static final class EquipementInsertObject implements InsertObject<Equipement> {
-        /**
-         * Map des equipements.
-         */
-        private Map<Integer, Equipement> mapEquipements;
-
-        /**
-         * Constructeur.
-         *
-         * @param mapEquipements map des équipements.
-         */
-        private EquipementInsertObject(Map<Integer, Equipement> mapEquipements) {
-            this.mapEquipements = mapEquipements;
-        }
-
-        @Override
-        public void insertObject(Equipement objet) {
-            mapEquipements.put(objet.getIdObj(), objet);
-        }
-    }
 }
@@ -0,0 +1,68 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import javax.inject.Inject;
+
+import com.google.inject.AbstractModule;
+
+/**
+ * Module Guice de {@link EquipementManager} : injection statique utilisée par
+ * {@link EquipementManager#getInstance()}, et chargement optionnel des équipements dès la création de l'injecteur
+ * (le premier appel à {@link fr.ybo.opendata.nantes.OpenDataApi#getParkings()} n'a alors plus à lire le fichier).
+ */
+public class EquipementModule extends AbstractModule {
+
+    /**
+     * Vrai pour charger les équipements à la création de l'injecteur.
+     */
+    private final boolean prechargement;
+
+    /**
+     * Constructeur, sans préchargement.
+     */
+    public EquipementModule() {
+        this(false);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param prechargement {@link EquipementModule#prechargement}.
+     */
+    public EquipementModule(boolean prechargement) {
+        this.prechargement = prechargement;
+    }
+
+    @Override
+    protected void configure() {
+        requestStaticInjection(EquipementManager.class);
+        if (prechargement) {
+            requestInjection(new Prechargement());
+        }
+    }
+
+    /**
+     * Chargement des équipements, injecté à la création de l'injecteur.
+     */
+    private static final class Prechargement {
+        /**
+         * @param equipementManager manager à charger.
+         */
+        @Inject
+        void precharger(EquipementManager equipementManager) {
+            equipementManager.getMapEquipements();
+        }
+    }
+}
@@ -19,13 +19,14 @@ import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 
 /**
- * Connecteur HTTP.
+ * Connecteur HTTP, gérant les requêtes conditionnelles.
  */
-public class HttpConnecteur implements Connecteur {
+public class HttpConnecteur implements ConnecteurConditionnel {
     /**
      * Timeout de connexion.
      */
@@ -36,13 +37,32 @@ public class HttpConnecteur implements Connecteur {
     private static final int READ_TIMEOUT = 20000;
     @Override
     public InputStream openInputStream(String url) throws ApiReseauException {
+        return openInputStream(url, null, null).getFlux();
+    }
+
+    @Override
+    public ReponseConditionnelle openInputStream(String url, String etag, String lastModified)
+            throws ApiReseauException {
         try {
             URL myUrl = new URL(url);
             URLConnection connection = myUrl.openConnection();
             connection.setConnectTimeout(CONNECT_TIMEOUT);
             connection.setReadTimeout(READ_TIMEOUT);
 			connection.addRequestProperty("Accept", "application/xml");
-            return connection.getInputStream();
+            if (etag != null) {
+                connection.addRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.addRequestProperty("If-Modified-Since", lastModified);
+            }
+            InputStream inputStream = connection.getInputStream();
+            if (connection instanceof HttpURLConnection
+                    && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                inputStream.close();
+                return ReponseConditionnelle.nonModifiee();
+            }
+            return new ReponseConditionnelle(inputStream, connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"));
         } catch (IOException socketException) {
             throw new ApiReseauException(socketException);
         }
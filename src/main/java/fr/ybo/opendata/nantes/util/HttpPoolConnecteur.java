@@ -0,0 +1,396 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Connecteur HTTP avec connexions persistantes et compression.
+ * <p/>
+ * Les connexions persistantes (keep-alive) sont gérées par {@link HttpURLConnection} : une connexion est réutilisée
+ * si la réponse a été entièrement lue puis fermée. Ce connecteur s'en assure à la fermeture du flux (le reste de la
+ * réponse est lu, dans une certaine limite), y compris pour les réponses en erreur. Le nombre de connexions
+ * gardées ouvertes par serveur est réglé par la propriété système {@code http.maxConnections}.
+ * <p/>
+ * Le connecteur demande les réponses compressées (gzip ou deflate) et les décompresse de façon transparente.
+ * Le nombre de requêtes simultanées est limité : une requête attend qu'une connexion se libère, au plus pendant
+ * {@link HttpPoolConnecteur#getAttenteMax()} millisecondes. Le flux renvoyé doit donc toujours être fermé.
+ * Les requêtes conditionnelles sont gérées (voir {@link ConnecteurConditionnel}).
+ */
+public class HttpPoolConnecteur implements ConnecteurConditionnel {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(HttpPoolConnecteur.class.getSimpleName());
+
+    /**
+     * Nombre de requêtes simultanées par défaut.
+     */
+    public static final int CONNEXIONS_DEFAUT = 5;
+
+    /**
+     * Timeout de connexion par défaut.
+     */
+    private static final int CONNECT_TIMEOUT = 10000;
+
+    /**
+     * Timeout de lecture par défaut.
+     */
+    private static final int READ_TIMEOUT = 20000;
+
+    /**
+     * Attente maximum d'une connexion libre par défaut.
+     */
+    private static final long ATTENTE_MAX = 30000L;
+
+    /**
+     * Nombre maximum d'octets lus à la fermeture pour pouvoir réutiliser la connexion.
+     * Au delà, il est moins coûteux d'ouvrir une nouvelle connexion.
+     */
+    private static final long VIDAGE_MAX = 64 * 1024L;
+
+    /**
+     * Taille du tampon de lecture.
+     */
+    private static final int TAILLE_TAMPON = 4096;
+
+    /**
+     * Méthode de compression deflate dans l'entête zlib.
+     */
+    private static final int METHODE_DEFLATE = 8;
+
+    /**
+     * Masque de la méthode de compression dans l'entête zlib.
+     */
+    private static final int MASQUE_METHODE = 0x0F;
+
+    /**
+     * L'entête zlib sur deux octets est un multiple de 31.
+     */
+    private static final int CONTROLE_ZLIB = 31;
+
+    /**
+     * Décalage d'un octet.
+     */
+    private static final int OCTET = 8;
+
+    /**
+     * Requêtes simultanées autorisées.
+     */
+    private final Semaphore connexions;
+
+    /**
+     * Nombre maximum de requêtes simultanées.
+     */
+    private final int maxConnexions;
+
+    /**
+     * Timeout de connexion (ms).
+     */
+    private volatile int connectTimeout = CONNECT_TIMEOUT;
+
+    /**
+     * Timeout de lecture (ms).
+     */
+    private volatile int readTimeout = READ_TIMEOUT;
+
+    /**
+     * Attente maximum d'une connexion libre (ms).
+     */
+    private volatile long attenteMax = ATTENTE_MAX;
+
+    /**
+     * Constructeur avec {@link HttpPoolConnecteur#CONNEXIONS_DEFAUT} requêtes simultanées.
+     */
+    public HttpPoolConnecteur() {
+        this(CONNEXIONS_DEFAUT);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param maxConnexions nombre maximum de requêtes simultanées.
+     */
+    public HttpPoolConnecteur(int maxConnexions) {
+        if (maxConnexions < 1) {
+            throw new IllegalArgumentException("Le nombre de connexions doit être positif : " + maxConnexions);
+        }
+        this.maxConnexions = maxConnexions;
+        connexions = new Semaphore(maxConnexions, true);
+    }
+
+    @Override
+    public InputStream openInputStream(String url) throws ApiReseauException {
+        return openInputStream(url, null, null).getFlux();
+    }
+
+    @Override
+    public ReponseConditionnelle openInputStream(String url, String etag, String lastModified)
+            throws ApiReseauException {
+        reserverConnexion();
+        InputStream flux = null;
+        boolean ouvert = false;
+        try {
+            HttpURLConnection connection = ouvrirConnexion(url);
+            if (etag != null) {
+                connection.addRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.addRequestProperty("If-Modified-Since", lastModified);
+            }
+            flux = new FluxConnexion(lireReponse(connection));
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return ReponseConditionnelle.nonModifiee();
+            }
+            ReponseConditionnelle reponse = new ReponseConditionnelle(
+                    decompresser(flux, connection.getContentEncoding()), connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"));
+            ouvert = true;
+            return reponse;
+        } catch (IOException exception) {
+            throw new ApiReseauException(exception);
+        } finally {
+            if (!ouvert) {
+                if (flux == null) {
+                    connexions.release();
+                } else {
+                    fermer(flux);
+                }
+            }
+        }
+    }
+
+    /**
+     * Attend une connexion libre.
+     *
+     * @throws ApiReseauException si aucune connexion ne s'est libérée à temps.
+     */
+    private void reserverConnexion() throws ApiReseauException {
+        try {
+            if (!connexions.tryAcquire(attenteMax, TimeUnit.MILLISECONDS)) {
+                throw new ApiReseauException("Aucune connexion libre après " + attenteMax + "ms");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ApiReseauException(exception);
+        }
+    }
+
+    /**
+     * Prépare la connexion (timeouts, entêtes).
+     *
+     * @param url url.
+     * @return la connexion, pas encore connectée.
+     * @throws IOException problème d'ouverture.
+     */
+    protected HttpURLConnection ouvrirConnexion(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.addRequestProperty("Accept", "application/xml");
+        connection.addRequestProperty("Accept-Encoding", "gzip, deflate");
+        return connection;
+    }
+
+    /**
+     * Lit le corps de la réponse. En cas d'erreur, le corps de l'erreur est lu et fermé pour que la connexion
+     * puisse être réutilisée.
+     *
+     * @param connection connexion.
+     * @return le corps de la réponse (compressé).
+     * @throws IOException problème réseau ou réponse en erreur.
+     */
+    protected InputStream lireReponse(HttpURLConnection connection) throws IOException {
+        try {
+            return connection.getInputStream();
+        } catch (IOException exception) {
+            InputStream erreur = connection.getErrorStream();
+            if (erreur != null) {
+                fermer(new FluxConnexion(erreur, false));
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Décompresse le flux selon l'entête Content-Encoding.
+     *
+     * @param flux            flux brut.
+     * @param contentEncoding valeur de l'entête Content-Encoding (peut être null).
+     * @return flux décompressé.
+     * @throws IOException problème de lecture de l'entête de compression.
+     */
+    static InputStream decompresser(InputStream flux, String contentEncoding) throws IOException {
+        if (contentEncoding == null) {
+            return flux;
+        }
+        String encoding = contentEncoding.trim();
+        if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(flux, TAILLE_TAMPON);
+        }
+        if ("deflate".equalsIgnoreCase(encoding)) {
+            // Certains serveurs envoient du deflate brut au lieu du format zlib prévu par la norme.
+            BufferedInputStream bufferedFlux = new BufferedInputStream(flux, TAILLE_TAMPON);
+            bufferedFlux.mark(2);
+            int cmf = bufferedFlux.read();
+            int flg = bufferedFlux.read();
+            bufferedFlux.reset();
+            boolean zlib = cmf >= 0 && flg >= 0 && (cmf & MASQUE_METHODE) == METHODE_DEFLATE
+                    && ((cmf << OCTET) + flg) % CONTROLE_ZLIB == 0;
+            return new InflaterInputStream(bufferedFlux, new Inflater(!zlib), TAILLE_TAMPON);
+        }
+        return flux;
+    }
+
+    /**
+     * @param flux flux à fermer.
+     */
+    private static void fermer(InputStream flux) {
+        try {
+            flux.close();
+        } catch (IOException exception) {
+            LOGGER.warning(exception.getMessage());
+        }
+    }
+
+    /**
+     * @return {@link HttpPoolConnecteur#maxConnexions}.
+     */
+    public int getMaxConnexions() {
+        return maxConnexions;
+    }
+
+    /**
+     * @return nombre de connexions libres.
+     */
+    public int getConnexionsLibres() {
+        return connexions.availablePermits();
+    }
+
+    /**
+     * @return {@link HttpPoolConnecteur#connectTimeout}.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout {@link HttpPoolConnecteur#connectTimeout}.
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return {@link HttpPoolConnecteur#readTimeout}.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout {@link HttpPoolConnecteur#readTimeout}.
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return {@link HttpPoolConnecteur#attenteMax}.
+     */
+    public long getAttenteMax() {
+        return attenteMax;
+    }
+
+    /**
+     * @param attenteMax {@link HttpPoolConnecteur#attenteMax}.
+     */
+    public void setAttenteMax(long attenteMax) {
+        this.attenteMax = attenteMax;
+    }
+
+    /**
+     * Flux d'une réponse : à la fermeture, la fin de la réponse est lue pour que la connexion puisse être
+     * réutilisée, puis la connexion est rendue.
+     */
+    private final class FluxConnexion extends FilterInputStream {
+
+        /**
+         * Vrai si la fermeture doit rendre la connexion.
+         */
+        private final boolean rendreConnexion;
+
+        /**
+         * Vrai une fois le flux fermé.
+         */
+        private final AtomicBoolean ferme = new AtomicBoolean();
+
+        /**
+         * @param flux corps de la réponse.
+         */
+        private FluxConnexion(InputStream flux) {
+            this(flux, true);
+        }
+
+        /**
+         * @param flux            corps de la réponse.
+         * @param rendreConnexion {@link FluxConnexion#rendreConnexion}.
+         */
+        private FluxConnexion(InputStream flux, boolean rendreConnexion) {
+            super(flux);
+            this.rendreConnexion = rendreConnexion;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!ferme.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                byte[] tampon = new byte[TAILLE_TAMPON];
+                long lus = 0;
+                int nb;
+                while (lus < VIDAGE_MAX && (nb = in.read(tampon)) != -1) {
+                    lus += nb;
+                }
+            } catch (IOException exception) {
+                LOGGER.fine(exception.getMessage());
+            } finally {
+                try {
+                    in.close();
+                } finally {
+                    if (rendreConnexion) {
+                        connexions.release();
+                    }
+                }
+            }
+        }
+    }
+}
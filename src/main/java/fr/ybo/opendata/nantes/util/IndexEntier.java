@@ -0,0 +1,171 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+/**
+ * Table de hachage d'entiers vers des positions (entiers positifs ou nuls), sans objet par entrée.
+ * <p/>
+ * Adressage ouvert avec sondage linéaire dans deux tableaux d'entiers, taux de remplissage d'au plus 1/2.
+ * Les écritures ne sont pas synchronisées : l'index est rempli par un seul thread puis publié (champ final,
+ * référence atomique...), après quoi les lectures peuvent être faites par n'importe quel thread sans verrou.
+ */
+public final class IndexEntier {
+
+    /**
+     * Valeur renvoyée pour une clé absente.
+     */
+    public static final int ABSENT = -1;
+
+    /**
+     * Multiplicateur de Fibonacci (2^32 / nombre d'or) pour répartir les clés.
+     */
+    private static final int MULTIPLICATEUR = 0x9E3779B9;
+
+    /**
+     * Capacité minimum.
+     */
+    private static final int CAPACITE_MIN = 4;
+
+    /**
+     * Capacité maximum.
+     */
+    private static final int CAPACITE_MAX = 1 << 30;
+
+    /**
+     * Clés.
+     */
+    private int[] cles;
+
+    /**
+     * Positions + 1 (0 pour une case vide).
+     */
+    private int[] valeurs;
+
+    /**
+     * Décalage appliqué au hash pour obtenir un index de case.
+     */
+    private int decalage;
+
+    /**
+     * Nombre d'entrées.
+     */
+    private int taille;
+
+    /**
+     * Constructeur.
+     *
+     * @param nbAttendu nombre d'entrées attendues (l'index s'agrandit au besoin).
+     */
+    public IndexEntier(int nbAttendu) {
+        int capacite = CAPACITE_MIN;
+        while (capacite < CAPACITE_MAX && capacite < 2 * nbAttendu) {
+            capacite <<= 1;
+        }
+        allouer(capacite);
+    }
+
+    /**
+     * @param capacite nombre de cases (puissance de deux).
+     */
+    private void allouer(int capacite) {
+        cles = new int[capacite];
+        valeurs = new int[capacite];
+        decalage = Integer.SIZE - Integer.numberOfTrailingZeros(capacite);
+    }
+
+    /**
+     * @param cle clé.
+     * @return index de la première case à sonder.
+     */
+    private int caseInitiale(int cle) {
+        return (cle * MULTIPLICATEUR) >>> decalage;
+    }
+
+    /**
+     * Associe une position à une clé.
+     *
+     * @param cle      clé.
+     * @param position position (positive ou nulle).
+     * @return la position précédemment associée à la clé, ou {@link IndexEntier#ABSENT}.
+     */
+    public int put(int cle, int position) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Position négative : " + position);
+        }
+        if (2 * (taille + 1) > cles.length) {
+            agrandir();
+        }
+        int masque = cles.length - 1;
+        for (int index = caseInitiale(cle);; index = (index + 1) & masque) {
+            if (valeurs[index] == 0) {
+                cles[index] = cle;
+                valeurs[index] = position + 1;
+                taille++;
+                return ABSENT;
+            }
+            if (cles[index] == cle) {
+                int ancienne = valeurs[index] - 1;
+                valeurs[index] = position + 1;
+                return ancienne;
+            }
+        }
+    }
+
+    /**
+     * @param cle clé.
+     * @return la position associée à la clé, ou {@link IndexEntier#ABSENT}.
+     */
+    public int get(int cle) {
+        int masque = cles.length - 1;
+        for (int index = caseInitiale(cle);; index = (index + 1) & masque) {
+            int valeur = valeurs[index];
+            if (valeur == 0) {
+                return ABSENT;
+            }
+            if (cles[index] == cle) {
+                return valeur - 1;
+            }
+        }
+    }
+
+    /**
+     * @return nombre d'entrées.
+     */
+    public int getTaille() {
+        return taille;
+    }
+
+    /**
+     * Double la capacité.
+     */
+    private void agrandir() {
+        if (cles.length >= CAPACITE_MAX) {
+            throw new IllegalStateException("Index plein");
+        }
+        int[] anciennesCles = cles;
+        int[] anciennesValeurs = valeurs;
+        allouer(cles.length << 1);
+        taille = 0;
+        for (int index = 0; index < anciennesCles.length; index++) {
+            if (anciennesValeurs[index] != 0) {
+                put(anciennesCles[index], anciennesValeurs[index] - 1);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndexEntier[taille=" + taille + ", capacite=" + cles.length + ']';
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import fr.ybo.opendata.nantes.modele.Categorie;
+import fr.ybo.opendata.nantes.modele.Equipement;
+import fr.ybo.opendata.nantes.modele.Theme;
+import fr.ybo.opendata.nantes.modele.Type;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index immuable des équipements par idObj, sans objet Integer par recherche.
+ * <p/>
+ * Les équipements sont rangés dans un tableau ; la position de chaque idObj est donnée par un tableau dense indexé
+ * par idObj quand les identifiants sont assez regroupés (cas du fichier de Nantes Métropole), par un
+ * {@link IndexEntier} sinon. Latitude et longitude sont recopiées dans deux colonnes de doubles (NaN si inconnues)
+ * pour les calculs de distance, et indexées par un {@link ArbreKd} pour les recherches de proximité.
+ */
+public final class IndexEquipements {
+
+    /**
+     * Position renvoyée pour un idObj inconnu.
+     */
+    public static final int ABSENT = IndexEntier.ABSENT;
+
+    /**
+     * Etendue d'idObj toujours acceptée pour le tableau dense (256 Ko).
+     */
+    private static final int ETENDUE_DENSE = 1 << 16;
+
+    /**
+     * Nombre de cases du tableau dense acceptées par équipement au delà de {@link IndexEquipements#ETENDUE_DENSE}.
+     */
+    private static final int CASES_PAR_EQUIPEMENT = 4;
+
+    /**
+     * Equipements.
+     */
+    private final Equipement[] equipements;
+
+    /**
+     * Latitudes (NaN si inconnue).
+     */
+    private final double[] latitudes;
+
+    /**
+     * Longitudes (NaN si inconnue).
+     */
+    private final double[] longitudes;
+
+    /**
+     * Plus petit idObj (origine du tableau dense).
+     */
+    private final int idObjMin;
+
+    /**
+     * Position + 1 de chaque idObj à partir de {@link IndexEquipements#idObjMin} (0 si absent), null si l'index
+     * n'est pas dense.
+     */
+    private final int[] positionsDenses;
+
+    /**
+     * Position de chaque idObj, si l'index n'est pas dense.
+     */
+    private final IndexEntier positions;
+
+    /**
+     * Index spatial des équipements.
+     */
+    private final ArbreKd arbre;
+
+    /**
+     * Vue en map (non modifiable) des équipements.
+     */
+    private final Map<Integer, Equipement> map;
+
+    /**
+     * Constructeur.
+     *
+     * @param liste équipements (pour un même idObj, le dernier est conservé).
+     */
+    public IndexEquipements(Collection<Equipement> liste) {
+        Map<Integer, Equipement> parIdObj = new HashMap<Integer, Equipement>();
+        for (Equipement equipement : liste) {
+            parIdObj.put(equipement.getIdObj(), equipement);
+        }
+        map = Collections.unmodifiableMap(parIdObj);
+        int taille = parIdObj.size();
+        equipements = parIdObj.values().toArray(new Equipement[taille]);
+        latitudes = new double[taille];
+        longitudes = new double[taille];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int position = 0; position < taille; position++) {
+            Equipement equipement = equipements[position];
+            latitudes[position] = equipement.getLatitude() == null ? Double.NaN : equipement.getLatitude();
+            longitudes[position] = equipement.getLongitude() == null ? Double.NaN : equipement.getLongitude();
+            min = Math.min(min, equipement.getIdObj());
+            max = Math.max(max, equipement.getIdObj());
+        }
+        idObjMin = min;
+        long etendue = (long) max - min + 1;
+        if (taille > 0 && etendue <= Math.max(ETENDUE_DENSE, (long) CASES_PAR_EQUIPEMENT * taille)) {
+            positionsDenses = new int[(int) etendue];
+            positions = null;
+            for (int position = 0; position < taille; position++) {
+                positionsDenses[equipements[position].getIdObj() - min] = position + 1;
+            }
+        } else {
+            positionsDenses = null;
+            positions = new IndexEntier(taille);
+            for (int position = 0; position < taille; position++) {
+                positions.put(equipements[position].getIdObj(), position);
+            }
+        }
+        arbre = new ArbreKd(latitudes, longitudes);
+    }
+
+    /**
+     * Recherche des équipements les plus proches d'un point.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param nombre    nombre maximum d'équipements.
+     * @param theme     thème recherché (null pour tous).
+     * @param categorie catégorie recherchée (null pour toutes).
+     * @param type      type recherché (null pour tous).
+     * @return les positions des équipements (voir {@link IndexEquipements#getEquipement(int)}) et leurs distances
+     *         en mètres, par distance croissante.
+     */
+    public ResultatSpatial plusProches(double latitude, double longitude, int nombre, Theme theme,
+                                       Categorie categorie, Type type) {
+        return arbre.plusProches(latitude, longitude, nombre, filtre(theme, categorie, type));
+    }
+
+    /**
+     * Recherche des équipements dans un rayon autour d'un point.
+     *
+     * @param latitude  latitude (degrés).
+     * @param longitude longitude (degrés).
+     * @param rayon     rayon (m).
+     * @param theme     thème recherché (null pour tous).
+     * @param categorie catégorie recherchée (null pour toutes).
+     * @param type      type recherché (null pour tous).
+     * @return les positions des équipements (voir {@link IndexEquipements#getEquipement(int)}) et leurs distances
+     *         en mètres, par distance croissante.
+     */
+    public ResultatSpatial dansRayon(double latitude, double longitude, double rayon, Theme theme,
+                                     Categorie categorie, Type type) {
+        return arbre.dansRayon(latitude, longitude, rayon, filtre(theme, categorie, type));
+    }
+
+    /**
+     * @param theme     thème recherché (null pour tous).
+     * @param categorie catégorie recherchée (null pour toutes).
+     * @param type      type recherché (null pour tous).
+     * @return le filtre correspondant (null si aucun critère).
+     */
+    private ArbreKd.Filtre filtre(final Theme theme, final Categorie categorie, final Type type) {
+        if (theme == null && categorie == null && type == null) {
+            return null;
+        }
+        return new ArbreKd.Filtre() {
+            @Override
+            public boolean accepte(int position) {
+                Equipement equipement = equipements[position];
+                return (theme == null || theme == equipement.getTheme())
+                        && (categorie == null || categorie == equipement.getCategorie())
+                        && (type == null || type == equipement.getType());
+            }
+        };
+    }
+
+    /**
+     * @param idObj idObj.
+     * @return position de l'équipement, ou {@link IndexEquipements#ABSENT}.
+     */
+    public int getPosition(int idObj) {
+        if (positionsDenses == null) {
+            return positions.get(idObj);
+        }
+        long decalage = (long) idObj - idObjMin;
+        if (decalage < 0 || decalage >= positionsDenses.length) {
+            return ABSENT;
+        }
+        return positionsDenses[(int) decalage] - 1;
+    }
+
+    /**
+     * @param idObj idObj.
+     * @return l'équipement, ou null s'il n'existe pas.
+     */
+    public Equipement get(int idObj) {
+        int position = getPosition(idObj);
+        return position == ABSENT ? null : equipements[position];
+    }
+
+    /**
+     * @return nombre d'équipements.
+     */
+    public int getTaille() {
+        return equipements.length;
+    }
+
+    /**
+     * @param position position (de 0 à {@link IndexEquipements#getTaille()} exclu).
+     * @return l'équipement.
+     */
+    public Equipement getEquipement(int position) {
+        return equipements[position];
+    }
+
+    /**
+     * @param position position.
+     * @return la latitude de l'équipement (NaN si inconnue).
+     */
+    public double getLatitude(int position) {
+        return latitudes[position];
+    }
+
+    /**
+     * @param position position.
+     * @return la longitude de l'équipement (NaN si inconnue).
+     */
+    public double getLongitude(int position) {
+        return longitudes[position];
+    }
+
+    /**
+     * @return vrai si l'index utilise un tableau dense.
+     */
+    public boolean isDense() {
+        return positionsDenses != null;
+    }
+
+    /**
+     * @return les équipements par idObj (non modifiable).
+     */
+    public Map<Integer, Equipement> getMap() {
+        return map;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Lecture de dates à format fixe (par exemple "dd/MM/yyyy HH:mm:ss"), dans le fuseau horaire par défaut.
+ * <p/>
+ * Contrairement à {@link java.text.SimpleDateFormat}, un parseur peut être partagé entre plusieurs threads :
+ * la date est calculée arithmétiquement, sans verrou ni calendrier. La dernière valeur lue est conservée, car
+ * une même réponse répète souvent le même horodatage (tous les parkings partagent le même Grp_horodatage).
+ * Seuls les champs dd, MM, yyyy, HH, mm et ss sont gérés. Un texte qui suit exactement le format (même
+ * longueur, chiffres attendus, valeurs dans les bornes) est lu directement ; tout autre texte ("8:30",
+ * "1/2/2012", "10:30:00", "24:00"...) est confié à un {@link SimpleDateFormat} non strict propre à chaque thread,
+ * pour être accepté ou refusé exactement comme avec {@link SimpleDateFormat#parse(String)}.
+ */
+public final class ParseurDate {
+
+    /**
+     * Nombre de millisecondes dans une seconde.
+     */
+    private static final long MS_SECONDE = 1000L;
+
+    /**
+     * Nombre de millisecondes dans une minute.
+     */
+    private static final long MS_MINUTE = 60 * MS_SECONDE;
+
+    /**
+     * Nombre de millisecondes dans une heure.
+     */
+    private static final long MS_HEURE = 60 * MS_MINUTE;
+
+    /**
+     * Nombre de millisecondes dans un jour.
+     */
+    private static final long MS_JOUR = 24 * MS_HEURE;
+
+    /**
+     * Nombre de jours avant chaque mois, pour une année non bissextile.
+     */
+    private static final int[] JOURS_AVANT_MOIS = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    /**
+     * Nombre de jours entre le 01/01/0001 et le 01/01/1970 (calendrier grégorien).
+     */
+    private static final long JOURS_AVANT_EPOCH = 719162L;
+
+    /**
+     * Année de référence quand le format ne contient pas d'année.
+     */
+    private static final int ANNEE_EPOCH = 1970;
+
+    /**
+     * Nombre de jours dans une année non bissextile.
+     */
+    private static final int JOURS_PAR_AN = 365;
+
+    /**
+     * Les années multiples de 4 sont bissextiles...
+     */
+    private static final int CYCLE_BISSEXTILE = 4;
+
+    /**
+     * ...sauf les multiples de 100...
+     */
+    private static final int CYCLE_SIECLE = 100;
+
+    /**
+     * ...sauf les multiples de 400.
+     */
+    private static final int CYCLE_GREGORIEN = 400;
+
+    /**
+     * Nombre de mois.
+     */
+    private static final int NB_MOIS = 12;
+
+    /**
+     * Plus grand numéro de jour dans un mois.
+     */
+    private static final int JOUR_MAX = 31;
+
+    /**
+     * Plus grande heure.
+     */
+    private static final int HEURE_MAX = 23;
+
+    /**
+     * Plus grand nombre de minutes ou de secondes.
+     */
+    private static final int MINUTE_MAX = 59;
+
+    /**
+     * Nombre de chiffres de l'année.
+     */
+    private static final int LARGEUR_ANNEE = 4;
+
+    /**
+     * Nombre de chiffres des autres champs.
+     */
+    private static final int LARGEUR_CHAMP = 2;
+
+    /**
+     * Base décimale.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Lettres des champs gérés.
+     */
+    private static final String LETTRES = "dMyHms";
+
+    /**
+     * Index du jour dans {@link ParseurDate#LETTRES}.
+     */
+    private static final int JOUR = 0;
+
+    /**
+     * Index du mois dans {@link ParseurDate#LETTRES}.
+     */
+    private static final int MOIS = 1;
+
+    /**
+     * Index de l'année dans {@link ParseurDate#LETTRES}.
+     */
+    private static final int ANNEE = 2;
+
+    /**
+     * Index de l'heure dans {@link ParseurDate#LETTRES}.
+     */
+    private static final int HEURE = 3;
+
+    /**
+     * Index des minutes dans {@link ParseurDate#LETTRES}.
+     */
+    private static final int MINUTE = 4;
+
+    /**
+     * Résultat de {@link ParseurDate#lireRapide(String)} quand le texte ne suit pas exactement le format.
+     */
+    private static final long NON_LU = Long.MIN_VALUE;
+
+    /**
+     * Format de la date.
+     */
+    private final String format;
+
+    /**
+     * Champ lu à chaque position du format (-1 pour un caractère littéral).
+     */
+    private final int[] champs;
+
+    /**
+     * Fuseau horaire (celui par défaut au moment de la construction, comme pour SimpleDateFormat).
+     */
+    private final TimeZone timeZone;
+
+    /**
+     * SimpleDateFormat non strict de chaque thread, pour les textes qui ne suivent pas exactement le format.
+     */
+    private final ThreadLocal<SimpleDateFormat> formatLent = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(format);
+            simpleDateFormat.setTimeZone(timeZone);
+            return simpleDateFormat;
+        }
+    };
+
+    /**
+     * Dernière valeur lue.
+     */
+    private volatile DerniereValeur derniereValeur;
+
+    /**
+     * Dernière valeur lue : une seule référence, pour qu'un thread ne puisse pas voir un texte et une date
+     * incohérents.
+     */
+    private static final class DerniereValeur {
+        /**
+         * Texte lu.
+         */
+        private final String texte;
+        /**
+         * Date correspondante.
+         */
+        private final long millis;
+
+        /**
+         * @param texte  texte lu.
+         * @param millis date correspondante.
+         */
+        private DerniereValeur(String texte, long millis) {
+            this.texte = texte;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param format format de la date (par exemple "dd/MM/yyyy HH:mm:ss").
+     * @throws IllegalArgumentException si le format contient un champ non géré.
+     */
+    public ParseurDate(String format) {
+        this.format = format;
+        champs = new int[format.length()];
+        for (int index = 0; index < format.length(); index++) {
+            char car = format.charAt(index);
+            champs[index] = LETTRES.indexOf(car);
+            if (champs[index] < 0 && (car >= 'a' && car <= 'z' || car >= 'A' && car <= 'Z')) {
+                throw new IllegalArgumentException("Champ non géré '" + car + "' dans le format " + format);
+            }
+        }
+        for (int index = 0; index < champs.length;) {
+            int fin = index + 1;
+            while (fin < champs.length && champs[fin] == champs[index]) {
+                fin++;
+            }
+            if (champs[index] >= 0 && fin - index != (champs[index] == ANNEE ? LARGEUR_ANNEE : LARGEUR_CHAMP)) {
+                throw new IllegalArgumentException("Largeur de champ non gérée dans le format " + format);
+            }
+            index = fin;
+        }
+        timeZone = TimeZone.getDefault();
+    }
+
+    /**
+     * Lit une date.
+     *
+     * @param texte texte à lire.
+     * @return la date lue.
+     * @throws ParseException si le texte ne respecte pas le format.
+     */
+    public Date parse(String texte) throws ParseException {
+        DerniereValeur derniere = derniereValeur;
+        if (derniere != null && derniere.texte.equals(texte)) {
+            return new Date(derniere.millis);
+        }
+        long local = lireRapide(texte);
+        long millis = local == NON_LU ? lireLent(texte) : versUtc(local);
+        derniereValeur = new DerniereValeur(texte, millis);
+        return new Date(millis);
+    }
+
+    /**
+     * Remplace l'heure d'une date par l'heure lue (le format ne doit alors contenir que des champs d'heure,
+     * par exemple "HH:mm").
+     *
+     * @param jour  date dont le jour est conservé.
+     * @param texte heure à lire.
+     * @return la date au jour donné et à l'heure lue.
+     * @throws ParseException si le texte ne respecte pas le format.
+     */
+    public Date changerHeure(Date jour, String texte) throws ParseException {
+        long local = jour.getTime() + timeZone.getOffset(jour.getTime());
+        long debutJour = local - modulo(local, MS_JOUR);
+        long heure = lireRapide(texte);
+        if (heure == NON_LU) {
+            // Heure hors bornes ("24:00") : le débordement est reporté sur les jours suivants.
+            long utc = lireLent(texte);
+            heure = utc + timeZone.getOffset(utc);
+        }
+        return new Date(versUtc(debutJour + heure));
+    }
+
+    /**
+     * Lit le texte comme une date locale, s'il suit exactement le format.
+     *
+     * @param texte texte à lire.
+     * @return millisecondes depuis le 01/01/1970 00:00:00 en heure locale, {@link ParseurDate#NON_LU} si le texte
+     *         ne suit pas exactement le format.
+     */
+    private long lireRapide(String texte) {
+        if (texte.length() != format.length()) {
+            return NON_LU;
+        }
+        int jour = 1;
+        int mois = 1;
+        int annee = ANNEE_EPOCH;
+        int heure = 0;
+        int minute = 0;
+        int seconde = 0;
+        int index = 0;
+        while (index < champs.length) {
+            int champ = champs[index];
+            if (champ < 0) {
+                if (texte.charAt(index) != format.charAt(index)) {
+                    return NON_LU;
+                }
+                index++;
+                continue;
+            }
+            int valeur = 0;
+            for (; index < champs.length && champs[index] == champ; index++) {
+                int chiffre = texte.charAt(index) - '0';
+                if (chiffre < 0 || chiffre >= BASE) {
+                    return NON_LU;
+                }
+                valeur = valeur * BASE + chiffre;
+            }
+            if (champ == JOUR) {
+                jour = valeur;
+            } else if (champ == MOIS) {
+                mois = valeur;
+            } else if (champ == ANNEE) {
+                annee = valeur;
+            } else if (champ == HEURE) {
+                heure = valeur;
+            } else if (champ == MINUTE) {
+                minute = valeur;
+            } else {
+                seconde = valeur;
+            }
+        }
+        if (jour < 1 || jour > JOUR_MAX || mois < 1 || mois > NB_MOIS || annee < 1 || heure > HEURE_MAX
+                || minute > MINUTE_MAX || seconde > MINUTE_MAX) {
+            return NON_LU;
+        }
+        return joursDepuisEpoch(jour, mois, annee) * MS_JOUR + heure * MS_HEURE + minute * MS_MINUTE
+                + seconde * MS_SECONDE;
+    }
+
+    /**
+     * Lit le texte avec le {@link SimpleDateFormat} non strict du thread.
+     *
+     * @param texte texte à lire.
+     * @return millisecondes depuis le 01/01/1970 UTC.
+     * @throws ParseException si le texte est refusé par {@link SimpleDateFormat#parse(String)}.
+     */
+    private long lireLent(String texte) throws ParseException {
+        return formatLent.get().parse(texte).getTime();
+    }
+
+    /**
+     * Nombre de jours entre le 01/01/1970 et une date du calendrier grégorien.
+     * Un jour trop grand pour le mois est reporté sur le mois suivant (31/02 donne le 03/03 ou le 02/03),
+     * comme le fait {@link SimpleDateFormat} en mode non strict.
+     *
+     * @param jour  jour du mois.
+     * @param mois  mois (de 1 à 12).
+     * @param annee année.
+     * @return nombre de jours.
+     */
+    private static long joursDepuisEpoch(int jour, int mois, int annee) {
+        long anneesPassees = annee - 1;
+        long jours = anneesPassees * JOURS_PAR_AN + anneesPassees / CYCLE_BISSEXTILE
+                - anneesPassees / CYCLE_SIECLE + anneesPassees / CYCLE_GREGORIEN;
+        jours += JOURS_AVANT_MOIS[mois - 1] + jour - 1;
+        if (mois > 2 && isBissextile(annee)) {
+            jours++;
+        }
+        return jours - JOURS_AVANT_EPOCH;
+    }
+
+    /**
+     * @param annee année.
+     * @return vrai si l'année est bissextile.
+     */
+    private static boolean isBissextile(int annee) {
+        return annee % CYCLE_BISSEXTILE == 0 && (annee % CYCLE_SIECLE != 0 || annee % CYCLE_GREGORIEN == 0);
+    }
+
+    /**
+     * Convertit une date locale en date UTC, avec la même règle que {@link java.util.GregorianCalendar}
+     * lors des changements d'heure.
+     *
+     * @param local millisecondes depuis le 01/01/1970 en heure locale.
+     * @return millisecondes depuis le 01/01/1970 UTC.
+     */
+    private long versUtc(long local) {
+        return local - timeZone.getOffset(local - timeZone.getRawOffset());
+    }
+
+    /**
+     * @param valeur   valeur.
+     * @param diviseur diviseur (positif).
+     * @return reste positif de la division.
+     */
+    private static long modulo(long valeur, long diviseur) {
+        long reste = valeur % diviseur;
+        return reste < 0 ? reste + diviseur : reste;
+    }
+
+    /**
+     * @return {@link ParseurDate#format}.
+     */
+    public String getFormat() {
+        return format;
+    }
+}
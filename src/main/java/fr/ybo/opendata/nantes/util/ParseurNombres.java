@@ -0,0 +1,154 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+/**
+ * Lecture de nombres directement dans un tableau de caractères, sans créer de chaine intermédiaire.
+ */
+public final class ParseurNombres {
+
+    /**
+     * Base décimale.
+     */
+    private static final int BASE = 10;
+
+    /**
+     * Plus grande mantisse représentable exactement par un double (2^53).
+     */
+    private static final long MANTISSE_MAX = 1L << 53;
+
+    /**
+     * Puissances de 10 représentables exactement par un double.
+     */
+    private static final double[] PUISSANCES_DIX = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Classe utilitaire.
+     */
+    private ParseurNombres() {
+    }
+
+    /**
+     * Lit un entier, avec les mêmes règles que {@link Integer#parseInt(String)}.
+     *
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère.
+     * @param longueur nombre de caractères.
+     * @return l'entier lu.
+     * @throws NumberFormatException si les caractères ne représentent pas un entier.
+     */
+    public static int parseInt(char[] cars, int debut, int longueur) {
+        int index = debut;
+        int fin = debut + longueur;
+        boolean negatif = false;
+        if (longueur > 0 && (cars[index] == '-' || cars[index] == '+')) {
+            negatif = cars[index] == '-';
+            index++;
+        }
+        if (index == fin) {
+            throw erreur(cars, debut, longueur);
+        }
+        // Accumulation en négatif pour pouvoir lire Integer.MIN_VALUE.
+        int limite = negatif ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiplicateurMin = limite / BASE;
+        int resultat = 0;
+        for (; index < fin; index++) {
+            int chiffre = cars[index] - '0';
+            if (chiffre < 0 || chiffre >= BASE || resultat < multiplicateurMin) {
+                throw erreur(cars, debut, longueur);
+            }
+            resultat *= BASE;
+            if (resultat < limite + chiffre) {
+                throw erreur(cars, debut, longueur);
+            }
+            resultat -= chiffre;
+        }
+        return negatif ? resultat : -resultat;
+    }
+
+    /**
+     * Lit un nombre décimal.
+     * Les nombres simples (signe, chiffres, séparateur décimal) dont la mantisse tient sur 53 bits sont calculés
+     * directement, avec un résultat identique à {@link Double#parseDouble(String)}. Les autres formes (exposant,
+     * grands nombres...) sont déléguées à {@link Double#parseDouble(String)}.
+     *
+     * @param cars        tableau de caractères.
+     * @param debut       index du premier caractère.
+     * @param longueur    nombre de caractères.
+     * @param separateur  séparateur décimal ('.' ou ',').
+     * @return le nombre lu.
+     * @throws NumberFormatException si les caractères ne représentent pas un nombre.
+     */
+    public static double parseDouble(char[] cars, int debut, int longueur, char separateur) {
+        int index = debut;
+        int fin = debut + longueur;
+        boolean negatif = false;
+        if (longueur > 0 && (cars[index] == '-' || cars[index] == '+')) {
+            negatif = cars[index] == '-';
+            index++;
+        }
+        long mantisse = 0;
+        int nbChiffres = 0;
+        int decimales = -1;
+        for (; index < fin; index++) {
+            char car = cars[index];
+            if (car >= '0' && car <= '9') {
+                mantisse = mantisse * BASE + (car - '0');
+                nbChiffres++;
+                if (decimales >= 0) {
+                    decimales++;
+                }
+                if (mantisse > MANTISSE_MAX || decimales >= PUISSANCES_DIX.length) {
+                    return parseDoubleLent(cars, debut, longueur, separateur);
+                }
+            } else if (car == separateur && decimales < 0) {
+                decimales = 0;
+            } else {
+                return parseDoubleLent(cars, debut, longueur, separateur);
+            }
+        }
+        if (nbChiffres == 0) {
+            return parseDoubleLent(cars, debut, longueur, separateur);
+        }
+        // Mantisse et puissance de dix exactes : la division est correctement arrondie.
+        double valeur = decimales > 0 ? mantisse / PUISSANCES_DIX[decimales] : mantisse;
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Lecture d'un nombre décimal par {@link Double#parseDouble(String)}.
+     *
+     * @param cars       tableau de caractères.
+     * @param debut      index du premier caractère.
+     * @param longueur   nombre de caractères.
+     * @param separateur séparateur décimal.
+     * @return le nombre lu.
+     */
+    private static double parseDoubleLent(char[] cars, int debut, int longueur, char separateur) {
+        return Double.parseDouble(new String(cars, debut, longueur).replace(separateur, '.'));
+    }
+
+    /**
+     * @param cars     tableau de caractères.
+     * @param debut    index du premier caractère.
+     * @param longueur nombre de caractères.
+     * @return l'exception à lever.
+     */
+    private static NumberFormatException erreur(char[] cars, int debut, int longueur) {
+        return new NumberFormatException("For input string: \"" + new String(cars, debut, longueur) + '"');
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import java.io.InputStream;
+
+/**
+ * Réponse à une requête conditionnelle : soit le nouveau contenu et ses validateurs, soit l'indication que le
+ * contenu n'a pas changé.
+ */
+public class ReponseConditionnelle {
+
+    /**
+     * Réponse indiquant que le contenu n'a pas changé.
+     */
+    private static final ReponseConditionnelle NON_MODIFIEE = new ReponseConditionnelle(null, null, null);
+
+    /**
+     * Contenu (null si non modifié).
+     */
+    private final InputStream flux;
+
+    /**
+     * Entête ETag de la réponse.
+     */
+    private final String etag;
+
+    /**
+     * Entête Last-Modified de la réponse.
+     */
+    private final String lastModified;
+
+    /**
+     * Constructeur.
+     *
+     * @param flux         {@link ReponseConditionnelle#flux}.
+     * @param etag         {@link ReponseConditionnelle#etag} (peut être null).
+     * @param lastModified {@link ReponseConditionnelle#lastModified} (peut être null).
+     */
+    public ReponseConditionnelle(InputStream flux, String etag, String lastModified) {
+        this.flux = flux;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return réponse indiquant que le contenu n'a pas changé.
+     */
+    public static ReponseConditionnelle nonModifiee() {
+        return NON_MODIFIEE;
+    }
+
+    /**
+     * @return vrai si le contenu n'a pas changé depuis le dernier appel.
+     */
+    public boolean isNonModifiee() {
+        return flux == null;
+    }
+
+    /**
+     * @return {@link ReponseConditionnelle#flux}.
+     */
+    public InputStream getFlux() {
+        return flux;
+    }
+
+    /**
+     * @return {@link ReponseConditionnelle#etag}.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return {@link ReponseConditionnelle#lastModified}.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+}
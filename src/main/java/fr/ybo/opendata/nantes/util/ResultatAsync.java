@@ -0,0 +1,144 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+import fr.ybo.opendata.nantes.exceptions.ApiException;
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Résultat d'un appel asynchrone : un {@link java.util.concurrent.Future} auquel on peut ajouter des écouteurs,
+ * prévenus dès la fin de l'appel dans le thread qui l'a exécuté (ou immédiatement si l'appel est déjà terminé).
+ *
+ * @param <T> type du résultat.
+ */
+public class ResultatAsync<T> extends FutureTask<T> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ResultatAsync.class.getSimpleName());
+
+    /**
+     * Ecouteurs en attente de la fin de l'appel.
+     */
+    private final List<EcouteurResultat<? super T>> ecouteurs = new ArrayList<EcouteurResultat<? super T>>();
+
+    /**
+     * Vrai une fois l'appel terminé (accès synchronisé sur this).
+     */
+    private boolean termine;
+
+    /**
+     * Constructeur.
+     *
+     * @param appel appel à exécuter.
+     */
+    public ResultatAsync(Callable<T> appel) {
+        super(appel);
+    }
+
+    /**
+     * Ajoute un écouteur.
+     *
+     * @param ecouteur écouteur à prévenir de la fin de l'appel.
+     * @return this, pour chaîner les appels.
+     */
+    public ResultatAsync<T> ajouterEcouteur(EcouteurResultat<? super T> ecouteur) {
+        synchronized (this) {
+            if (!termine) {
+                ecouteurs.add(ecouteur);
+                return this;
+            }
+        }
+        prevenir(ecouteur);
+        return this;
+    }
+
+    /**
+     * Attend la fin de l'appel et renvoie son résultat.
+     *
+     * @return le résultat.
+     * @throws ApiReseauException si l'appel a rencontré un problème réseau.
+     */
+    public T getResultat() throws ApiReseauException {
+        try {
+            return get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ApiReseauException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof ApiReseauException) {
+                throw (ApiReseauException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ApiException("Problème lors de l'appel asynchrone", exception);
+        }
+    }
+
+    @Override
+    protected void done() {
+        List<EcouteurResultat<? super T>> aPrevenir;
+        synchronized (this) {
+            termine = true;
+            aPrevenir = new ArrayList<EcouteurResultat<? super T>>(ecouteurs);
+            ecouteurs.clear();
+        }
+        for (EcouteurResultat<? super T> ecouteur : aPrevenir) {
+            prevenir(ecouteur);
+        }
+    }
+
+    /**
+     * Prévient un écouteur de la fin de l'appel (déjà terminé).
+     *
+     * @param ecouteur écouteur.
+     */
+    private void prevenir(EcouteurResultat<? super T> ecouteur) {
+        try {
+            T resultat;
+            try {
+                resultat = get();
+            } catch (ExecutionException exception) {
+                ecouteur.erreur(exception.getCause());
+                return;
+            } catch (CancellationException exception) {
+                ecouteur.erreur(exception);
+                return;
+            } catch (InterruptedException exception) {
+                // Impossible : l'appel est terminé.
+                Thread.currentThread().interrupt();
+                ecouteur.erreur(exception);
+                return;
+            }
+            ecouteur.succes(resultat);
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Erreur dans un écouteur", exception);
+        }
+    }
+}
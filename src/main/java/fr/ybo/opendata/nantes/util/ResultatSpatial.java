@@ -0,0 +1,70 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package fr.ybo.opendata.nantes.util;
+
+/**
+ * Résultat d'une recherche dans un {@link ArbreKd} : positions des points trouvés et distances, par distance
+ * croissante.
+ */
+public final class ResultatSpatial {
+
+    /**
+     * Résultat vide.
+     */
+    public static final ResultatSpatial VIDE = new ResultatSpatial(new int[0], new double[0]);
+
+    /**
+     * Positions des points.
+     */
+    private final int[] positions;
+
+    /**
+     * Distances (m).
+     */
+    private final double[] distances;
+
+    /**
+     * Constructeur.
+     *
+     * @param positions {@link ResultatSpatial#positions}.
+     * @param distances {@link ResultatSpatial#distances}.
+     */
+    ResultatSpatial(int[] positions, double[] distances) {
+        this.positions = positions;
+        this.distances = distances;
+    }
+
+    /**
+     * @return nombre de points trouvés.
+     */
+    public int getTaille() {
+        return positions.length;
+    }
+
+    /**
+     * @param rang rang du point (0 pour le plus proche).
+     * @return position du point (dans les tableaux fournis à la construction de l'arbre).
+     */
+    public int getPosition(int rang) {
+        return positions[rang];
+    }
+
+    /**
+     * @param rang rang du point.
+     * @return distance du point (m).
+     */
+    public double getDistance(int rang) {
+        return distances[rang];
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.SegmentFluency;
+import fr.ybo.opendata.nantes.util.Connecteur;
+import fr.ybo.opendata.nantes.util.EquipementManager;
+
+/**
+ * Test des classes {@link Abonnements} et {@link Abonnement}.
+ */
+public class AbonnementsTest {
+
+    /**
+     * Intervalle entre deux appels (ms).
+     */
+    private static final long INTERVALLE = 20;
+
+    /**
+     * Attente maximum d'une livraison (s).
+     */
+    private static final long ATTENTE = 5;
+
+    /**
+     * Couleur du premier tronçon dans le fichier de test.
+     */
+    private static final String COULEUR_INITIALE = "<Couleur_TP>2</Couleur_TP>";
+
+    /**
+     * Couleur modifiée du premier tronçon.
+     */
+    private static final int COULEUR_MODIFIEE = 5;
+
+    /**
+     * Contenu du fichier de fluidité.
+     */
+    private String fluidite;
+
+    /**
+     * Couleur courante du premier tronçon.
+     */
+    private volatile String couleur = COULEUR_INITIALE;
+
+    /**
+     * Erreur levée par le prochain appel du flux (aucune si null).
+     */
+    private volatile Error erreur;
+
+    /**
+     * Api testée.
+     */
+    private OpenDataApi openDataApi;
+
+    /**
+     * Création de l'api sur le fichier de fluidité, dont la couleur du premier tronçon peut varier.
+     * @throws IOException problème de lecture.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Guice.createInjector(new AbstractModule() {
+            protected void configure() {
+                requestStaticInjection(EquipementManager.class);
+            }
+        });
+        InputStream flux = AbonnementsTest.class.getResourceAsStream("/getFluiditeAxesRoutiers.xml");
+        ByteArrayOutputStream contenu = new ByteArrayOutputStream();
+        byte[] tampon = new byte[1024];
+        for (int lus = flux.read(tampon); lus >= 0; lus = flux.read(tampon)) {
+            contenu.write(tampon, 0, lus);
+        }
+        flux.close();
+        fluidite = contenu.toString("UTF-8");
+        openDataApi = new OpenDataApi("key");
+        openDataApi.setConnecteur(new Connecteur() {
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                Error erreurAppel = erreur;
+                if (erreurAppel != null) {
+                    erreur = null;
+                    throw erreurAppel;
+                }
+                try {
+                    return new ByteArrayInputStream(fluidite.replaceFirst(COULEUR_INITIALE, couleur)
+                            .getBytes("UTF-8"));
+                } catch (IOException exception) {
+                    throw new ApiReseauException(exception);
+                }
+            }
+        });
+    }
+
+    /**
+     * Les abonnés reçoivent l'état initial puis uniquement les changements.
+     * @throws InterruptedException interruption.
+     */
+    @Test
+    public void testAbonner() throws InterruptedException {
+        BlockingQueue<List<Changement<SegmentFluency>>> recus =
+                new LinkedBlockingQueue<List<Changement<SegmentFluency>>>();
+        Abonnement<SegmentFluency> abonnement =
+                openDataApi.abonner(Flux.FLUIDITE, new Ecouteur(recus), INTERVALLE, TimeUnit.MILLISECONDS);
+        List<Changement<SegmentFluency>> initial = recus.poll(ATTENTE, TimeUnit.SECONDS);
+        assertNotNull(initial);
+        assertTrue(initial.size() > 1);
+        for (Changement<SegmentFluency> changement : initial) {
+            assertEquals(Changement.Nature.AJOUT, changement.getNature());
+        }
+
+        // Un second abonné au même flux partage le même appel et reçoit le dernier état.
+        BlockingQueue<List<Changement<SegmentFluency>>> recusSecond =
+                new LinkedBlockingQueue<List<Changement<SegmentFluency>>>();
+        Abonnement<SegmentFluency> second =
+                openDataApi.abonner(Flux.FLUIDITE, new Ecouteur(recusSecond), INTERVALLE, TimeUnit.MILLISECONDS);
+        assertEquals(1, openDataApi.getAbonnements().getNbSondages());
+        assertEquals(initial.size(), recusSecond.poll(ATTENTE, TimeUnit.SECONDS).size());
+
+        couleur = "<Couleur_TP>" + COULEUR_MODIFIEE + "</Couleur_TP>";
+        for (BlockingQueue<List<Changement<SegmentFluency>>> file : Arrays.asList(recus, recusSecond)) {
+            List<Changement<SegmentFluency>> changements = file.poll(ATTENTE, TimeUnit.SECONDS);
+            assertNotNull(changements);
+            assertEquals(1, changements.size());
+            assertEquals(Changement.Nature.MODIFICATION, changements.get(0).getNature());
+            assertEquals(2, changements.get(0).getAncien().getColorId());
+            assertEquals(COULEUR_MODIFIEE, changements.get(0).getNouveau().getColorId());
+        }
+
+        abonnement.annuler();
+        assertEquals(1, openDataApi.getAbonnements().getNbSondages());
+        second.annuler();
+        assertEquals(0, openDataApi.getAbonnements().getNbSondages());
+        assertEquals(0, abonnement.getNbPerdus());
+    }
+
+    /**
+     * Une erreur lors d'un appel n'arrête pas les appels périodiques.
+     * @throws InterruptedException interruption.
+     */
+    @Test
+    public void testErreurAppel() throws InterruptedException {
+        erreur = new Error("Erreur de test");
+        BlockingQueue<List<Changement<SegmentFluency>>> recus =
+                new LinkedBlockingQueue<List<Changement<SegmentFluency>>>();
+        Abonnement<SegmentFluency> abonnement =
+                openDataApi.abonner(Flux.FLUIDITE, new Ecouteur(recus), INTERVALLE, TimeUnit.MILLISECONDS);
+        List<Changement<SegmentFluency>> initial = recus.poll(ATTENTE, TimeUnit.SECONDS);
+        abonnement.annuler();
+        assertNotNull(initial);
+        assertNull(erreur);
+    }
+
+    /**
+     * Quand la file d'un abonnement est pleine, les changements les plus anciens sont perdus.
+     */
+    @Test
+    public void testFilePleine() {
+        final List<Runnable> livraisons = new ArrayList<Runnable>();
+        Executor livraison = new Executor() {
+            @Override
+            public void execute(Runnable tache) {
+                livraisons.add(tache);
+            }
+        };
+        BlockingQueue<List<Changement<SegmentFluency>>> recus =
+                new LinkedBlockingQueue<List<Changement<SegmentFluency>>>();
+        Abonnements abonnements = new Abonnements(openDataApi, null, livraison);
+        Abonnement<SegmentFluency> abonnement = new Abonnement<SegmentFluency>(Flux.FLUIDITE, new Ecouteur(recus),
+                abonnements, livraison, Abonnements.TAILLE_FILE_DEFAUT);
+        int nbPublies = Abonnements.TAILLE_FILE_DEFAUT + 4;
+        List<List<Changement<SegmentFluency>>> publies = new ArrayList<List<Changement<SegmentFluency>>>();
+        for (int numero = 0; numero < nbPublies; numero++) {
+            List<Changement<SegmentFluency>> changements = Collections.singletonList(
+                    new Changement<SegmentFluency>(Changement.Nature.AJOUT, null, new SegmentFluency()));
+            publies.add(changements);
+            abonnement.publier(changements);
+        }
+        assertEquals(1, livraisons.size());
+        assertEquals(4, abonnement.getNbPerdus());
+        livraisons.get(0).run();
+        assertEquals(Abonnements.TAILLE_FILE_DEFAUT, recus.size());
+        assertSame(publies.get(4), recus.peek());
+    }
+
+    /**
+     * Ecouteur qui conserve les changements reçus.
+     */
+    private static class Ecouteur implements EcouteurChangements<SegmentFluency> {
+        /**
+         * Changements reçus.
+         */
+        private final BlockingQueue<List<Changement<SegmentFluency>>> recus;
+
+        /**
+         * @param recus {@link Ecouteur#recus}.
+         */
+        Ecouteur(BlockingQueue<List<Changement<SegmentFluency>>> recus) {
+            this.recus = recus;
+        }
+
+        @Override
+        public void changements(List<Changement<SegmentFluency>> changements) {
+            recus.add(changements);
+        }
+    }
+}
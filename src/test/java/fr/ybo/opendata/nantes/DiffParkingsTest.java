@@ -0,0 +1,129 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.StatutParking;
+
+/**
+ * Test de la classe {@link DiffParkings}.
+ */
+public class DiffParkingsTest {
+
+    /**
+     * Nombre de parkings.
+     */
+    private static final int NB_PARKINGS = 5;
+
+    /**
+     * Places disponibles initiales.
+     */
+    private static final int DISPONIBLES = 100;
+
+    /**
+     * Test des différentes natures de changements.
+     */
+    @Test
+    public void testComparer() {
+        DiffParkings diff = new DiffParkings();
+        List<Changement<Parking>> changements = diff.comparer(creerParkings(NB_PARKINGS));
+        assertEquals(NB_PARKINGS, changements.size());
+        assertEquals(Changement.Nature.AJOUT, changements.get(0).getNature());
+        assertNull(changements.get(0).getAncien());
+
+        // Même contenu, autre ordre : aucun changement.
+        List<Parking> melanges = creerParkings(NB_PARKINGS);
+        Collections.reverse(melanges);
+        assertSame(Collections.emptyList(), diff.comparer(melanges));
+        assertSame(Collections.emptyList(), diff.comparer(creerParkings(NB_PARKINGS)));
+        assertEquals(NB_PARKINGS, diff.getPrecedents().size());
+
+        List<Parking> parkings = creerParkings(NB_PARKINGS);
+        parkings.get(1).setDisponibles(DISPONIBLES - 1);
+        parkings.get(2).setStatut(StatutParking.FERME.getValue());
+        parkings.get(4).setPriorite(2);
+        parkings.remove(3);
+        parkings.add(creerParking(NB_PARKINGS));
+        changements = diff.comparer(parkings);
+        assertEquals(4, changements.size());
+        assertEquals(Changement.Nature.MODIFICATION, changements.get(0).getNature());
+        assertEquals("1", changements.get(0).getNouveau().getIdentifiant());
+        assertEquals(DISPONIBLES, changements.get(0).getAncien().getDisponibles());
+        assertEquals(DISPONIBLES - 1, changements.get(0).getNouveau().getDisponibles());
+        assertEquals(Changement.Nature.MODIFICATION, changements.get(1).getNature());
+        assertEquals(StatutParking.FERME, changements.get(1).getNouveau().getStatut());
+        assertEquals(Changement.Nature.AJOUT, changements.get(2).getNature());
+        assertEquals(String.valueOf(NB_PARKINGS), changements.get(2).getNouveau().getIdentifiant());
+        assertEquals(Changement.Nature.SUPPRESSION, changements.get(3).getNature());
+        assertEquals("3", changements.get(3).getAncien().getIdentifiant());
+        assertNull(changements.get(3).getNouveau());
+        assertSame(parkings.get(0), diff.getPrecedents().get(0));
+    }
+
+    /**
+     * Un identifiant en double ne masque pas la suppression d'un autre parking, et un simple échange de positions
+     * n'est pas un changement.
+     */
+    @Test
+    public void testDoublons() {
+        DiffParkings diff = new DiffParkings();
+        diff.comparer(Arrays.asList(creerParking(0), creerParking(1)));
+
+        assertSame(Collections.emptyList(), diff.comparer(Arrays.asList(creerParking(1), creerParking(0))));
+
+        List<Changement<Parking>> changements = diff.comparer(Arrays.asList(creerParking(0), creerParking(0)));
+        assertEquals(1, changements.size());
+        assertEquals(Changement.Nature.SUPPRESSION, changements.get(0).getNature());
+        assertEquals("1", changements.get(0).getAncien().getIdentifiant());
+        assertSame(Collections.emptyList(), diff.comparer(Arrays.asList(creerParking(0), creerParking(0))));
+        assertEquals(1, diff.getPrecedents().size());
+    }
+
+    /**
+     * @param nombre nombre de parkings.
+     * @return des parkings ouverts, numérotés à partir de 0.
+     */
+    private static List<Parking> creerParkings(int nombre) {
+        List<Parking> parkings = new ArrayList<Parking>();
+        for (int numero = 0; numero < nombre; numero++) {
+            parkings.add(creerParking(numero));
+        }
+        return parkings;
+    }
+
+    /**
+     * @param numero numéro du parking.
+     * @return un parking ouvert.
+     */
+    private static Parking creerParking(int numero) {
+        Parking parking = new Parking();
+        parking.setIdentifiant(String.valueOf(numero));
+        parking.setIdObj(numero);
+        parking.setStatut(StatutParking.OUVERT.getValue());
+        parking.setDisponibles(DISPONIBLES);
+        return parking;
+    }
+}
@@ -2,7 +2,18 @@ package fr.ybo.opendata.nantes;
 
 import static junit.framework.Assert.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -10,11 +21,18 @@ import org.junit.Test;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 
+import fr.ybo.moteurcsv.MoteurCsv;
+import fr.ybo.moteurcsv.MoteurCsv.InsertObject;
+
 import fr.ybo.opendata.nantes.modele.Categorie;
+import fr.ybo.opendata.nantes.modele.ChargeurEquipements;
 import fr.ybo.opendata.nantes.modele.Equipement;
 import fr.ybo.opendata.nantes.modele.Theme;
 import fr.ybo.opendata.nantes.modele.Type;
 import fr.ybo.opendata.nantes.util.EquipementManager;
+import fr.ybo.opendata.nantes.util.EquipementModule;
+import fr.ybo.opendata.nantes.util.IndexEquipements;
+import fr.ybo.opendata.nantes.util.ResultatSpatial;
 
 public class EquipementManagerTest {
 
@@ -105,4 +123,219 @@ public class EquipementManagerTest {
 		assertEquals("NANTES", parkingPirmil.getCommune());
 		assertEquals("44000", parkingPirmil.getCodePostal());
 	}
+
+	/**
+	 * Le fichier n'est lu qu'une fois, même par des appels simultanés.
+	 * 
+	 * @throws InterruptedException interruption.
+	 */
+	@Test
+	public void testChargementUnique() throws InterruptedException {
+		final AtomicInteger nbLectures = new AtomicInteger();
+		final EquipementManager equipementManager = new EquipementManager() {
+			@Override
+			protected InputStream getInputStream() {
+				nbLectures.incrementAndGet();
+				return super.getInputStream();
+			}
+		};
+		final List<Map<Integer, Equipement>> maps = new ArrayList<Map<Integer, Equipement>>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int numero = 0; numero < 20; numero++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					Map<Integer, Equipement> map = equipementManager.getMapEquipements();
+					synchronized (maps) {
+						maps.add(map);
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, nbLectures.get());
+		assertEquals(20, maps.size());
+		for (Map<Integer, Equipement> map : maps) {
+			assertSame(maps.get(0), map);
+		}
+		try {
+			maps.get(0).clear();
+			fail("La map des équipements doit être non modifiable");
+		} catch (UnsupportedOperationException exception) {
+			assertFalse(maps.get(0).isEmpty());
+		}
+	}
+
+	/**
+	 * Préchargement à la création de l'injecteur.
+	 */
+	@Test
+	public void testPrechargement() {
+		Guice.createInjector(new EquipementModule(true));
+		assertTrue(EquipementManager.getInstance().isCharge());
+		assertSame(EquipementManager.getInstance(), EquipementManager.getInstance());
+		Guice.createInjector(new EquipementModule());
+		assertFalse(EquipementManager.getInstance().isCharge());
+	}
+
+	/**
+	 * L'index donne les mêmes équipements que la map, et leurs coordonnées en colonnes.
+	 */
+	@Test
+	public void testIndexEquipements() {
+		IndexEquipements index = EquipementManager.getInstance().getIndexEquipements();
+		Map<Integer, Equipement> map = EquipementManager.getInstance().getMapEquipements();
+		assertTrue(index.isDense());
+		assertEquals(map.size(), index.getTaille());
+		for (Equipement equipement : map.values()) {
+			int position = index.getPosition(equipement.getIdObj());
+			assertSame(equipement, index.getEquipement(position));
+			assertSame(equipement, index.get(equipement.getIdObj()));
+			assertEquals(equipement.getLatitude(), index.getLatitude(position));
+			assertEquals(equipement.getLongitude(), index.getLongitude(position));
+		}
+		assertEquals(IndexEquipements.ABSENT, index.getPosition(-1));
+		assertEquals(IndexEquipements.ABSENT, index.getPosition(Integer.MIN_VALUE));
+		assertNull(index.get(Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Les recherches de proximité donnent le même résultat qu'un parcours de tous les équipements.
+	 */
+	@Test
+	public void testProximite() {
+		IndexEquipements index = EquipementManager.getInstance().getIndexEquipements();
+		double latitude = 47.2133;
+		double longitude = -1.5577;
+		for (Categorie categorie : Arrays.asList(null, Categorie.PARKING_ENCLOS)) {
+			ResultatSpatial proches = index.plusProches(latitude, longitude, 5, null, categorie, null);
+			List<Integer> attendus = parDistance(index, latitude, longitude, categorie);
+			assertEquals(5, proches.getTaille());
+			for (int rang = 0; rang < proches.getTaille(); rang++) {
+				assertEquals(attendus.get(rang).intValue(), proches.getPosition(rang));
+				Equipement equipement = index.getEquipement(proches.getPosition(rang));
+				assertTrue(categorie == null || categorie == equipement.getCategorie());
+				assertTrue(rang == 0 || proches.getDistance(rang - 1) <= proches.getDistance(rang));
+			}
+
+			ResultatSpatial rayon = index.dansRayon(latitude, longitude, 1000, null, categorie, null);
+			assertTrue(rayon.getTaille() > 0);
+			assertTrue(rayon.getTaille() < attendus.size());
+			for (int rang = 0; rang < rayon.getTaille(); rang++) {
+				assertEquals(attendus.get(rang).intValue(), rayon.getPosition(rang));
+				assertTrue(rayon.getDistance(rang) <= 1000);
+			}
+			assertTrue(distance(index, attendus.get(rayon.getTaille()), latitude, longitude) > 1000);
+		}
+		assertEquals(0, index.plusProches(latitude, longitude, 5, Theme.UNKNOWN, null, null).getTaille());
+		assertEquals(index.getTaille(), index.plusProches(latitude, longitude, 1000, null, null, null).getTaille());
+	}
+
+	/**
+	 * Le chargeur dédié lit les mêmes équipements que le moteur csv.
+	 * 
+	 * @throws IOException problème de lecture.
+	 */
+	@Test
+	public void testChargeurEquipements() throws IOException {
+		final List<Equipement> attendus = new ArrayList<Equipement>();
+		new MoteurCsv(Arrays.<Class<?>>asList(Equipement.class)).parseFileAndInsert(lireFichier(), Equipement.class,
+				new InsertObject<Equipement>() {
+					@Override
+					public void insertObject(Equipement equipement) {
+						attendus.add(equipement);
+					}
+				});
+		List<Equipement> equipements = ChargeurEquipements.charger(lireFichier());
+		assertEquals(attendus.size(), equipements.size());
+		for (int index = 0; index < attendus.size(); index++) {
+			assertMemeEquipement(attendus.get(index), equipements.get(index));
+		}
+
+		String csv = "\uFEFFLAT_WGS84;_IDOBJ;NOM_COMPLET;THEME;CATEGORIE;TYPE;COMMUNE;ADRESSE;CODE_POSTAL;LONG_WGS84\r\n"
+				+ "47,25;12,000;Parking;;;;NANTES\r\n"
+				+ "\r\n"
+				+ ";x;;;;;;;44000;-1,5";
+		equipements = ChargeurEquipements.charger(new StringReader(csv));
+		assertEquals(2, equipements.size());
+		assertEquals(12, equipements.get(0).getIdObj());
+		assertEquals(47.25, equipements.get(0).getLatitude());
+		assertNull(equipements.get(0).getLongitude());
+		assertEquals("Parking", equipements.get(0).getNom());
+		assertNull(equipements.get(0).getTheme());
+		assertEquals("NANTES", equipements.get(0).getCommune());
+		assertNull(equipements.get(0).getCodePostal());
+		assertEquals(-1, equipements.get(1).getIdObj());
+		assertNull(equipements.get(1).getLatitude());
+		assertEquals(-1.5, equipements.get(1).getLongitude());
+		assertEquals("44000", equipements.get(1).getCodePostal());
+	}
+
+	/**
+	 * @return lecteur du fichier des équipements.
+	 * @throws IOException problème de lecture.
+	 */
+	private static BufferedReader lireFichier() throws IOException {
+		return new BufferedReader(new InputStreamReader(
+				EquipementManager.class.getResourceAsStream("/Equipements_publics_deplacement.csv"), "UTF-8"));
+	}
+
+	/**
+	 * @param attendu équipement lu par le moteur csv.
+	 * @param equipement équipement lu par le chargeur dédié.
+	 */
+	private static void assertMemeEquipement(Equipement attendu, Equipement equipement) {
+		assertEquals(attendu.getIdObj(), equipement.getIdObj());
+		assertEquals(attendu.getLatitude(), equipement.getLatitude());
+		assertEquals(attendu.getLongitude(), equipement.getLongitude());
+		assertEquals(attendu.getNom(), equipement.getNom());
+		assertSame(attendu.getTheme(), equipement.getTheme());
+		assertSame(attendu.getCategorie(), equipement.getCategorie());
+		assertSame(attendu.getType(), equipement.getType());
+		assertEquals(attendu.getCommune(), equipement.getCommune());
+		assertEquals(attendu.getAdresse(), equipement.getAdresse());
+		assertEquals(attendu.getCodePostal(), equipement.getCodePostal());
+	}
+
+	/**
+	 * @param index index des équipements.
+	 * @param latitude latitude.
+	 * @param longitude longitude.
+	 * @param categorie catégorie recherchée (null pour toutes).
+	 * @return les positions des équipements de la catégorie, par distance croissante.
+	 */
+	private static List<Integer> parDistance(final IndexEquipements index, final double latitude,
+			final double longitude, Categorie categorie) {
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int position = 0; position < index.getTaille(); position++) {
+			if (categorie == null || categorie == index.getEquipement(position).getCategorie()) {
+				positions.add(position);
+			}
+		}
+		Collections.sort(positions, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer position1, Integer position2) {
+				return Double.compare(distance(index, position1, latitude, longitude),
+						distance(index, position2, latitude, longitude));
+			}
+		});
+		return positions;
+	}
+
+	/**
+	 * @param index index des équipements.
+	 * @param position position de l'équipement.
+	 * @param latitude latitude.
+	 * @param longitude longitude.
+	 * @return distance approchée (m) entre l'équipement et le point.
+	 */
+	private static double distance(IndexEquipements index, int position, double latitude, double longitude) {
+		double dy = Math.toRadians(index.getLatitude(position) - latitude);
+		double dx = Math.toRadians(index.getLongitude(position) - longitude) * Math.cos(Math.toRadians(latitude));
+		return Math.sqrt(dx * dx + dy * dy) * 6371008.8;
+	}
 }
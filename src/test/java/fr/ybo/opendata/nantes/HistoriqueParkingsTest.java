@@ -0,0 +1,124 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.ybo.opendata.nantes.modele.Parking;
+
+/**
+ * Test de la classe {@link HistoriqueParkings}.
+ */
+public class HistoriqueParkingsTest {
+
+    /**
+     * Nombre d'échantillons conservés.
+     */
+    private static final int CAPACITE = 10;
+
+    /**
+     * Places totales.
+     */
+    private static final int PLACES = 500;
+
+    /**
+     * Date du premier échantillon (secondes).
+     */
+    private static final long DEBUT = 1000000L;
+
+    /**
+     * Ecart entre deux échantillons (secondes).
+     */
+    private static final long PAS = 60L;
+
+    /**
+     * Seuls les derniers échantillons sont conservés, par date croissante.
+     */
+    @Test
+    public void testSerie() {
+        HistoriqueParkings historique = new HistoriqueParkings(CAPACITE);
+        for (int numero = 0; numero < 2 * CAPACITE + 5; numero++) {
+            assertTrue(historique.enregistrer("1", DEBUT + numero * PAS, numero, PLACES));
+        }
+        assertFalse(historique.enregistrer("1", DEBUT, 0, PLACES));
+        assertEquals(CAPACITE, historique.getNbEchantillons("1"));
+        assertEquals(0, historique.getNbEchantillons("2"));
+
+        HistoriqueParkings.Serie serie = historique.getSerie("1", 0, Long.MAX_VALUE);
+        assertEquals(CAPACITE, serie.getTaille());
+        for (int index = 0; index < CAPACITE; index++) {
+            assertEquals(CAPACITE + 5 + index, serie.getDisponibles(index));
+            assertEquals(DEBUT + (CAPACITE + 5 + index) * PAS, serie.getDate(index));
+            assertEquals(PLACES, serie.getPlacesTotales(index));
+        }
+
+        serie = historique.getSerie("1", DEBUT + 20 * PAS, DEBUT + 23 * PAS);
+        assertEquals(3, serie.getTaille());
+        assertEquals(20, serie.getDisponibles(0));
+        assertEquals(0, historique.getSerie("1", 0, DEBUT).getTaille());
+        assertEquals(0, historique.getSerie("2", 0, Long.MAX_VALUE).getTaille());
+    }
+
+    /**
+     * Agrégats par tranches.
+     */
+    @Test
+    public void testAgreger() {
+        HistoriqueParkings historique = new HistoriqueParkings(CAPACITE);
+        for (int numero = 0; numero < CAPACITE; numero++) {
+            historique.enregistrer("1", DEBUT + numero * PAS, numero * numero, PLACES);
+        }
+        // Tranches de 4 minutes : 0-3, 4-7, 8-9.
+        List<HistoriqueParkings.Agregat> agregats = historique.agreger("1", DEBUT, Long.MAX_VALUE, 4 * PAS);
+        assertEquals(3, agregats.size());
+        assertEquals(DEBUT, agregats.get(0).getDebut());
+        assertEquals(4, agregats.get(0).getNbEchantillons());
+        assertEquals(0, agregats.get(0).getMin());
+        assertEquals(9, agregats.get(0).getMax());
+        assertEquals(3.5, agregats.get(0).getMoyenne());
+        assertEquals(DEBUT + 8 * PAS, agregats.get(2).getDebut());
+        assertEquals(2, agregats.get(2).getNbEchantillons());
+        assertEquals(64, agregats.get(2).getMin());
+        assertEquals(81, agregats.get(2).getMax());
+        assertEquals(72.5, agregats.get(2).getMoyenne());
+        assertTrue(historique.agreger("2", DEBUT, Long.MAX_VALUE, PAS).isEmpty());
+    }
+
+    /**
+     * Un parking dont l'horodatage est illisible est ignoré et ne bloque pas les échantillons suivants.
+     */
+    @Test
+    public void testHorodatageIllisible() {
+        HistoriqueParkings historique = new HistoriqueParkings(CAPACITE);
+        Parking parking = new Parking();
+        parking.setIdentifiant("1");
+        parking.setDisponibles(10);
+        parking.setPlacesTotales(PLACES);
+        parking.setLastUpdate("horodatage illisible");
+        assertFalse(historique.enregistrer(parking));
+        assertEquals(0, historique.getNbEchantillons("1"));
+
+        parking.setLastUpdate("21/11/2011 20:18:40");
+        assertTrue(historique.enregistrer(parking));
+        assertEquals(1, historique.getNbEchantillons("1"));
+        assertEquals(parking.getLastUpdate().getTime() / 1000L, historique.getSerie("1", 0, Long.MAX_VALUE).getDate(0));
+    }
+}
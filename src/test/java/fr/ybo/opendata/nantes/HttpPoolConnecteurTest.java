@@ -0,0 +1,202 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.util.HttpPoolConnecteur;
+
+/**
+ * Test de la classe {@link HttpPoolConnecteur}, avec un serveur http local.
+ */
+public class HttpPoolConnecteurTest {
+
+    /**
+     * Nombre de connexions du connecteur testé.
+     */
+    private static final int CONNEXIONS = 2;
+
+    /**
+     * Code http pour une page inconnue.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * Code http OK.
+     */
+    private static final int OK = 200;
+
+    /**
+     * Contenu renvoyé par le serveur.
+     */
+    private byte[] contenu;
+
+    /**
+     * Serveur local.
+     */
+    private HttpServer serveur;
+
+    /**
+     * Connecteur testé.
+     */
+    private HttpPoolConnecteur connecteur;
+
+    /**
+     * Démarrage du serveur : /gzip, /zlib et /deflate renvoient le contenu compressé, /brut le contenu non
+     * compressé, le reste une erreur 404.
+     * @throws IOException problème de démarrage.
+     */
+    @Before
+    public void setUp() throws IOException {
+        contenu = lire(HttpPoolConnecteurTest.class.getResourceAsStream("/getFluiditeAxesRoutiers.xml"));
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serveur.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String chemin = exchange.getRequestURI().getPath();
+                ByteArrayOutputStream corps = new ByteArrayOutputStream();
+                OutputStream compression = corps;
+                if ("/gzip".equals(chemin)) {
+                    compression = new GZIPOutputStream(corps);
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                } else if ("/zlib".equals(chemin)) {
+                    compression = new DeflaterOutputStream(corps);
+                    exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+                } else if ("/deflate".equals(chemin)) {
+                    compression = new DeflaterOutputStream(corps, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+                    exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+                } else if (!"/brut".equals(chemin)) {
+                    compression = null;
+                }
+                if (compression == null) {
+                    exchange.sendResponseHeaders(NOT_FOUND, -1);
+                } else {
+                    assertEquals("gzip, deflate", exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                    compression.write(contenu);
+                    compression.close();
+                    exchange.sendResponseHeaders(OK, corps.size());
+                    exchange.getResponseBody().write(corps.toByteArray());
+                }
+                exchange.close();
+            }
+        });
+        serveur.start();
+        connecteur = new HttpPoolConnecteur(CONNEXIONS);
+    }
+
+    /**
+     * Arrêt du serveur.
+     */
+    @After
+    public void tearDown() {
+        serveur.stop(0);
+    }
+
+    /**
+     * Les réponses compressées doivent être décompressées, et les connexions rendues à la fermeture des flux.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testDecompression() throws Exception {
+        for (String chemin : new String[]{"/brut", "/gzip", "/zlib", "/deflate"}) {
+            InputStream flux = connecteur.openInputStream(url(chemin));
+            assertEquals(CONNEXIONS - 1, connecteur.getConnexionsLibres());
+            assertEquals(chemin, new String(contenu, "UTF-8"), new String(lire(flux), "UTF-8"));
+            assertEquals(CONNEXIONS, connecteur.getConnexionsLibres());
+        }
+    }
+
+    /**
+     * Les erreurs ne doivent pas garder de connexion.
+     */
+    @Test
+    public void testErreur() {
+        try {
+            connecteur.openInputStream(url("/inconnu"));
+            fail("ApiReseauException attendue");
+        } catch (ApiReseauException exception) {
+            assertEquals(CONNEXIONS, connecteur.getConnexionsLibres());
+        }
+    }
+
+    /**
+     * Une requête attend qu'une connexion se libère.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testLimiteConnexions() throws Exception {
+        connecteur.setAttenteMax(1);
+        InputStream flux1 = connecteur.openInputStream(url("/brut"));
+        InputStream flux2 = connecteur.openInputStream(url("/gzip"));
+        try {
+            connecteur.openInputStream(url("/brut"));
+            fail("ApiReseauException attendue");
+        } catch (ApiReseauException exception) {
+            assertEquals(0, connecteur.getConnexionsLibres());
+        }
+        flux1.close();
+        flux1.close();
+        assertEquals(1, connecteur.getConnexionsLibres());
+        flux2.close();
+        assertEquals(CONNEXIONS, connecteur.getConnexionsLibres());
+    }
+
+    /**
+     * @param chemin chemin.
+     * @return url du serveur local.
+     */
+    private String url(String chemin) {
+        return "http://127.0.0.1:" + serveur.getAddress().getPort() + chemin;
+    }
+
+    /**
+     * Lit puis ferme un flux.
+     * @param flux flux.
+     * @return contenu du flux.
+     * @throws IOException problème de lecture.
+     */
+    private static byte[] lire(InputStream flux) throws IOException {
+        try {
+            ByteArrayOutputStream resultat = new ByteArrayOutputStream();
+            byte[] tampon = new byte[1024];
+            int lus;
+            while ((lus = flux.read(tampon)) != -1) {
+                resultat.write(tampon, 0, lus);
+            }
+            return resultat.toByteArray();
+        } finally {
+            flux.close();
+        }
+    }
+}
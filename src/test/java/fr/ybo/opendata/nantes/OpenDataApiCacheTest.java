@@ -0,0 +1,305 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import fr.ybo.opendata.nantes.exceptions.ApiReseauException;
+import fr.ybo.opendata.nantes.modele.Itineraire;
+import fr.ybo.opendata.nantes.util.Connecteur;
+import fr.ybo.opendata.nantes.util.EquipementManager;
+
+/**
+ * Test de la classe {@link OpenDataApiCache}.
+ */
+public class OpenDataApiCacheTest {
+
+    /**
+     * Nombre d'appelants simultanés.
+     */
+    private static final int NB_APPELANTS = 50;
+
+    /**
+     * Nombre d'ouvertures de flux.
+     */
+    private final AtomicInteger nbAppels = new AtomicInteger();
+
+    /**
+     * Vrai pour simuler une panne du serveur.
+     */
+    private volatile boolean enPanne;
+
+    /**
+     * Vrai pour simuler une Error lors du prochain appel.
+     */
+    private volatile boolean enErreur;
+
+    /**
+     * Heure simulée (ms).
+     */
+    private long heure;
+
+    /**
+     * Cache testé.
+     */
+    private OpenDataApiCache cache;
+
+    /**
+     * Création du cache sur les fichiers de test.
+     */
+    @Before
+    public void setUp() {
+        Guice.createInjector(new AbstractModule() {
+            protected void configure() {
+                requestStaticInjection(EquipementManager.class);
+            }
+        });
+        OpenDataApi openDataApi = new OpenDataApi("key");
+        openDataApi.setConnecteur(new Connecteur() {
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                nbAppels.incrementAndGet();
+                if (enErreur) {
+                    enErreur = false;
+                    throw new AssertionError("erreur");
+                }
+                if (enPanne) {
+                    throw new ApiReseauException(new IOException("panne"));
+                }
+                return new FileConnecteur('/' + url.split("/")[4] + ".xml").openInputStream(url);
+            }
+        });
+        cache = new OpenDataApiCache(openDataApi, 20) {
+            @Override
+            protected long maintenant() {
+                return heure;
+            }
+        };
+    }
+
+    /**
+     * Les résultats sont conservés pendant leur durée de vie.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testDureeVie() throws ApiReseauException {
+        cache.setDureeVie(Flux.TEMPS_PARCOURS, 1, TimeUnit.SECONDS);
+        List<Itineraire> itineraires = cache.get(Flux.TEMPS_PARCOURS);
+        itineraires.clear();
+        heure = 999;
+        assertEquals(2, cache.get(Flux.TEMPS_PARCOURS).size());
+        assertEquals(1, nbAppels.get());
+        heure = 1000;
+        assertEquals(2, cache.get(Flux.TEMPS_PARCOURS).size());
+        assertEquals(2, nbAppels.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.rafraichir(Flux.TEMPS_PARCOURS);
+        assertEquals(3, nbAppels.get());
+        cache.invalider(Flux.TEMPS_PARCOURS);
+        assertEquals(0, cache.getTaille());
+        cache.get(Flux.TEMPS_PARCOURS);
+        assertEquals(4, nbAppels.get());
+    }
+
+    /**
+     * Au delà de la taille maximum, les flux les moins récemment utilisés sont retirés.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testTailleMax() throws ApiReseauException {
+        cache.get(Flux.TEMPS_PARCOURS);
+        cache.get(Flux.INFOS_TRAFICS);
+        assertEquals(4, cache.getTaille());
+        cache.get(Flux.TEMPS_PARCOURS);
+        assertEquals(2, nbAppels.get());
+        // La fluidité contient plus de 20 tronçons : elle seule est conservée.
+        cache.get(Flux.FLUIDITE);
+        assertEquals(cache.get(Flux.FLUIDITE).size(), cache.getTaille());
+        cache.get(Flux.TEMPS_PARCOURS);
+        cache.get(Flux.INFOS_TRAFICS);
+        assertEquals(4, cache.getTaille());
+        assertEquals(5, nbAppels.get());
+    }
+
+    /**
+     * Des appels simultanés ne provoquent qu'un seul appel à l'api.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testAppelsSimultanes() throws Exception {
+        final CountDownLatch depart = new CountDownLatch(1);
+        final List<Integer> tailles = new ArrayList<Integer>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int numero = 0; numero < NB_APPELANTS; numero++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        depart.await();
+                        int taille = cache.get(Flux.FLUIDITE).size();
+                        synchronized (tailles) {
+                            tailles.add(taille);
+                        }
+                    } catch (Exception exception) {
+                        throw new RuntimeException(exception);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        depart.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(NB_APPELANTS, tailles.size());
+        assertTrue(tailles.get(0) > 0);
+        assertEquals(1, nbAppels.get());
+        assertEquals(1, cache.getAppels());
+    }
+
+    /**
+     * Le rafraîchisseur charge les flux enregistrés en tâche de fond et sert le dernier résultat même expiré.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testRafraichisseur() throws Exception {
+        cache.setDureeVie(Flux.TEMPS_PARCOURS, 1, TimeUnit.SECONDS);
+        RafraichisseurCache rafraichisseur = new RafraichisseurCache(cache);
+        try {
+            rafraichisseur.enregistrer(Flux.TEMPS_PARCOURS);
+            attendre(rafraichisseur, 1, 0);
+            assertEquals(2, rafraichisseur.get(Flux.TEMPS_PARCOURS).size());
+            assertEquals(1, nbAppels.get());
+
+            enPanne = true;
+            heure = 5000;
+            assertEquals(2, rafraichisseur.get(Flux.TEMPS_PARCOURS).size());
+            assertEquals(1, nbAppels.get());
+
+            rafraichisseur.enregistrer(Flux.INFOS_TRAFICS);
+            attendre(rafraichisseur, 1, 1);
+            try {
+                rafraichisseur.get(Flux.INFOS_TRAFICS);
+                fail("Le flux n'a jamais été chargé");
+            } catch (ApiReseauException exception) {
+                assertTrue(exception.getCause() instanceof IOException);
+            }
+        } finally {
+            rafraichisseur.arreter();
+        }
+    }
+
+    /**
+     * Le dernier résultat d'un flux enregistré reste servi sans appel réseau même après son retrait du cache.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testRafraichisseurTailleMax() throws Exception {
+        RafraichisseurCache rafraichisseur = new RafraichisseurCache(cache);
+        try {
+            rafraichisseur.enregistrer(Flux.TEMPS_PARCOURS);
+            attendre(rafraichisseur, 1, 0);
+            // La fluidité contient plus de 20 tronçons : les temps de parcours sont retirés du cache.
+            cache.get(Flux.FLUIDITE);
+            assertNull(cache.lire(Flux.TEMPS_PARCOURS));
+            enPanne = true;
+            assertEquals(2, rafraichisseur.get(Flux.TEMPS_PARCOURS).size());
+            assertEquals(2, nbAppels.get());
+        } finally {
+            rafraichisseur.arreter();
+        }
+    }
+
+    /**
+     * Une Error lors d'un rafraîchissement n'arrête pas les rafraîchissements suivants.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testRafraichisseurErreur() throws Exception {
+        RafraichisseurCache rafraichisseur = new RafraichisseurCache(cache) {
+            @Override
+            protected long delaiEchec(int echecs) {
+                return 10;
+            }
+        };
+        try {
+            enErreur = true;
+            rafraichisseur.enregistrer(Flux.TEMPS_PARCOURS);
+            attendre(rafraichisseur, 1, 1);
+            assertEquals(2, rafraichisseur.get(Flux.TEMPS_PARCOURS).size());
+        } finally {
+            rafraichisseur.arreter();
+        }
+    }
+
+    /**
+     * Le délai après un échec double à chaque échec, borné, avec une part aléatoire.
+     */
+    @Test
+    public void testDelaiEchec() {
+        RafraichisseurCache rafraichisseur = new RafraichisseurCache(cache);
+        rafraichisseur.arreter();
+        for (int essai = 0; essai < NB_APPELANTS; essai++) {
+            long premier = rafraichisseur.delaiEchec(1);
+            assertTrue(premier >= RafraichisseurCache.DELAI_ECHEC_INITIAL / 2);
+            assertTrue(premier <= RafraichisseurCache.DELAI_ECHEC_INITIAL);
+            long troisieme = rafraichisseur.delaiEchec(3);
+            assertTrue(troisieme >= 2 * RafraichisseurCache.DELAI_ECHEC_INITIAL);
+            assertTrue(troisieme <= 4 * RafraichisseurCache.DELAI_ECHEC_INITIAL);
+            long dernier = rafraichisseur.delaiEchec(Integer.MAX_VALUE);
+            assertTrue(dernier >= RafraichisseurCache.DELAI_ECHEC_MAX / 2);
+            assertTrue(dernier <= RafraichisseurCache.DELAI_ECHEC_MAX);
+        }
+    }
+
+    /**
+     * Attend que le rafraîchisseur ait fait les chargements attendus.
+     *
+     * @param rafraichisseur rafraîchisseur.
+     * @param nbRafraichissements nombre de rafraîchissements réussis attendus.
+     * @param nbEchecs nombre d'échecs attendus.
+     * @throws InterruptedException interruption.
+     */
+    private static void attendre(RafraichisseurCache rafraichisseur, long nbRafraichissements, long nbEchecs)
+            throws InterruptedException {
+        long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while ((rafraichisseur.getNbRafraichissements() < nbRafraichissements
+                || rafraichisseur.getNbEchecs() < nbEchecs) && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(nbRafraichissements, rafraichisseur.getNbRafraichissements());
+        assertEquals(nbEchecs, rafraichisseur.getNbEchecs());
+    }
+}
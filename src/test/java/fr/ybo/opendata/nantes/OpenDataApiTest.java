@@ -19,11 +19,19 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -37,7 +45,20 @@ import fr.ybo.opendata.nantes.modele.Itineraire;
 import fr.ybo.opendata.nantes.modele.Parking;
 import fr.ybo.opendata.nantes.modele.SegmentFluency;
 import fr.ybo.opendata.nantes.modele.StatutParking;
+import fr.ybo.opendata.nantes.modele.Answer;
+import fr.ybo.opendata.nantes.sax.ApiHandler;
+import fr.ybo.opendata.nantes.sax.ModeParsing;
+import fr.ybo.opendata.nantes.sax.MoteurSax;
+import fr.ybo.opendata.nantes.sax.MoteurXml;
+import fr.ybo.opendata.nantes.sax.PoolParseurSax;
+import fr.ybo.opendata.nantes.sax.RecepteurObjet;
+import fr.ybo.opendata.nantes.sax.TableIntern;
+import fr.ybo.opendata.nantes.util.Connecteur;
+import fr.ybo.opendata.nantes.util.ConnecteurConditionnel;
+import fr.ybo.opendata.nantes.util.EcouteurResultat;
 import fr.ybo.opendata.nantes.util.EquipementManager;
+import fr.ybo.opendata.nantes.util.ReponseConditionnelle;
+import fr.ybo.opendata.nantes.util.ResultatAsync;
 
 /**
  * Test de la classe {@link OpenDataApi}.
@@ -205,6 +226,331 @@ public class OpenDataApiTest {
         assertEquals(2, segmentsFluencies.get(0).getColorId());
     }
 
+    /**
+     * Test du moteur StAX, qui doit donner les mêmes résultats que le moteur SAX.
+     *
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testModeStax() throws ApiReseauException {
+        openDataApi.setConnecteur(new FileConnecteur("/getFluiditeAxesRoutiers.xml"));
+        int nbSegments = openDataApi.getCityCenterSegmentsFluencies().size();
+
+        openDataApi.setModeParsing(ModeParsing.STAX);
+        List<SegmentFluency> segmentsFluencies = openDataApi.getCityCenterSegmentsFluencies();
+        assertEquals(nbSegments, segmentsFluencies.size());
+        assertEquals(13, segmentsFluencies.get(0).getId());
+        assertEquals(2, segmentsFluencies.get(0).getColorId());
+
+        openDataApi.setConnecteur(new FileConnecteur("/getDisponibiliteParkingsPublics.xml"));
+        List<Parking> parkings = openDataApi.getParkings();
+        assertEquals(1, parkings.size());
+        assertEquals("DECRE-BOUFFAY", parkings.get(0).getNom());
+        assertEquals(StatutParking.OUVERT, parkings.get(0).getStatut());
+        assertEquals(DISPONIBLES, parkings.get(0).getDisponibles());
+        assertEquals(EXPECTED_LATITUDE, parkings.get(0).getLatitude());
+
+        openDataApi.setConnecteur(new FileConnecteur("/getInfoTraficTANPrevisionnel.xml"));
+        List<InfoTrafic> infosTrafics = openDataApi.getInfosTrafics();
+        assertEquals(2, infosTrafics.size());
+        assertEquals("Réfection chaussée rue Santos Dumont", infosTrafics.get(0).getIntitule());
+        assertEquals("[96/-/-/-]", infosTrafics.get(0).getTroncons());
+        assertTrue(infosTrafics.get(1).isTerminee());
+
+        openDataApi.setConnecteur(new FileConnecteur("/getTempsParcours.xml"));
+        List<Itineraire> itineraires = openDataApi.getTempsParcours();
+        assertEquals(2, itineraires.size());
+        assertEquals(TEMPS_PARCOURS, itineraires.get(0).getTemps());
+        assertFalse(itineraires.get(1).isValide());
+    }
+
+    /**
+     * Une balise utile contenant des balises filles est lue de la même façon par les moteurs SAX et StAX : les
+     * filles utiles sont liées et seul le texte suivant la dernière fille est conservé.
+     *
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testBalisesImbriquees() throws ApiReseauException {
+        openDataApi.setConnecteur(new Connecteur() {
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                String xml = "<opendata><answer><status code=\"0\" message=\"OK\"/><data><Itineraires>"
+                        + "<Itineraire><Identifiant><b>x</b>011</Identifiant>"
+                        + "<Temps>4<Validite>1</Validite>11</Temps></Itineraire>"
+                        + "</Itineraires></data></answer></opendata>";
+                return new ByteArrayInputStream(xml.getBytes());
+            }
+        });
+        for (ModeParsing mode : ModeParsing.values()) {
+            openDataApi.setModeParsing(mode);
+            List<Itineraire> itineraires = openDataApi.getTempsParcours();
+            assertEquals(1, itineraires.size());
+            assertEquals("011", itineraires.get(0).getIdentifiant());
+            assertEquals(TEMPS_PARCOURS, itineraires.get(0).getTemps());
+            assertTrue(itineraires.get(0).isValide());
+        }
+    }
+
+    /**
+     * Test de la réutilisation des parsers SAX.
+     *
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testPoolParseurSax() throws ApiReseauException {
+        PoolParseurSax pool = new PoolParseurSax(1);
+        openDataApi.setMoteurXml(new MoteurSax(pool));
+        openDataApi.setConnecteur(new FileConnecteur("/getTempsParcours.xml"));
+        openDataApi.getTempsParcours();
+        openDataApi.getTempsParcours();
+        List<Itineraire> itineraires = openDataApi.getTempsParcours();
+        assertEquals(2, itineraires.size());
+        assertEquals(1, pool.getMisses());
+        assertEquals(2, pool.getHits());
+        assertEquals(1, pool.getNbDisponibles());
+    }
+
+    /**
+     * Test de la méthode {@link OpenDataApi#streamParkings(RecepteurObjet)}.
+     *
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testStreamParkings() throws ApiReseauException {
+        openDataApi.setConnecteur(new FileConnecteur("/getDisponibiliteParkingsPublics.xml"));
+        final List<Parking> parkings = new ArrayList<Parking>();
+        openDataApi.streamParkings(new RecepteurObjet<Parking>() {
+            @Override
+            public void recevoir(Parking parking) {
+                assertNotNull(parking.getLatitude());
+                parkings.add(parking);
+            }
+        });
+        assertEquals(1, parkings.size());
+        assertEquals("2", parkings.get(0).getIdentifiant());
+        assertEquals(PLACES, parkings.get(0).getPlacesTotales());
+        assertEquals(EXPECTED_LONGITUDE, parkings.get(0).getLongitude());
+
+        openDataApi.setConnecteur(new FileConnecteur("/getFluiditeAxesRoutiers.xml"));
+        final List<SegmentFluency> segmentsFluencies = new ArrayList<SegmentFluency>();
+        openDataApi.setModeParsing(ModeParsing.STAX);
+        openDataApi.streamCityCenterSegmentsFluencies(new RecepteurObjet<SegmentFluency>() {
+            @Override
+            public void recevoir(SegmentFluency segmentFluency) {
+                segmentsFluencies.add(segmentFluency);
+            }
+        });
+        assertEquals(openDataApi.getCityCenterSegmentsFluencies().size(), segmentsFluencies.size());
+        assertEquals(13, segmentsFluencies.get(0).getId());
+    }
+
+    /**
+     * Test de la déduplication des chaines entre deux appels.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testTableIntern() throws ApiReseauException {
+        TableIntern tableIntern = new TableIntern(100);
+        assertEquals(128, tableIntern.getTaille());
+        openDataApi.setTableIntern(tableIntern);
+        openDataApi.setConnecteur(new FileConnecteur("/getDisponibiliteParkingsPublics.xml"));
+        Parking premier = openDataApi.getParkings().get(0);
+        long misses = tableIntern.getMisses();
+        long hits = tableIntern.getHits();
+        Parking second = openDataApi.getParkings().get(0);
+        assertSame(premier.getNom(), second.getNom());
+        assertSame(premier.getIdentifiant(), second.getIdentifiant());
+        assertEquals("DECRE-BOUFFAY", second.getNom());
+        assertEquals(misses, tableIntern.getMisses());
+        assertEquals(2 * hits + misses, tableIntern.getHits());
+        assertTrue(tableIntern.getTauxHits() > 0.5);
+    }
+
+    /**
+     * Moteur comptant les parsings.
+     */
+    private static class MoteurCompteur implements MoteurXml {
+        /**
+         * Nombre de parsings.
+         */
+        private int nbParsings;
+
+        @Override
+        public <T> Answer<T> parser(InputStream inputStream, ApiHandler<T> handler) throws ApiReseauException {
+            nbParsings++;
+            return ModeParsing.SAX.getMoteur().parser(inputStream, handler);
+        }
+    }
+
+    /**
+     * Sans validateurs, un contenu identique au précédent n'est pas parsé.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testAppelsConditionnelsEmpreinte() throws ApiReseauException {
+        MoteurCompteur moteur = new MoteurCompteur();
+        openDataApi.setMoteurXml(moteur);
+        openDataApi.setAppelsConditionnels(true);
+        openDataApi.setConnecteur(new FileConnecteur("/getTempsParcours.xml"));
+        List<Itineraire> itineraires = openDataApi.getTempsParcours();
+        Itineraire premier = itineraires.get(0);
+        premier.setIdentifiant("modifie");
+        itineraires.clear();
+        List<Itineraire> itinerairesNonModifies = openDataApi.getTempsParcours();
+        assertEquals(1, moteur.nbParsings);
+        assertEquals(1, openDataApi.getNbNonModifies());
+        assertEquals(2, itinerairesNonModifies.size());
+        assertEquals("011", itinerairesNonModifies.get(0).getIdentifiant());
+        assertFalse(premier == itinerairesNonModifies.get(0));
+        assertFalse(premier.getLastUpdate() == itinerairesNonModifies.get(0).getLastUpdate());
+
+        openDataApi.setConnecteur(new FileConnecteur("/getDisponibiliteParkingsPublics.xml"));
+        Parking parking = openDataApi.getParkings().get(0);
+        parking.setDisponibles(-1);
+        Parking parkingNonModifie = openDataApi.getParkings().get(0);
+        assertFalse(parking == parkingNonModifie);
+        assertFalse(-1 == parkingNonModifie.getDisponibles());
+        assertEquals(2, moteur.nbParsings);
+
+        openDataApi.setAppelsConditionnels(false);
+        openDataApi.getParkings();
+        assertEquals(3, moteur.nbParsings);
+    }
+
+    /**
+     * Avec validateurs, une réponse non modifiée renvoie le résultat précédent.
+     * @throws ApiReseauException problème réseaux.
+     */
+    @Test
+    public void testAppelsConditionnelsValidateurs() throws ApiReseauException {
+        MoteurCompteur moteur = new MoteurCompteur();
+        openDataApi.setMoteurXml(moteur);
+        openDataApi.setAppelsConditionnels(true);
+        final List<String> etagsRecus = new ArrayList<String>();
+        openDataApi.setConnecteur(new ConnecteurConditionnel() {
+            @Override
+            public ReponseConditionnelle openInputStream(String url, String etag, String lastModified)
+                    throws ApiReseauException {
+                etagsRecus.add(etag);
+                if ("\"v1\"".equals(etag)) {
+                    return ReponseConditionnelle.nonModifiee();
+                }
+                return new ReponseConditionnelle(openInputStream(url), "\"v1\"", null);
+            }
+
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                return new FileConnecteur("/getInfoTraficTANPrevisionnel.xml").openInputStream(url);
+            }
+        });
+        assertEquals(2, openDataApi.getInfosTrafics().size());
+        assertEquals(2, openDataApi.getInfosTrafics().size());
+        assertEquals(1, moteur.nbParsings);
+        assertNull(etagsRecus.get(0));
+        assertEquals("\"v1\"", etagsRecus.get(1));
+    }
+
+    /**
+     * Test des appels asynchrones.
+     * @throws Exception problème.
+     */
+    @Test
+    public void testAsync() throws Exception {
+        openDataApi.setConnecteur(new FileConnecteur("/getTempsParcours.xml"));
+        final CountDownLatch fin = new CountDownLatch(1);
+        final List<Itineraire> recus = new ArrayList<Itineraire>();
+        ResultatAsync<List<Itineraire>> resultat = openDataApi.getTempsParcoursAsync();
+        resultat.ajouterEcouteur(new EcouteurResultat<List<Itineraire>>() {
+            @Override
+            public void succes(List<Itineraire> itineraires) {
+                recus.addAll(itineraires);
+                fin.countDown();
+            }
+
+            @Override
+            public void erreur(Throwable erreur) {
+                fin.countDown();
+            }
+        });
+        assertEquals(2, resultat.getResultat().size());
+        assertTrue(fin.await(10, TimeUnit.SECONDS));
+        assertEquals(2, recus.size());
+
+        openDataApi.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        openDataApi.setConnecteur(new Connecteur() {
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                throw new ApiReseauException("hors ligne");
+            }
+        });
+        final List<Throwable> erreurs = new ArrayList<Throwable>();
+        ResultatAsync<List<Parking>> resultatParkings = openDataApi.getParkingsAsync();
+        assertTrue(resultatParkings.isDone());
+        resultatParkings.ajouterEcouteur(new EcouteurResultat<List<Parking>>() {
+            @Override
+            public void succes(List<Parking> parkings) {
+                fail("Erreur attendue");
+            }
+
+            @Override
+            public void erreur(Throwable erreur) {
+                erreurs.add(erreur);
+            }
+        });
+        assertEquals(1, erreurs.size());
+        assertTrue(erreurs.get(0) instanceof ApiReseauException);
+        try {
+            resultatParkings.getResultat();
+            fail("ApiReseauException attendue");
+        } catch (ApiReseauException exception) {
+            assertEquals("hors ligne", exception.getMessage());
+        }
+    }
+
+    /**
+     * Test de l'appel groupé : un flux en échec n'empêche pas d'avoir les autres.
+     */
+    @Test
+    public void testInstantane() {
+        openDataApi.setConnecteur(new Connecteur() {
+            @Override
+            public InputStream openInputStream(String url) throws ApiReseauException {
+                if (url.contains("getDisponibiliteParkingsPublics")) {
+                    throw new ApiReseauException("parkings hors ligne");
+                }
+                // url : http://data.nantes.fr/api/<commande>/<version>/<clé>
+                String commande = url.split("/")[4];
+                return new FileConnecteur('/' + commande + ".xml").openInputStream(url);
+            }
+        });
+        Instantane instantane = openDataApi.getInstantane(Flux.PARKINGS, Flux.TEMPS_PARCOURS, Flux.FLUIDITE,
+                Flux.TEMPS_PARCOURS);
+        assertFalse(instantane.isComplet());
+        assertFalse(instantane.isSucces(Flux.PARKINGS));
+        assertNull(instantane.get(Flux.PARKINGS));
+        assertEquals("parkings hors ligne", instantane.getErreur(Flux.PARKINGS).getMessage());
+        List<Itineraire> itineraires = instantane.get(Flux.TEMPS_PARCOURS);
+        assertEquals(2, itineraires.size());
+        assertEquals(13, instantane.get(Flux.FLUIDITE).get(0).getId());
+        assertNull(instantane.get(Flux.INFOS_TRAFICS));
+        assertNull(instantane.getErreur(Flux.INFOS_TRAFICS));
+        assertEquals(1, instantane.getErreurs().size());
+
+        Instantane complet = openDataApi.getInstantane(Flux.INFOS_TRAFICS, Flux.INFOS_TRAFICS_TPS_REEL);
+        assertTrue(complet.isComplet());
+        assertEquals(2, complet.get(Flux.INFOS_TRAFICS).size());
+        assertNotNull(complet.get(Flux.INFOS_TRAFICS_TPS_REEL));
+        Instantane tous = openDataApi.getInstantane();
+        assertEquals(1, tous.getErreurs().size());
+        assertTrue(tous.isSucces(Flux.INFOS_TRAFICS_TPS_REEL));
+    }
+
     /**
      * Test en passant vraiment pas la couche http.
      * @throws ApiReseauException problème réseaux.
@@ -0,0 +1,188 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import fr.ybo.opendata.nantes.modele.Parking;
+import fr.ybo.opendata.nantes.modele.StatutParking;
+import fr.ybo.opendata.nantes.util.IndexEntier;
+
+/**
+ * Test des classes {@link ParkingsCourants} et {@link InstantaneParkings}.
+ */
+public class ParkingsCourantsTest {
+
+    /**
+     * Nombre de clés pour le test de l'index.
+     */
+    private static final int NB_CLES = 10000;
+
+    /**
+     * Nombre de parkings publiés.
+     */
+    private static final int NB_PARKINGS = 30;
+
+    /**
+     * Décalage entre l'identifiant et l'idObj des parkings de test.
+     */
+    private static final int DECALAGE_ID_OBJ = 1000;
+
+    /**
+     * Latitude du point recherché.
+     */
+    private static final double LATITUDE = 47.2;
+
+    /**
+     * Longitude du point recherché.
+     */
+    private static final double LONGITUDE = -1.55;
+
+    /**
+     * Ecart de latitude entre deux parkings.
+     */
+    private static final double ECART = 0.001;
+
+    /**
+     * Distance correspondant à {@link ParkingsCourantsTest#ECART} (m).
+     */
+    private static final double METRES_PAR_ECART = 111.195;
+
+    /**
+     * Publication et recherche par identifiant et par idObj.
+     */
+    @Test
+    public void testPublier() {
+        ParkingsCourants courants = new ParkingsCourants();
+        assertSame(InstantaneParkings.VIDE, courants.getInstantane());
+        assertNull(courants.getInstantane().getParIdentifiant("1"));
+
+        List<Parking> parkings = new ArrayList<Parking>();
+        for (int numero = 0; numero < NB_PARKINGS; numero++) {
+            Parking parking = new Parking();
+            parking.setIdentifiant(String.valueOf(numero));
+            parking.setIdObj(DECALAGE_ID_OBJ + numero);
+            parking.setDisponibles(numero);
+            parking.setStatut(StatutParking.OUVERT.getValue());
+            parkings.add(parking);
+        }
+        InstantaneParkings instantane = courants.publier(parkings);
+        assertSame(instantane, courants.getInstantane());
+        assertEquals(1, instantane.getVersion());
+        assertEquals(NB_PARKINGS, instantane.getTaille());
+        assertEquals(NB_PARKINGS, instantane.getParkings().size());
+        assertEquals(7, instantane.getParIdentifiant("7").getDisponibles());
+        assertEquals(7, instantane.getParIdObj(DECALAGE_ID_OBJ + 7).getDisponibles());
+        assertEquals(StatutParking.OUVERT, instantane.getParIdObj(DECALAGE_ID_OBJ).getStatut());
+        assertNull(instantane.getParIdentifiant("inconnu"));
+        assertNull(instantane.getParIdObj(0));
+        assertNull(instantane.getParIdentifiant("7").getLastUpdate());
+
+        // Les parkings sont copiés : les modifier ne change pas l'instantané publié.
+        parkings.get(7).setDisponibles(0);
+        assertEquals(7, instantane.getParIdentifiant("7").getDisponibles());
+        InstantaneParkings suivant = courants.publier(parkings);
+        assertEquals(2, suivant.getVersion());
+        assertEquals(0, suivant.getParIdentifiant("7").getDisponibles());
+        assertEquals(7, instantane.getParIdentifiant("7").getDisponibles());
+    }
+
+    /**
+     * Un état plus ancien que l'instantané courant n'est pas publié.
+     */
+    @Test
+    public void testPublierEtatAncien() {
+        ParkingsCourants courants = new ParkingsCourants();
+        Parking recent = new Parking();
+        recent.setIdentifiant("1");
+        recent.setDisponibles(NB_PARKINGS);
+        recent.setLastUpdate("22/11/2011 10:57:06");
+        InstantaneParkings instantane = courants.publier(Collections.singletonList(recent));
+
+        Parking ancien = new Parking();
+        ancien.setIdentifiant("1");
+        ancien.setLastUpdate("22/11/2011 10:52:06");
+        assertSame(instantane, courants.publier(Collections.singletonList(ancien)));
+        assertEquals(NB_PARKINGS, courants.getInstantane().getParIdentifiant("1").getDisponibles());
+
+        // Sans date connue, le dernier état publié l'emporte.
+        assertEquals(2, courants.publier(Collections.singletonList(new Parking())).getVersion());
+        assertEquals(3, courants.publier(Collections.singletonList(ancien)).getVersion());
+    }
+
+    /**
+     * Test de {@link IndexEntier}.
+     */
+    @Test
+    public void testIndexEntier() {
+        IndexEntier index = new IndexEntier(0);
+        for (int cle = -NB_CLES; cle < NB_CLES; cle += 2) {
+            assertEquals(IndexEntier.ABSENT, index.put(cle, cle + NB_CLES));
+        }
+        assertEquals(NB_CLES, index.getTaille());
+        for (int cle = -NB_CLES; cle < NB_CLES; cle++) {
+            assertEquals(cle % 2 == 0 ? cle + NB_CLES : IndexEntier.ABSENT, index.get(cle));
+        }
+        assertEquals(NB_CLES, index.put(0, 1));
+        assertEquals(1, index.get(0));
+        assertEquals(NB_CLES, index.getTaille());
+    }
+
+    /**
+     * Recherche des parkings disponibles les plus proches.
+     */
+    @Test
+    public void testPlusProchesDisponibles() {
+        ParkingsCourants courants = new ParkingsCourants();
+        assertTrue(courants.plusProchesDisponibles(LATITUDE, LONGITUDE, 3, 1).isEmpty());
+        List<Parking> parkings = new ArrayList<Parking>();
+        for (int numero = 0; numero < NB_PARKINGS; numero++) {
+            Parking parking = new Parking();
+            parking.setIdentifiant(String.valueOf(numero));
+            parking.setStatut(StatutParking.OUVERT.getValue());
+            parking.setSeuilComplet(2);
+            // Un parking tous les 0,001 degrés de latitude (environ 111 m) au nord du point recherché.
+            parking.setLatitude(LATITUDE + numero * ECART);
+            parking.setLongitude(LONGITUDE);
+            parking.setDisponibles(numero % 3 == 0 ? 2 : numero);
+            parkings.add(parking);
+        }
+        parkings.get(1).setStatut(StatutParking.FERME.getValue());
+        parkings.get(2).setLatitude(null);
+        courants.publier(parkings);
+
+        // 0 et 3 sont complets, 1 est fermé, 2 n'a pas de coordonnées.
+        List<ParkingProche> proches = courants.plusProchesDisponibles(LATITUDE, LONGITUDE, 3, 1);
+        assertEquals(3, proches.size());
+        assertEquals("4", proches.get(0).getParking().getIdentifiant());
+        assertEquals("5", proches.get(1).getParking().getIdentifiant());
+        assertEquals("7", proches.get(2).getParking().getIdentifiant());
+        assertEquals(4 * METRES_PAR_ECART, proches.get(0).getDistance(), 1);
+
+        proches = courants.plusProchesDisponibles(LATITUDE, LONGITUDE, 2, 10);
+        assertEquals(2, proches.size());
+        assertEquals("10", proches.get(0).getParking().getIdentifiant());
+        assertEquals("11", proches.get(1).getParking().getIdentifiant());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import fr.ybo.opendata.nantes.util.ParseurDate;
+
+/**
+ * Test de la classe {@link ParseurDate}.
+ */
+public class ParseurDateTest {
+
+    /**
+     * Fuseau horaire par défaut avant le test.
+     */
+    private TimeZone timeZoneDefaut;
+
+    /**
+     * Les tests sont faits dans le fuseau des données (avec changements d'heure).
+     */
+    @Before
+    public void setUp() {
+        timeZoneDefaut = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+    }
+
+    /**
+     * Remise en place du fuseau horaire par défaut.
+     */
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(timeZoneDefaut);
+    }
+
+    /**
+     * Les dates doivent être lues comme par {@link SimpleDateFormat}, y compris autour des changements d'heure.
+     * @throws ParseException problème de parse.
+     */
+    @Test
+    public void testParse() throws ParseException {
+        String format = "dd/MM/yyyy HH:mm:ss";
+        ParseurDate parseur = new ParseurDate(format);
+        SimpleDateFormat sdf = new SimpleDateFormat(format);
+        String[] valeurs = {"21/11/2011 20:18:40", "21/11/2011 20:18:40", "01/01/1970 00:00:00",
+                "29/02/2012 12:00:00", "27/03/2011 01:59:59", "27/03/2011 03:00:00", "30/10/2011 01:30:00",
+                "30/10/2011 03:30:00", "31/12/1899 23:59:59", "31/02/2011 10:00:00"};
+        for (String valeur : valeurs) {
+            assertEquals(valeur, sdf.parse(valeur), parseur.parse(valeur));
+        }
+        ParseurDate parseurJour = new ParseurDate("dd/MM/yyyy");
+        assertEquals(new SimpleDateFormat("dd/MM/yyyy").parse("22/11/2011"), parseurJour.parse("22/11/2011"));
+
+        String[] invalides = {"", "21/11/2011", "21-11-2011 20:18:40", "2a/11/2011 20:18:40", "21/11/2011 20:18"};
+        for (String invalide : invalides) {
+            try {
+                parseur.parse(invalide);
+                fail("ParseException attendue pour " + invalide);
+            } catch (ParseException exception) {
+                // Attendu.
+            }
+        }
+    }
+
+    /**
+     * Les textes qui ne suivent pas exactement le format sont lus comme par un {@link SimpleDateFormat} non strict :
+     * champs d'un seul chiffre, texte en trop, valeurs hors bornes reportées.
+     * @throws ParseException problème de parse.
+     */
+    @Test
+    public void testParseNonStrict() throws ParseException {
+        String format = "dd/MM/yyyy HH:mm:ss";
+        ParseurDate parseur = new ParseurDate(format);
+        SimpleDateFormat sdf = new SimpleDateFormat(format);
+        String[] valeurs = {"1/2/2012 8:30:0", "21/11/2011 20:18:40 CET", "21/11/2011 20:18:40.123",
+                "21/11/2011 24:00:00", "32/11/2011 20:18:40", "21/13/2011 20:18:40", "00/11/2011 20:18:40",
+                "21/11/2011 20:18:40", "1/2/2012 8:30:0"};
+        for (String valeur : valeurs) {
+            assertEquals(valeur, sdf.parse(valeur), parseur.parse(valeur));
+        }
+        ParseurDate parseurJour = new ParseurDate("dd/MM/yyyy");
+        assertEquals(new SimpleDateFormat("dd/MM/yyyy").parse("1/2/2012"), parseurJour.parse("1/2/2012"));
+        ParseurDate parseurHeure = new ParseurDate("HH:mm");
+        assertEquals(new SimpleDateFormat("HH:mm").parse("10:30:00"), parseurHeure.parse("10:30:00"));
+    }
+
+    /**
+     * Test du changement d'heure d'une date.
+     * @throws ParseException problème de parse.
+     */
+    @Test
+    public void testChangerHeure() throws ParseException {
+        ParseurDate parseurJour = new ParseurDate("dd/MM/yyyy");
+        ParseurDate parseurHeure = new ParseurDate("HH:mm");
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+        String[] jours = {"22/11/2011", "27/03/2011", "30/10/2011", "01/01/1960"};
+        for (String jour : jours) {
+            Date date = parseurJour.parse(jour);
+            assertEquals(sdf.parse(jour + " 10:30"), parseurHeure.changerHeure(date, "10:30"));
+            assertEquals(sdf.parse(jour + " 23:59"), parseurHeure.changerHeure(date, "23:59"));
+            Date dateAvecHeure = parseurHeure.changerHeure(date, "16:00");
+            assertEquals(sdf.parse(jour + " 00:15"), parseurHeure.changerHeure(dateAvecHeure, "00:15"));
+            for (String heure : new String[] {"8:30", "10:30:00", "9:5", "24:00", "23:75"}) {
+                assertEquals(heure, sdf.parse(jour + ' ' + heure), parseurHeure.changerHeure(date, heure));
+            }
+        }
+    }
+
+    /**
+     * Les formats contenant des champs non gérés sont refusés.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFormatInvalide() {
+        new ParseurDate("dd MMM yyyy");
+    }
+}
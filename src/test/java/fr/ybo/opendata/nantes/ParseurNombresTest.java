@@ -0,0 +1,71 @@
+/*
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package fr.ybo.opendata.nantes;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+import org.junit.Test;
+
+import fr.ybo.opendata.nantes.util.ParseurNombres;
+
+/**
+ * Test de la classe {@link ParseurNombres}.
+ */
+public class ParseurNombresTest {
+
+    /**
+     * Les entiers doivent être lus comme par {@link Integer#parseInt(String)}.
+     */
+    @Test
+    public void testParseInt() {
+        String[] valeurs = {"0", "359", "-12", "+7", "007", "2147483647", "-2147483648"};
+        for (String valeur : valeurs) {
+            char[] cars = ("<" + valeur + ">").toCharArray();
+            assertEquals(Integer.parseInt(valeur), ParseurNombres.parseInt(cars, 1, valeur.length()));
+        }
+        String[] invalides = {"", "-", "12a", " 1", "2147483648", "-2147483649", "1.5"};
+        for (String invalide : invalides) {
+            try {
+                ParseurNombres.parseInt(invalide.toCharArray(), 0, invalide.length());
+                fail("NumberFormatException attendue pour " + invalide);
+            } catch (NumberFormatException exception) {
+                // Attendu.
+            }
+        }
+    }
+
+    /**
+     * Les nombres décimaux doivent être lus comme par {@link Double#parseDouble(String)}.
+     */
+    @Test
+    public void testParseDouble() {
+        String[] valeurs = {"0", "47.216662619964", "-1.554004632271", "0.1", "-0.0", ".5", "12.", "1e3",
+                "123456789012345678901234.5", "0.30000000000000004"};
+        for (String valeur : valeurs) {
+            assertEquals(Double.parseDouble(valeur),
+                    ParseurNombres.parseDouble(valeur.toCharArray(), 0, valeur.length(), '.'));
+            String virgule = valeur.replace('.', ',');
+            assertEquals(Double.parseDouble(valeur),
+                    ParseurNombres.parseDouble(virgule.toCharArray(), 0, virgule.length(), ','));
+        }
+        try {
+            ParseurNombres.parseDouble("1,5".toCharArray(), 0, 3, '.');
+            fail("NumberFormatException attendue");
+        } catch (NumberFormatException exception) {
+            // Attendu.
+        }
+    }
+}